@@ -11,7 +11,6 @@ import java.beans.PropertyDescriptor;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
@@ -32,6 +31,8 @@ import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
+import net.turnbig.jdbcx.meta.EntityMetadata;
+
 /**
  * @author Woo Cupid
  * @date 2016年5月8日
@@ -110,20 +111,11 @@ public class JdbcxBeanPropertyRowMapper<T> extends BeanPropertyRowMapper<T> {
 	 */
 	@Override
 	protected void initialize(Class<T> mappedClass) {
+		// bean properties are introspected once for each class, shared with other row mappers and jdbcx services
+		EntityMetadata metadata = EntityMetadata.of(mappedClass);
 		this.mappedClass = mappedClass;
-		this.mappedFields = new HashMap<String, PropertyDescriptor>();
-		this.mappedProperties = new HashSet<String>();
-		PropertyDescriptor[] pds = BeanUtils.getPropertyDescriptors(mappedClass);
-		for (PropertyDescriptor pd : pds) {
-			if (pd.getWriteMethod() != null) {
-				this.mappedFields.put(lowerCaseName(pd.getName()), pd);
-				String underscoredName = underscoreName(pd.getName());
-				if (!lowerCaseName(pd.getName()).equals(underscoredName)) {
-					this.mappedFields.put(underscoredName, pd);
-				}
-				this.mappedProperties.add(pd.getName());
-			}
-		}
+		this.mappedFields = metadata.getMappedFields();
+		this.mappedProperties = metadata.getMappedProperties();
 	}
 
 	@Override
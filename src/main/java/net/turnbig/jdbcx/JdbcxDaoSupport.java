@@ -17,33 +17,53 @@
 
 package net.turnbig.jdbcx;
 
-import java.sql.DatabaseMetaData;
-import java.sql.SQLException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.PostConstruct;
 import javax.sql.DataSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SingleColumnRowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterBatchUpdateUtils;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcDaoSupport;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.util.Assert;
 
-import net.turnbig.jdbcx.dialect.Databases;
+import net.turnbig.jdbcx.cache.ParsedSqlCache;
+import net.turnbig.jdbcx.dialect.DialectCapability;
+import net.turnbig.jdbcx.dialect.DialectProvider;
+import net.turnbig.jdbcx.dialect.DialectResolver;
 import net.turnbig.jdbcx.dialect.SQLDialect;
-import net.turnbig.jdbcx.params.RichBeanPropertySqlParameterSource;
+import net.turnbig.jdbcx.params.BeanParameterBinding;
+import net.turnbig.jdbcx.routing.ReplicaRouter;
+import net.turnbig.jdbcx.sql.NamedStatement;
 
 /**
  * Extends Named-Query-JDBC-Template with more friendly API
@@ -56,7 +76,7 @@ public class JdbcxDaoSupport extends NamedParameterJdbcDaoSupport {
 
 	private static final Logger logger = LoggerFactory.getLogger(JdbcxDaoSupport.class);
 
-	HashMap<Class<?>, BeanPropertyRowMapper<?>> beanPropsRowMapperMapper = new HashMap<Class<?>, BeanPropertyRowMapper<?>>();
+	Map<Class<?>, BeanPropertyRowMapper<?>> beanPropsRowMapperMapper = new ConcurrentHashMap<Class<?>, BeanPropertyRowMapper<?>>();
 
 	// used to convert some special JDBC value type to java object
 	// Due to there are multiple conversion-service at most time,
@@ -65,15 +85,78 @@ public class JdbcxDaoSupport extends NamedParameterJdbcDaoSupport {
 	@Qualifier("jdbcxConversionService")
 	ConversionService conversionService;
 
+	// shared parsed SQL cache, a private one will be used if not exists
+	@Autowired(required = false)
+	ParsedSqlCache parsedSqlCache;
+
+	// pad collection parameters to bucket sizes, so IN-list produces only a handful of distinct SQL
+	@Value("${spring.jdbcx.in-list-padding:true}")
+	boolean inListPadding = true;
+
 	SQLDialect dialect;
 
+	// dialect providers of databases which are not supported by built-in dialects
+	@Autowired(required = false)
+	List<DialectProvider> dialectProviders;
+
 	@Autowired
 	DataSource dataSource;
 
+	// reads are routed to replicas if exists, the DAO is bound to the primary data-source only if not
+	@Autowired(required = false)
+	ReplicaRouter replicaRouter;
+
+	private JdbcxNamedParameterJdbcTemplate namedParameterJdbcTemplate;
+	private List<JdbcxNamedParameterJdbcTemplate> replicaTemplates = Collections.emptyList();
+
 	public void setDialect(SQLDialect dialect) {
 		this.dialect = dialect;
 	}
 
+	public SQLDialect getDialect() {
+		return dialect;
+	}
+
+	/**
+	 * @param capability
+	 * @return whether the database of this DAO supports the capability
+	 */
+	public boolean supports(DialectCapability capability) {
+		return capability.isSupportedBy(dialect);
+	}
+
+	public void setParsedSqlCache(ParsedSqlCache parsedSqlCache) {
+		this.parsedSqlCache = parsedSqlCache;
+	}
+
+	public void setInListPadding(boolean inListPadding) {
+		this.inListPadding = inListPadding;
+		if (namedParameterJdbcTemplate != null) {
+			namedParameterJdbcTemplate.setInListPadding(inListPadding);
+		}
+		for (JdbcxNamedParameterJdbcTemplate template : replicaTemplates) {
+			template.setInListPadding(inListPadding);
+		}
+	}
+
+	/**
+	 * @param replicaRouter route reads to replicas, null to read from the primary
+	 */
+	public void setReplicaRouter(ReplicaRouter replicaRouter) {
+		this.replicaRouter = replicaRouter;
+		if (namedParameterJdbcTemplate != null) {
+			initReplicaTemplates();
+		}
+	}
+
+	public ReplicaRouter getReplicaRouter() {
+		return replicaRouter;
+	}
+
+	public ParsedSqlCache getParsedSqlCache() {
+		return parsedSqlCache;
+	}
+
 	public void setConversionService(ConversionService conversionService) {
 		this.conversionService = conversionService;
 	}
@@ -81,13 +164,81 @@ public class JdbcxDaoSupport extends NamedParameterJdbcDaoSupport {
 	@PostConstruct
 	public void init() {
 		setDataSource(dataSource);
+		if (dialect != null) {
+			return;
+		}
 		try {
-			DatabaseMetaData metaData = dataSource.getConnection().getMetaData();
-			dialect = Databases.fromMetaData(metaData).getDialect();
+			// detected once for each data-source, connection is returned to pool immediately,
+			// providers of this context are passed instead of registered globally
+			dialect = DialectResolver.getDialect(dataSource,
+					dialectProviders == null ? Collections.<DialectProvider> emptyList() : dialectProviders);
 			logger.info("[jdbcx] bind dialect to : {}", dialect.getClass());
-		} catch (SQLException e) {
-			logger.error("could not get datasource connection url", e);
+		} catch (MetaDataAccessException e) {
+			logger.error("could not get datasource meta-data", e);
+		}
+	}
+
+	@Override
+	protected void initTemplateConfig() {
+		if (parsedSqlCache == null) {
+			parsedSqlCache = new ParsedSqlCache();
+		}
+		this.namedParameterJdbcTemplate = new JdbcxNamedParameterJdbcTemplate(getJdbcTemplate(), parsedSqlCache);
+		this.namedParameterJdbcTemplate.setInListPadding(inListPadding);
+		initReplicaTemplates();
+	}
+
+	/**
+	 * replicas share the dialect of the primary, which is detected once
+	 */
+	private void initReplicaTemplates() {
+		if (replicaRouter == null) {
+			replicaTemplates = Collections.emptyList();
+			return;
+		}
+		List<JdbcxNamedParameterJdbcTemplate> templates = new ArrayList<JdbcxNamedParameterJdbcTemplate>();
+		for (DataSource replica : replicaRouter.getReplicas()) {
+			JdbcxNamedParameterJdbcTemplate template = new JdbcxNamedParameterJdbcTemplate(new JdbcTemplate(replica),
+					parsedSqlCache);
+			template.setInListPadding(inListPadding);
+			templates.add(template);
+		}
+		replicaTemplates = templates;
+	}
+
+	/**
+	 * @return template of the primary data-source
+	 */
+	@Override
+	public JdbcxNamedParameterJdbcTemplate getNamedParameterJdbcTemplate() {
+		return namedParameterJdbcTemplate;
+	}
+
+	/**
+	 * every call routes again, so reads which should see the same data (e.g. the count and the page of a paged
+	 * query) take the template once and share it
+	 * 
+	 * @return template to read from, a replica chosen by {@link ReplicaRouter}, or the primary
+	 */
+	protected JdbcxNamedParameterJdbcTemplate getReadTemplate() {
+		ReplicaRouter router = replicaRouter;
+		List<JdbcxNamedParameterJdbcTemplate> replicas = replicaTemplates;
+		if (router == null || replicas.isEmpty()) {
+			return namedParameterJdbcTemplate;
+		}
+		int index = router.route();
+		return index == ReplicaRouter.PRIMARY ? namedParameterJdbcTemplate : replicas.get(index);
+	}
+
+	/**
+	 * @return template of the primary, following reads of current thread may stick to the primary
+	 */
+	protected JdbcxNamedParameterJdbcTemplate getWriteTemplate() {
+		ReplicaRouter router = replicaRouter;
+		if (router != null) {
+			router.markWrite();
 		}
+		return namedParameterJdbcTemplate;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -99,96 +250,273 @@ public class JdbcxDaoSupport extends NamedParameterJdbcDaoSupport {
 		return (JdbcxBeanPropertyRowMapper<T>) beanPropsRowMapperMapper.get(mapResultToClass);
 	}
 
+	/**
+	 * choose row mapper by result type
+	 * <li>Map - column name to value</li>
+	 * <li>simple type (Integer/String/Date/etc) - single column</li>
+	 * <li>others - bean properties</li>
+	 * 
+	 * @param resultType
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> RowMapper<T> getRowMapper(Class<T> resultType) {
+		if (Map.class.isAssignableFrom(resultType)) {
+			return (RowMapper<T>) new ColumnMapRowMapper();
+		} else if (BeanUtils.isSimpleProperty(resultType)) {
+			return new SingleColumnRowMapper<T>(resultType);
+		}
+		return getBeanPropsRowMapper(resultType);
+	}
+
+	protected PreparedStatementCreator getPreparedStatementCreator(NamedStatement<?> statement,
+			SqlParameterSource paramSource) {
+		return namedParameterJdbcTemplate.getPreparedStatementCreator(statement.getParsedSql(), paramSource);
+	}
+
+	protected SqlParameterSource toParamSource(Map<String, ?> paramMap) {
+		return paramMap == null ? EmptySqlParameterSource.INSTANCE : new MapSqlParameterSource(paramMap);
+	}
+
+	protected SqlParameterSource toParamSource(String sql, Object beanParamSource) {
+		return toParamSource(sql, namedParameterJdbcTemplate.getParsedSqlCache().get(sql), beanParamSource);
+	}
+
+	/**
+	 * persisted properties of the bean are bound by the precomputed accessors and JDBC types of (class, SQL)
+	 */
+	protected SqlParameterSource toParamSource(String sql, ParsedSql parsedSql, Object beanParamSource) {
+		return BeanParameterBinding.of(beanParamSource.getClass(), sql, parsedSql).newParameterSource(beanParamSource);
+	}
+
 	// ============================ multiply fields returned =====================//
 
 	public <T> List<T> queryForListBean(String sql, Map<String, ?> paramMap, Class<T> mapResultToClass)
 			throws DataAccessException {
-		return getNamedParameterJdbcTemplate().query(sql, paramMap, getBeanPropsRowMapper(mapResultToClass));
+		return getReadTemplate().query(sql, paramMap, getBeanPropsRowMapper(mapResultToClass));
 	}
 
 	public <T> List<T> queryForListBean(String sql, Object beanParamSource, Class<T> mapResultToClass)
 			throws DataAccessException {
-		return getNamedParameterJdbcTemplate().query(sql, new BeanPropertySqlParameterSource(beanParamSource),
+		return getReadTemplate().query(sql, new BeanPropertySqlParameterSource(beanParamSource),
 				getBeanPropsRowMapper(mapResultToClass));
 	}
 
 	public <T> List<T> queryForListBean(String sql, Class<T> mapResultToClass) {
-		return getNamedParameterJdbcTemplate().query(sql, getBeanPropsRowMapper(mapResultToClass));
+		return getReadTemplate().query(sql, getBeanPropsRowMapper(mapResultToClass));
 	}
 
 	public <T> T queryForBean(String sql, Object beanParamSource, Class<T> mapResultToClass)
 			throws DataAccessException {
-		return getNamedParameterJdbcTemplate().queryForObject(sql, new BeanPropertySqlParameterSource(beanParamSource),
+		return getReadTemplate().queryForObject(sql, new BeanPropertySqlParameterSource(beanParamSource),
 				getBeanPropsRowMapper(mapResultToClass));
 	}
 
 	public <T> T queryForBean(String sql, Map<String, ?> paramMap, Class<T> mapResultToClass)
 			throws DataAccessException {
-		return getNamedParameterJdbcTemplate().queryForObject(sql, paramMap, getBeanPropsRowMapper(mapResultToClass));
+		return getReadTemplate().queryForObject(sql, paramMap, getBeanPropsRowMapper(mapResultToClass));
 	}
 
 	public <T> T queryForBean(String sql, Class<T> mapResultToClass) {
-		return getNamedParameterJdbcTemplate().queryForObject(sql, EmptySqlParameterSource.INSTANCE,
+		return getReadTemplate().queryForObject(sql, EmptySqlParameterSource.INSTANCE,
 				getBeanPropsRowMapper(mapResultToClass));
 	}
 
 	public Map<String, Object> queryForMap(String sql, Object beanParamSource) {
-		return getNamedParameterJdbcTemplate().queryForMap(sql, new BeanPropertySqlParameterSource(beanParamSource));
+		return getReadTemplate().queryForMap(sql, new BeanPropertySqlParameterSource(beanParamSource));
 	}
 
 	public Map<String, Object> queryForMap(String sql, Map<String, ?> paramMap) {
-		return getNamedParameterJdbcTemplate().queryForMap(sql, paramMap);
+		return getReadTemplate().queryForMap(sql, paramMap);
 	}
 
 	public Map<String, Object> queryForMap(String sql) {
-		return getNamedParameterJdbcTemplate().queryForMap(sql, EmptySqlParameterSource.INSTANCE);
+		return getReadTemplate().queryForMap(sql, EmptySqlParameterSource.INSTANCE);
 	}
 
 	public List<Map<String, Object>> queryForListMap(String sql, Map<String, ?> paramMap) {
-		return getNamedParameterJdbcTemplate().queryForList(sql, paramMap);
+		return getReadTemplate().queryForList(sql, paramMap);
 	}
 
 	public List<Map<String, Object>> queryForListMap(String sql, Object beanParamSource) {
-		return getNamedParameterJdbcTemplate().queryForList(sql, new BeanPropertySqlParameterSource(beanParamSource));
+		return getReadTemplate().queryForList(sql, new BeanPropertySqlParameterSource(beanParamSource));
 	}
 
 	public List<Map<String, Object>> queryForListMap(String sql) {
-		return getNamedParameterJdbcTemplate().queryForList(sql, EmptySqlParameterSource.INSTANCE);
+		return getReadTemplate().queryForList(sql, EmptySqlParameterSource.INSTANCE);
 	}
 
 	// ============================ multiply fields returned =====================//
 
 	// ============================ single field returned =====================//
 	public <T> T queryForObject(String sql, Class<T> requiredType) {
-		return getNamedParameterJdbcTemplate().queryForObject(sql, EmptySqlParameterSource.INSTANCE, requiredType);
+		return getReadTemplate().queryForObject(sql, EmptySqlParameterSource.INSTANCE, requiredType);
 	}
 
 	public <T> T queryForObject(String sql, Object beanParamSource, Class<T> requiredType) {
-		return getNamedParameterJdbcTemplate().queryForObject(sql, new BeanPropertySqlParameterSource(beanParamSource),
+		return getReadTemplate().queryForObject(sql, new BeanPropertySqlParameterSource(beanParamSource),
 				requiredType);
 	}
 
 	public <T> T queryForObject(String sql, Map<String, ?> paramMap, Class<T> requiredType) {
-		return getNamedParameterJdbcTemplate().queryForObject(sql, paramMap, requiredType);
+		return getReadTemplate().queryForObject(sql, paramMap, requiredType);
 	}
 
 	public <T> List<T> queryForList(String sql, Object beanParamSource, Class<T> elementType)
 			throws DataAccessException {
-		return getNamedParameterJdbcTemplate().queryForList(sql, new BeanPropertySqlParameterSource(beanParamSource),
+		return getReadTemplate().queryForList(sql, new BeanPropertySqlParameterSource(beanParamSource),
 				elementType);
 	}
 
 	public <T> List<T> queryForList(String sql, Map<String, ?> paramMap, Class<T> elementType)
 			throws DataAccessException {
-		return getNamedParameterJdbcTemplate().queryForList(sql, paramMap, elementType);
+		return getReadTemplate().queryForList(sql, paramMap, elementType);
 	}
 
 	public <T> List<T> queryForList(String sql, Class<T> elementType) {
-		return getNamedParameterJdbcTemplate().queryForList(sql, EmptySqlParameterSource.INSTANCE, elementType);
+		return getReadTemplate().queryForList(sql, EmptySqlParameterSource.INSTANCE, elementType);
 	}
 
 	// ============================ single field returned =====================//
 
+	// ============================ prepared named statement =====================//
+
+	public <T> List<T> queryForList(NamedStatement<T> statement, SqlParameterSource paramSource)
+			throws DataAccessException {
+		return queryForList(getReadTemplate(), statement, paramSource);
+	}
+
+	/**
+	 * @param template	template to read from, e.g. the replica shared by the count and page queries of a paged call
+	 * @param statement
+	 * @param paramSource
+	 * @return
+	 */
+	protected <T> List<T> queryForList(JdbcxNamedParameterJdbcTemplate template, NamedStatement<T> statement,
+			SqlParameterSource paramSource) throws DataAccessException {
+		return template.getJdbcOperations().query(getPreparedStatementCreator(statement, paramSource),
+				statement.getRowMapper() != null ? statement.getRowMapper() : getRowMapper(statement.getResultType()));
+	}
+
+	public <T> List<T> queryForList(NamedStatement<T> statement, Map<String, ?> paramMap) throws DataAccessException {
+		return queryForList(statement, toParamSource(paramMap));
+	}
+
+	public <T> List<T> queryForList(NamedStatement<T> statement, Object beanParamSource) throws DataAccessException {
+		return queryForList(statement, new BeanPropertySqlParameterSource(beanParamSource));
+	}
+
+	public <T> List<T> queryForList(NamedStatement<T> statement) throws DataAccessException {
+		return queryForList(statement, EmptySqlParameterSource.INSTANCE);
+	}
+
+	public <T> T queryForObject(NamedStatement<T> statement, SqlParameterSource paramSource)
+			throws DataAccessException {
+		return DataAccessUtils.requiredSingleResult(queryForList(statement, paramSource));
+	}
+
+	public <T> T queryForObject(NamedStatement<T> statement, Map<String, ?> paramMap) throws DataAccessException {
+		return queryForObject(statement, toParamSource(paramMap));
+	}
+
+	public <T> T queryForObject(NamedStatement<T> statement, Object beanParamSource) throws DataAccessException {
+		return queryForObject(statement, new BeanPropertySqlParameterSource(beanParamSource));
+	}
+
+	public <T> T queryForObject(NamedStatement<T> statement) throws DataAccessException {
+		return queryForObject(statement, EmptySqlParameterSource.INSTANCE);
+	}
+
+	public int update(NamedStatement<?> statement, SqlParameterSource paramSource) throws DataAccessException {
+		return getWriteTemplate().getJdbcOperations().update(getPreparedStatementCreator(statement, paramSource));
+	}
+
+	public int update(NamedStatement<?> statement, Map<String, ?> paramMap) throws DataAccessException {
+		return update(statement, toParamSource(paramMap));
+	}
+
+	public int update(NamedStatement<?> statement, Object beanParamSource) throws DataAccessException {
+		return update(statement, toParamSource(statement.getSql(), statement.getParsedSql(), beanParamSource));
+	}
+
+	public KeyHolder insert(NamedStatement<?> statement, SqlParameterSource paramSource, String... keyColumnNames)
+			throws DataAccessException {
+		SqlParameterSource source = namedParameterJdbcTemplate.padding(statement.getParsedSql(), paramSource);
+		PreparedStatementCreatorFactory pscf = namedParameterJdbcTemplate
+				.getPreparedStatementCreatorFactory(statement.getParsedSql(), source);
+		if (keyColumnNames != null && keyColumnNames.length > 0) {
+			pscf.setGeneratedKeysColumnNames(keyColumnNames);
+		} else {
+			pscf.setReturnGeneratedKeys(true);
+		}
+		Object[] params = NamedParameterUtils.buildValueArray(statement.getParsedSql(), source, null);
+		KeyHolder keyHolder = new GeneratedKeyHolder();
+		getWriteTemplate().getJdbcOperations().update(pscf.newPreparedStatementCreator(params), keyHolder);
+		return keyHolder;
+	}
+
+	public KeyHolder insert(NamedStatement<?> statement, Map<String, ?> paramMap, String... keyColumnNames)
+			throws DataAccessException {
+		return insert(statement, toParamSource(paramMap), keyColumnNames);
+	}
+
+	public KeyHolder insert(NamedStatement<?> statement, Object beanParamSource, String... keyColumnNames)
+			throws DataAccessException {
+		return insert(statement, toParamSource(statement.getSql(), statement.getParsedSql(), beanParamSource),
+				keyColumnNames);
+	}
+
+	public int[] batchUpdate(NamedStatement<?> statement, List<?> batchArgs) throws DataAccessException {
+		return executeBatch(statement.getSql(), statement.getParsedSql(), batchArgs);
+	}
+
+	/**
+	 * 
+	 * execute batch, beans of the same class are bound positionally by the precomputed accessors when possible
+	 * 
+	 * @see BeanParameterBinding
+	 * @param sql
+	 * @param parsedSql
+	 * @param batchArgs beans or maps
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	protected int[] executeBatch(String sql, ParsedSql parsedSql, List<?> batchArgs) {
+		JdbcOperations operations = getWriteTemplate().getJdbcOperations();
+		BeanParameterBinding binding = getBatchBinding(sql, parsedSql, batchArgs);
+		if (binding != null && binding.isPositional()) {
+			return operations.batchUpdate(binding.getPositionalSql(), binding.newBatchSetter(batchArgs));
+		}
+
+		SqlParameterSource[] params = new SqlParameterSource[batchArgs.size()];
+		for (int i = 0; i < batchArgs.size(); i++) {
+			if (batchArgs.get(i) instanceof Map) {
+				params[i] = new MapSqlParameterSource((Map<String, ?>) batchArgs.get(i));
+			} else {
+				params[i] = toParamSource(sql, parsedSql, batchArgs.get(i));
+			}
+		}
+		return NamedParameterBatchUpdateUtils.executeBatchUpdateWithNamedParameters(parsedSql, params, operations);
+	}
+
+	/**
+	 * @return binding if all batch arguments are beans of the same class, else null
+	 */
+	private BeanParameterBinding getBatchBinding(String sql, ParsedSql parsedSql, List<?> batchArgs) {
+		if (batchArgs.isEmpty() || batchArgs.get(0) == null || batchArgs.get(0) instanceof Map) {
+			return null;
+		}
+		Class<?> beanClass = batchArgs.get(0).getClass();
+		for (Object arg : batchArgs) {
+			if (arg == null || arg.getClass() != beanClass) {
+				return null;
+			}
+		}
+		return BeanParameterBinding.of(beanClass, sql, parsedSql);
+	}
+
+	// ============================ prepared named statement =====================//
+
 	/**
 	 * execute SQL (insert/update/etc)
 	 * 
@@ -197,35 +525,52 @@ public class JdbcxDaoSupport extends NamedParameterJdbcDaoSupport {
 	 * @return
 	 */
 	public int update(String sql, Object beanParamSource) {
-		return getNamedParameterJdbcTemplate().update(sql, new RichBeanPropertySqlParameterSource(beanParamSource));
+		return getWriteTemplate().update(sql, toParamSource(sql, beanParamSource));
 	}
 
 	public int update(String sql, Map<String, ?> paramMap) {
-		return getNamedParameterJdbcTemplate().update(sql, paramMap);
+		return getWriteTemplate().update(sql, paramMap);
 	}
 
 	public KeyHolder insert(String sql, Object beanParamSource) {
 		KeyHolder keyHolder = new GeneratedKeyHolder();
-		getNamedParameterJdbcTemplate().update(sql, new RichBeanPropertySqlParameterSource(beanParamSource), keyHolder);
+		getWriteTemplate().update(sql, toParamSource(sql, beanParamSource), keyHolder);
 		return keyHolder;
 	}
 
 	public KeyHolder insert(String sql, Object beanParamSource, String... keyColumnNames) throws DataAccessException {
 		KeyHolder keyHolder = new GeneratedKeyHolder();
-		getNamedParameterJdbcTemplate().update(sql, new RichBeanPropertySqlParameterSource(beanParamSource), keyHolder,
-				keyColumnNames);
+		getWriteTemplate().update(sql, toParamSource(sql, beanParamSource), keyHolder, keyColumnNames);
 		return keyHolder;
 	}
 
+	/**
+	 * 
+	 * insert with "insert ... returning key", for databases support {@link DialectCapability#INSERT_RETURNING},
+	 * the key is read from the result of the statement, the driver does not rewrite (and quote) the key column
+	 * 
+	 * @param sql				insert SQL without returning clause
+	 * @param beanParamSource
+	 * @param keyColumnName
+	 * @return key holder of the returned row
+	 */
+	public KeyHolder insertReturning(String sql, Object beanParamSource, String keyColumnName) {
+		Assert.isTrue(supports(DialectCapability.INSERT_RETURNING), "insert returning is not supported by " + dialect);
+		String returningSql = sql + " returning " + keyColumnName;
+		Map<String, Object> keys = getWriteTemplate().queryForMap(returningSql,
+				toParamSource(returningSql, beanParamSource));
+		return new GeneratedKeyHolder(Collections.singletonList(keys));
+	}
+
 	public KeyHolder insert(String sql, Map<String, ?> paramMap) {
 		KeyHolder keyHolder = new GeneratedKeyHolder();
-		getNamedParameterJdbcTemplate().update(sql, new MapSqlParameterSource(paramMap), keyHolder);
+		getWriteTemplate().update(sql, new MapSqlParameterSource(paramMap), keyHolder);
 		return keyHolder;
 	}
 
 	public KeyHolder insert(String sql, Map<String, ?> paramMap, String... keyColumnNames) throws DataAccessException {
 		KeyHolder keyHolder = new GeneratedKeyHolder();
-		getNamedParameterJdbcTemplate().update(sql, new MapSqlParameterSource(paramMap), keyHolder, keyColumnNames);
+		getWriteTemplate().update(sql, new MapSqlParameterSource(paramMap), keyHolder, keyColumnNames);
 		return keyHolder;
 	}
 
@@ -236,20 +581,11 @@ public class JdbcxDaoSupport extends NamedParameterJdbcDaoSupport {
 			batchArgs[i] = new MapSqlParameterSource(values);
 			i++;
 		}
-		return getNamedParameterJdbcTemplate().batchUpdate(sql, batchArgs);
+		return getWriteTemplate().batchUpdate(sql, batchArgs);
 	}
 
-	@SuppressWarnings("unchecked")
 	public final int[] batchUpdate(String sql, List<?> batchArgs) {
-		SqlParameterSource[] params = new SqlParameterSource[batchArgs.size()];
-		for (int i = 0; i < batchArgs.size(); i++) {
-			if (batchArgs.get(i) instanceof Map) {
-				params[i] = new MapSqlParameterSource((Map<String, ?>) batchArgs.get(i));
-			} else {
-				params[i] = new RichBeanPropertySqlParameterSource(batchArgs.get(i));
-			}
-		}
-		return getNamedParameterJdbcTemplate().batchUpdate(sql, params);
+		return executeBatch(sql, namedParameterJdbcTemplate.getParsedSqlCache().get(sql), batchArgs);
 	}
 
 }
@@ -0,0 +1,117 @@
+/**
+ * @(#)JdbcxNamedParameterJdbcTemplate.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import net.turnbig.jdbcx.cache.ParsedSqlCache;
+import net.turnbig.jdbcx.params.InListPaddingSqlParameterSource;
+
+/**
+ * 
+ * Named-Parameter-JDBC-Template which looks up parsed SQL from a JDBCX {@link ParsedSqlCache} 
+ * instead of the fixed size internal cache.
+ * 
+ * When in-list padding is enabled, collection parameters of <code>in (:name)</code> are padded to bucket sizes, 
+ * see {@link InListPaddingSqlParameterSource}
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class JdbcxNamedParameterJdbcTemplate extends NamedParameterJdbcTemplate {
+
+	private final ParsedSqlCache parsedSqlCache;
+
+	private boolean inListPadding = true;
+
+	public JdbcxNamedParameterJdbcTemplate(JdbcOperations classicJdbcTemplate, ParsedSqlCache parsedSqlCache) {
+		super(classicJdbcTemplate);
+		this.parsedSqlCache = parsedSqlCache;
+		// internal cache is not used any more
+		setCacheLimit(0);
+	}
+
+	@Override
+	protected ParsedSql getParsedSql(String sql) {
+		return parsedSqlCache.get(sql);
+	}
+
+	@Override
+	protected PreparedStatementCreator getPreparedStatementCreator(String sql, SqlParameterSource paramSource) {
+		return getPreparedStatementCreator(getParsedSql(sql), paramSource);
+	}
+
+	/**
+	 * build prepared statement creator with pre-parsed SQL
+	 * 
+	 * @param parsedSql
+	 * @param paramSource
+	 * @return
+	 */
+	public PreparedStatementCreator getPreparedStatementCreator(ParsedSql parsedSql, SqlParameterSource paramSource) {
+		SqlParameterSource source = padding(parsedSql, paramSource);
+		PreparedStatementCreatorFactory pscf = getPreparedStatementCreatorFactory(parsedSql, source);
+		Object[] params = NamedParameterUtils.buildValueArray(parsedSql, source, null);
+		return pscf.newPreparedStatementCreator(params);
+	}
+
+	/**
+	 * build prepared statement creator factory with pre-parsed SQL, 
+	 * the param source should be passed to {@link #padding(ParsedSql, SqlParameterSource)} first
+	 * 
+	 * @param parsedSql
+	 * @param paramSource
+	 * @return
+	 */
+	public PreparedStatementCreatorFactory getPreparedStatementCreatorFactory(ParsedSql parsedSql,
+			SqlParameterSource paramSource) {
+		String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource);
+		List<SqlParameter> declaredParameters = NamedParameterUtils.buildSqlParameterList(parsedSql, paramSource);
+		return new PreparedStatementCreatorFactory(sqlToUse, declaredParameters);
+	}
+
+	/**
+	 * @param parsedSql
+	 * @param paramSource
+	 * @return param source which pads the in-list parameters of the SQL, or the param source itself if disabled or
+	 * 		no in-list parameter is found
+	 */
+	public SqlParameterSource padding(ParsedSql parsedSql, SqlParameterSource paramSource) {
+		if (inListPadding && !(paramSource instanceof InListPaddingSqlParameterSource)) {
+			Set<String> inListParameters = InListPaddingSqlParameterSource.getInListParameters(parsedSql);
+			if (!inListParameters.isEmpty()) {
+				return new InListPaddingSqlParameterSource(paramSource, inListParameters);
+			}
+		}
+		return paramSource;
+	}
+
+	public boolean isInListPadding() {
+		return inListPadding;
+	}
+
+	public void setInListPadding(boolean inListPadding) {
+		this.inListPadding = inListPadding;
+	}
+
+	public ParsedSqlCache getParsedSqlCache() {
+		return parsedSqlCache;
+	}
+
+}
@@ -11,13 +11,23 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Component;
 
+import net.turnbig.jdbcx.dialect.SelectSqlUtils;
+import net.turnbig.jdbcx.dialect.UniqueKeys;
+import net.turnbig.jdbcx.dialect.impl.AbstractSQLDialect;
+import net.turnbig.jdbcx.params.PageableSqlParameterSource;
+import net.turnbig.jdbcx.sql.NamedStatement;
+
 /**
  * @author Woo Cupid
  * @date 2016年1月28日
@@ -26,14 +36,57 @@ import org.springframework.stereotype.Component;
 @Component
 public class JdbcxPagingDaoSupport extends JdbcxDaoSupport {
 
+	// unique keys of the joined tables, unreferenced to-one left joins are removed from count SQL, none by default
+	@Autowired(required = false)
+	UniqueKeys uniqueKeys = UniqueKeys.NONE;
+
+	/**
+	 * @param uniqueKeys unique keys of the joined tables, null to keep all left joins in count SQL
+	 */
+	public void setUniqueKeys(UniqueKeys uniqueKeys) {
+		this.uniqueKeys = uniqueKeys == null ? UniqueKeys.NONE : uniqueKeys;
+	}
+
+	public UniqueKeys getUniqueKeys() {
+		return uniqueKeys;
+	}
+
+	/**
+	 * @param sql
+	 * @return count SQL of the dialect, the unique keys are applied if the dialect is an {@link AbstractSQLDialect}
+	 */
+	protected String getCountSql(String sql) {
+		if (!uniqueKeys.isEmpty() && dialect instanceof AbstractSQLDialect) {
+			return ((AbstractSQLDialect) dialect).getCountSql(sql, uniqueKeys);
+		}
+		return dialect.getCountSql(sql);
+	}
+
+	/**
+	 * @param sql
+	 * @param pageable
+	 * @return paged SQL of the dialect, row numbers are named parameters if the dialect is an 
+	 *         {@link AbstractSQLDialect}, else literals
+	 */
+	protected String getPageableSql(String sql, Pageable pageable) {
+		if (dialect instanceof AbstractSQLDialect) {
+			String pagedSql = ((AbstractSQLDialect) dialect).getPagedSql(sql, pageable.getSort());
+			if (pagedSql != null) {
+				return pagedSql;
+			}
+		}
+		return dialect.getPageableSql(sql, pageable);
+	}
+
 	public <T> Page<T> queryForListBean(String sql, Map<String, ?> paramMap, Class<T> mapResultToClass,
 			Pageable pageable) {
-		String countSql = dialect.getCountSql(sql);
-		Integer count = queryForObject(countSql, paramMap, Integer.class);
+		JdbcxNamedParameterJdbcTemplate template = getReadTemplate();
+		String countSql = getCountSql(sql);
+		Integer count = template.queryForObject(countSql, paramMap, Integer.class);
 		if (count > pageable.getOffset()) {
-			String pageableSql = dialect.getPageableSql(sql, pageable);
-			List<T> list = getNamedParameterJdbcTemplate().query(pageableSql, paramMap,
-					getBeanPropsRowMapper(mapResultToClass));
+			String pageableSql = getPageableSql(sql, pageable);
+			List<T> list = template.query(pageableSql,
+					withPageParams(toParamSource(paramMap), pageable), getBeanPropsRowMapper(mapResultToClass));
 			return new PageImpl<T>(list, pageable, count);
 		} else {
 			return new PageImpl<T>(Collections.<T> emptyList(), pageable, count);
@@ -42,12 +95,15 @@ public class JdbcxPagingDaoSupport extends JdbcxDaoSupport {
 
 	public <T> Page<T> queryForListBean(String sql, Object beanParamSource, Class<T> mapResultToClass,
 			Pageable pageable) {
-		String countSql = dialect.getCountSql(sql);
-		Integer count = queryForObject(countSql, beanParamSource, Integer.class);
+		JdbcxNamedParameterJdbcTemplate template = getReadTemplate();
+		String countSql = getCountSql(sql);
+		Integer count = template.queryForObject(countSql, new BeanPropertySqlParameterSource(beanParamSource),
+				Integer.class);
 		if (count > pageable.getOffset()) {
-			String pageableSql = dialect.getPageableSql(sql, pageable);
-			List<T> list = getNamedParameterJdbcTemplate().query(pageableSql,
-					new BeanPropertySqlParameterSource(beanParamSource), getBeanPropsRowMapper(mapResultToClass));
+			String pageableSql = getPageableSql(sql, pageable);
+			List<T> list = template.query(pageableSql,
+					withPageParams(new BeanPropertySqlParameterSource(beanParamSource), pageable),
+					getBeanPropsRowMapper(mapResultToClass));
 			return new PageImpl<T>(list, pageable, count);
 		} else {
 			return new PageImpl<T>(Collections.<T> emptyList(), pageable, count);
@@ -55,11 +111,13 @@ public class JdbcxPagingDaoSupport extends JdbcxDaoSupport {
 	}
 
 	public <T> Page<T> queryForListBean(String sql, Class<T> mapResultToClass, Pageable pageable) {
-		String countSql = dialect.getCountSql(sql);
-		Integer count = queryForObject(countSql, Integer.class);
+		JdbcxNamedParameterJdbcTemplate template = getReadTemplate();
+		String countSql = getCountSql(sql);
+		Integer count = template.queryForObject(countSql, EmptySqlParameterSource.INSTANCE, Integer.class);
 		if (count > pageable.getOffset()) {
-			String pageableSql = dialect.getPageableSql(sql, pageable);
-			List<T> list = getNamedParameterJdbcTemplate().query(pageableSql, getBeanPropsRowMapper(mapResultToClass));
+			String pageableSql = getPageableSql(sql, pageable);
+			List<T> list = template.query(pageableSql,
+					withPageParams(EmptySqlParameterSource.INSTANCE, pageable), getBeanPropsRowMapper(mapResultToClass));
 			return new PageImpl<T>(list, pageable, count);
 		} else {
 			return new PageImpl<T>(Collections.<T> emptyList(), pageable, count);
@@ -67,11 +125,13 @@ public class JdbcxPagingDaoSupport extends JdbcxDaoSupport {
 	}
 
 	public Page<Map<String, Object>> queryForListMap(String sql, Map<String, ?> paramMap, Pageable pageable) {
-		String countSql = dialect.getCountSql(sql);
-		Integer count = queryForObject(countSql, paramMap, Integer.class);
+		JdbcxNamedParameterJdbcTemplate template = getReadTemplate();
+		String countSql = getCountSql(sql);
+		Integer count = template.queryForObject(countSql, paramMap, Integer.class);
 		if (count > pageable.getOffset()) {
-			String pageableSql = dialect.getPageableSql(sql, pageable);
-			List<Map<String, Object>> list = getNamedParameterJdbcTemplate().queryForList(pageableSql, paramMap);
+			String pageableSql = getPageableSql(sql, pageable);
+			List<Map<String, Object>> list = template.queryForList(pageableSql,
+					withPageParams(toParamSource(paramMap), pageable));
 			return new PageImpl<Map<String, Object>>(list, pageable, count);
 		} else {
 			return new PageImpl<Map<String, Object>>(Collections.<Map<String, Object>> emptyList(), pageable, count);
@@ -79,12 +139,14 @@ public class JdbcxPagingDaoSupport extends JdbcxDaoSupport {
 	}
 
 	public Page<Map<String, Object>> queryForListMap(String sql, Object beanParamSource, Pageable pageable) {
-		String countSql = dialect.getCountSql(sql);
-		Integer count = queryForObject(countSql, beanParamSource, Integer.class);
+		JdbcxNamedParameterJdbcTemplate template = getReadTemplate();
+		String countSql = getCountSql(sql);
+		Integer count = template.queryForObject(countSql, new BeanPropertySqlParameterSource(beanParamSource),
+				Integer.class);
 		if (count > pageable.getOffset()) {
-			String pageableSql = dialect.getPageableSql(sql, pageable);
-			List<Map<String, Object>> list = getNamedParameterJdbcTemplate().queryForList(pageableSql,
-					new BeanPropertySqlParameterSource(beanParamSource));
+			String pageableSql = getPageableSql(sql, pageable);
+			List<Map<String, Object>> list = template.queryForList(pageableSql,
+					withPageParams(new BeanPropertySqlParameterSource(beanParamSource), pageable));
 			return new PageImpl<Map<String, Object>>(list, pageable, count);
 		} else {
 			return new PageImpl<Map<String, Object>>(Collections.<Map<String, Object>> emptyList(), pageable, count);
@@ -92,12 +154,13 @@ public class JdbcxPagingDaoSupport extends JdbcxDaoSupport {
 	}
 
 	public Page<Map<String, Object>> queryForListMap(String sql, Pageable pageable) {
-		String countSql = dialect.getCountSql(sql);
-		Integer count = queryForObject(countSql, Integer.class);
+		JdbcxNamedParameterJdbcTemplate template = getReadTemplate();
+		String countSql = getCountSql(sql);
+		Integer count = template.queryForObject(countSql, EmptySqlParameterSource.INSTANCE, Integer.class);
 		if (count > pageable.getOffset()) {
-			String pageableSql = dialect.getPageableSql(sql, pageable);
-			List<Map<String, Object>> list = getNamedParameterJdbcTemplate().queryForList(pageableSql,
-					EmptySqlParameterSource.INSTANCE);
+			String pageableSql = getPageableSql(sql, pageable);
+			List<Map<String, Object>> list = template.queryForList(pageableSql,
+					withPageParams(EmptySqlParameterSource.INSTANCE, pageable));
 			return new PageImpl<Map<String, Object>>(list, pageable, count);
 		} else {
 			return new PageImpl<Map<String, Object>>(Collections.<Map<String, Object>> emptyList(), pageable, count);
@@ -105,12 +168,14 @@ public class JdbcxPagingDaoSupport extends JdbcxDaoSupport {
 	}
 
 	public <T> Page<T> queryForList(String sql, Object beanParamSource, Class<T> elementType, Pageable pageable) {
-		String countSql = dialect.getCountSql(sql);
-		Integer count = queryForObject(countSql, beanParamSource, Integer.class);
+		JdbcxNamedParameterJdbcTemplate template = getReadTemplate();
+		String countSql = getCountSql(sql);
+		Integer count = template.queryForObject(countSql, new BeanPropertySqlParameterSource(beanParamSource),
+				Integer.class);
 		if (count > pageable.getOffset()) {
-			String pageableSql = dialect.getPageableSql(sql, pageable);
-			List<T> list = getNamedParameterJdbcTemplate().queryForList(pageableSql,
-					new BeanPropertySqlParameterSource(beanParamSource), elementType);
+			String pageableSql = getPageableSql(sql, pageable);
+			List<T> list = template.queryForList(pageableSql,
+					withPageParams(new BeanPropertySqlParameterSource(beanParamSource), pageable), elementType);
 			return new PageImpl<T>(list, pageable, count);
 		} else {
 			return new PageImpl<T>(Collections.<T> emptyList(), pageable, count);
@@ -118,11 +183,13 @@ public class JdbcxPagingDaoSupport extends JdbcxDaoSupport {
 	}
 
 	public <T> Page<T> queryForList(String sql, Map<String, ?> paramMap, Class<T> elementType, Pageable pageable) {
-		String countSql = dialect.getCountSql(sql);
-		Integer count = queryForObject(countSql, paramMap, Integer.class);
+		JdbcxNamedParameterJdbcTemplate template = getReadTemplate();
+		String countSql = getCountSql(sql);
+		Integer count = template.queryForObject(countSql, paramMap, Integer.class);
 		if (count > pageable.getOffset()) {
-			String pageableSql = dialect.getPageableSql(sql, pageable);
-			List<T> list = getNamedParameterJdbcTemplate().queryForList(pageableSql, paramMap, elementType);
+			String pageableSql = getPageableSql(sql, pageable);
+			List<T> list = template.queryForList(pageableSql,
+					withPageParams(toParamSource(paramMap), pageable), elementType);
 			return new PageImpl<T>(list, pageable, count);
 		} else {
 			return new PageImpl<T>(Collections.<T> emptyList(), pageable, count);
@@ -130,16 +197,72 @@ public class JdbcxPagingDaoSupport extends JdbcxDaoSupport {
 	}
 
 	public <T> Page<T> queryForList(String sql, Class<T> elementType, Pageable pageable) {
-		String countSql = dialect.getCountSql(sql);
-		Integer count = queryForObject(countSql, EmptySqlParameterSource.INSTANCE, Integer.class);
+		JdbcxNamedParameterJdbcTemplate template = getReadTemplate();
+		String countSql = getCountSql(sql);
+		Integer count = template.queryForObject(countSql, EmptySqlParameterSource.INSTANCE, Integer.class);
 		if (count > pageable.getOffset()) {
-			String pageableSql = dialect.getPageableSql(sql, pageable);
-			List<T> list = getNamedParameterJdbcTemplate().queryForList(pageableSql, EmptySqlParameterSource.INSTANCE,
-					elementType);
+			String pageableSql = getPageableSql(sql, pageable);
+			List<T> list = template.queryForList(pageableSql,
+					withPageParams(EmptySqlParameterSource.INSTANCE, pageable), elementType);
 			return new PageImpl<T>(list, pageable, count);
 		} else {
 			return new PageImpl<T>(Collections.<T> emptyList(), pageable, count);
 		}
 	}
 
+	public <T> Page<T> queryForList(NamedStatement<T> statement, SqlParameterSource paramSource, Pageable pageable) {
+		JdbcxNamedParameterJdbcTemplate template = getReadTemplate();
+		Integer count = DataAccessUtils.requiredSingleResult(
+				queryForList(template, statement.getCountStatement(dialect, uniqueKeys), paramSource));
+		if (count > pageable.getOffset()) {
+			List<T> list = queryForList(template, statement.getPageableStatement(dialect, pageable),
+					withPageParams(paramSource, pageable));
+			return new PageImpl<T>(list, pageable, count);
+		} else {
+			return new PageImpl<T>(Collections.<T> emptyList(), pageable, count);
+		}
+	}
+
+	public <T> Page<T> queryForList(NamedStatement<T> statement, Map<String, ?> paramMap, Pageable pageable) {
+		return queryForList(statement, toParamSource(paramMap), pageable);
+	}
+
+	public <T> Page<T> queryForList(NamedStatement<T> statement, Object beanParamSource, Pageable pageable) {
+		return queryForList(statement, new BeanPropertySqlParameterSource(beanParamSource), pageable);
+	}
+
+	public <T> Page<T> queryForList(NamedStatement<T> statement, Pageable pageable) {
+		return queryForList(statement, EmptySqlParameterSource.INSTANCE, pageable);
+	}
+
+	/**
+	 * 
+	 * query the first rows only, limited by the pageable form of the dialect (limit, fetch first, row_number ...), 
+	 * no count query is executed
+	 * 
+	 * @param statement
+	 * @param paramSource
+	 * @param limit
+	 * @return
+	 */
+	public <T> List<T> queryForFirst(NamedStatement<T> statement, SqlParameterSource paramSource, int limit) {
+		Pageable first = new PageRequest(0, limit);
+		return queryForList(statement.getPageableStatement(dialect, first), withPageParams(paramSource, first));
+	}
+
+	public <T> List<T> queryForFirst(NamedStatement<T> statement, Map<String, ?> paramMap, int limit) {
+		return queryForFirst(statement, toParamSource(paramMap), limit);
+	}
+
+	/**
+	 * row numbers of the page are bound by name, see {@link SelectSqlUtils#OFFSET_PARAM}
+	 * 
+	 * @param paramSource
+	 * @param pageable
+	 * @return
+	 */
+	protected SqlParameterSource withPageParams(SqlParameterSource paramSource, Pageable pageable) {
+		return new PageableSqlParameterSource(paramSource, pageable);
+	}
+
 }
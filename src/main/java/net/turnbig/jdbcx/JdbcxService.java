@@ -7,38 +7,65 @@
  */
 package net.turnbig.jdbcx;
 
+import java.beans.PropertyDescriptor;
 import java.io.Serializable;
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.sql.Statement;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-
-import javax.persistence.Column;
-import javax.persistence.Id;
-import javax.persistence.Table;
-import javax.persistence.Transient;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.Transformer;
-import org.apache.commons.lang3.reflect.FieldUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.dao.IncorrectUpdateSemanticsDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.util.ReflectionUtils;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.NumberUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 import com.google.common.base.CaseFormat;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import net.turnbig.jdbcx.cache.EntityCache;
+import net.turnbig.jdbcx.dataloader.EntityLoader;
+import net.turnbig.jdbcx.dataloader.LoaderScope;
+import net.turnbig.jdbcx.dialect.DialectCapability;
+import net.turnbig.jdbcx.meta.EntityMetadata;
+import net.turnbig.jdbcx.meta.Projection;
+import net.turnbig.jdbcx.meta.PropertyMetadata;
+import net.turnbig.jdbcx.pageable.SortableColumns;
+import net.turnbig.jdbcx.sql.NamedStatement;
 import net.turnbig.jdbcx.sql.loader.SqlLoader;
 
 /**
@@ -53,11 +80,46 @@ public class JdbcxService<Entity, PK extends Serializable> {
 
 	private static final Logger logger = LoggerFactory.getLogger(JdbcxService.class);
 
+	private static final int FIELDS_STATEMENT_CACHE_SIZE = 256;
+
+	private enum FieldsOperation {
+		FIND_ONE(false), FIND_LIST(true), FIND_PAGE(false), FIND_IN(false), COUNT(false), EXISTS(false), UPDATE(true);
+
+		// whether null value is rendered into SQL (is null / = null) instead of bound
+		final boolean rendersNull;
+
+		FieldsOperation(boolean rendersNull) {
+			this.rendersNull = rendersNull;
+		}
+	}
+
 	// Entity class
 	protected Class<Entity> entityClazz;
 	protected String tableName;
 	protected String idColumnName;
 	protected Field idField;
+	// id and unique columns, used to restrict client sorting
+	protected SortableColumns sortableColumns;
+	// table, id and column mappings shared with row mapping and parameter binding
+	protected EntityMetadata metadata;
+
+	// statements of findByFields/countByFields/updateFields, keyed by operation, projection, null fields and field names
+	private final Cache<List<Object>, NamedStatement<?>> fieldsStatements = CacheBuilder.newBuilder()
+			.maximumSize(FIELDS_STATEMENT_CACHE_SIZE).recordStats().build();
+
+	// update statements of changed columns, keyed by the change mask (indexes of metadata properties)
+	private final Cache<BitSet, NamedStatement<Integer>> updateStatements = CacheBuilder.newBuilder()
+			.maximumSize(FIELDS_STATEMENT_CACHE_SIZE).build();
+
+	// snapshot the column values of loaded entities, so update(entity) only writes the changed columns
+	private boolean dirtyTracking = false;
+	// weak keys, compared by identity and released with the entity
+	private final Cache<Entity, Object[]> snapshots = CacheBuilder.newBuilder().weakKeys().build();
+
+	// read-through cache of get/list, disabled if null
+	private EntityCache<PK> entityCache;
+	// increased by each eviction, a read is cached only if no eviction happened during the read
+	private final AtomicLong cacheGeneration = new AtomicLong();
 
 	@Autowired
 	protected JdbcxPagingDaoSupport DAO;
@@ -69,6 +131,7 @@ public class JdbcxService<Entity, PK extends Serializable> {
 	String getByIdSql;
 	String listByIdSql;
 	String deleteByIdSql;
+	NamedStatement<Integer> existsByIdStatement;
 	String insertSql;
 
 	@SuppressWarnings("unchecked")
@@ -97,34 +160,155 @@ public class JdbcxService<Entity, PK extends Serializable> {
 		getByIdSql = MessageFormat.format("select * from {0} where {1} = :id", tableName, idColumnName);
 		listByIdSql = MessageFormat.format("select * from {0} where {1} in (:id)", tableName, idColumnName);
 		deleteByIdSql = MessageFormat.format("delete from {0} where {1} = :id", tableName, idColumnName);
+		existsByIdStatement = NamedStatement.of(
+				MessageFormat.format("select 1 from {0} where {1} = :id", tableName, idColumnName), Integer.class);
 	}
 
+	/**
+	 * @param id
+	 * @return the entity, null if not exists
+	 */
 	public Entity get(PK id) {
-		try {
-			Map<String, PK> param = new HashMap<String, PK>();
-			param.put("id", id);
-			return DAO.queryForBean(getByIdSql, param, entityClazz);
-		} catch (Exception e) {
-			return null;
+		Object[] cached = entityCache == null ? null : entityCache.get(id);
+		if (cached != null) {
+			return track(toEntity(cached));
 		}
+		long generation = cacheGeneration.get();
+		Map<String, PK> param = new HashMap<String, PK>();
+		param.put("id", id);
+		List<Entity> result = queryForCache(getByIdSql, param);
+		return result.isEmpty() ? null : track(cache(result.get(0), generation));
 	}
 
+	/**
+	 * @param id
+	 * @return the entity, absent if not exists
+	 */
+	public Optional<Entity> findById(PK id) {
+		return Optional.fromNullable(get(id));
+	}
+
+	/**
+	 * check existence by <code>select 1 from table where id = :id</code> in the limited form of the dialect
+	 * 
+	 * @param id
+	 * @return
+	 */
+	public boolean existsById(PK id) {
+		if (entityCache != null && entityCache.get(id) != null) {
+			return true;
+		}
+		Map<String, PK> param = new HashMap<String, PK>();
+		param.put("id", id);
+		return !DAO.queryForFirst(existsByIdStatement, param, 1).isEmpty();
+	}
+
+	/**
+	 * check existence by <code>select 1 from table where ...</code> in the limited form of the dialect
+	 * 
+	 * @param fvs
+	 * @return
+	 */
+	public boolean existsByFields(FieldValue... fvs) {
+		NamedStatement<Integer> statement = getFieldsStatement(FieldsOperation.EXISTS, fvs, Integer.class);
+		return !DAO.queryForFirst(statement, toParamMap(fvs, true), 1).isEmpty();
+	}
+
+	/**
+	 * if entity cache is set, only the ids missing in cache are queried
+	 * 
+	 * @param list
+	 * @return entities in the order of the ids (duplicated ids once), absent ids are skipped
+	 */
 	public List<Entity> list(List<PK> list) {
-		try {
-			Map<String, Object> param = new HashMap<String, Object>();
-			param.put("id", list);
-			return DAO.queryForListBean(listByIdSql, param, entityClazz);
-		} catch (Exception e) {
-			return null;
+		// no query, an empty IN list is not valid SQL
+		if (list.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Map<Object, Entity> found = new HashMap<Object, Entity>();
+		List<PK> missing = list;
+		if (entityCache != null) {
+			Map<PK, Object[]> cached = entityCache.getAll(list);
+			missing = new ArrayList<PK>();
+			for (PK id : list) {
+				Object[] values = cached.get(id);
+				if (values != null) {
+					found.put(toJoinKey(id), toEntity(values));
+				} else {
+					missing.add(id);
+				}
+			}
+		}
+		if (!missing.isEmpty()) {
+			long generation = cacheGeneration.get();
+			for (Entity entity : queryByIds(missing)) {
+				found.put(toJoinKey(getId(entity)), cache(entity, generation));
+			}
+		}
+
+		List<Entity> result = new ArrayList<Entity>(found.size());
+		for (PK id : new LinkedHashSet<PK>(list)) {
+			Entity entity = found.get(toJoinKey(id));
+			if (entity != null) {
+				result.add(entity);
+			}
+		}
+		return trackAll(result);
+	}
+
+	private List<Entity> queryByIds(List<PK> ids) {
+		Map<String, Object> param = new HashMap<String, Object>();
+		param.put("id", ids);
+		return queryForCache(listByIdSql, param);
+	}
+
+	/**
+	 * entities to be cached are read from the primary, a lagging replica may return the values before an eviction
+	 */
+	private List<Entity> queryForCache(String sql, Map<String, ?> param) {
+		if (entityCache != null && DAO.getReplicaRouter() != null) {
+			return DAO.getNamedParameterJdbcTemplate().query(sql, param, DAO.getBeanPropsRowMapper(entityClazz));
 		}
+		return DAO.queryForListBean(sql, param, entityClazz);
+	}
+
+	/**
+	 * 
+	 * queue the id to the loader of current {@link LoaderScope}, queued ids are loaded by one query 
+	 * when the value of any of the futures is got.
+	 * 
+	 * @param id
+	 * @return future of the entity, null value if not exists
+	 */
+	public ListenableFuture<Entity> getAsync(PK id) {
+		return getLoader().loadAsync(id);
+	}
+
+	/**
+	 * get the entity by the loader of current {@link LoaderScope}, together with all queued ids, 
+	 * the same instance is returned for the same id within the scope.
+	 * 
+	 * @param id
+	 * @return
+	 */
+	public Entity load(PK id) {
+		return getLoader().load(id);
+	}
+
+	/**
+	 * @return loader of current {@link LoaderScope}, a new loader if no scope is opened
+	 */
+	public EntityLoader<Entity, PK> getLoader() {
+		LoaderScope scope = LoaderScope.current();
+		return scope != null ? scope.getLoader(this) : new EntityLoader<Entity, PK>(this);
 	}
 
 	public Page<Entity> getAll(Pageable p) {
-		return DAO.queryForListBean(getAllSql, entityClazz, p);
+		return trackAll(DAO.queryForListBean(getAllSql, entityClazz, p));
 	}
 
 	public List<Entity> getAll() {
-		return DAO.queryForListBean(getAllSql, entityClazz);
+		return trackAll(DAO.queryForListBean(getAllSql, entityClazz));
 	}
 
 	/**
@@ -135,93 +319,707 @@ public class JdbcxService<Entity, PK extends Serializable> {
 	 * @return
 	 */
 	public Entity findByFields(FieldValue... fvs) {
-		Map<String, Object> param = new HashMap<String, Object>();
-		StringBuffer sb = new StringBuffer("select * from ").append(tableName).append(" where 1=1 ");
-		for (FieldValue fv : fvs) {
-			String dbFieldName = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, fv.getFieldName());
-			sb.append(" and ").append(dbFieldName).append(" = :").append(fv.getFieldName());
-			param.put(fv.getFieldName(), fv.getFieldValue());
-		}
-		sb.append(" limit 1");
-		List<Entity> result = DAO.queryForListBean(sb.toString(), param, entityClazz);
+		NamedStatement<Entity> statement = getFieldsStatement(FieldsOperation.FIND_ONE, fvs, entityClazz);
+		List<Entity> result = DAO.queryForFirst(statement, toParamMap(fvs, true), 1);
 		if (CollectionUtils.isEmpty(result)) {
 			return null;
 		} else {
-			return result.get(0);
+			return track(result.get(0));
 		}
 	}
 
 	public List<Entity> findListByFields(FieldValue... fvs) {
-		Map<String, Object> param = new HashMap<String, Object>();
-		StringBuffer sb = new StringBuffer("select * from ").append(tableName).append(" where 1=1 ");
-		for (FieldValue fv : fvs) {
-			String dbFieldName = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, fv.getFieldName());
-			sb.append(" and ").append(dbFieldName);
-			if (fv.getFieldValue() == null) {
-				sb.append(" is null");
-			} else {
-				sb.append(" = :").append(fv.getFieldName());
-				param.put(fv.getFieldName(), fv.getFieldValue());
+		NamedStatement<Entity> statement = getFieldsStatement(FieldsOperation.FIND_LIST, fvs, entityClazz);
+		return trackAll(DAO.queryForList(statement, toParamMap(fvs, false)));
+	}
+
+	public Page<Entity> findListByFields(List<FieldValue> fvs, Pageable p) {
+		FieldValue[] values = fvs.toArray(new FieldValue[fvs.size()]);
+		NamedStatement<Entity> statement = getFieldsStatement(FieldsOperation.FIND_PAGE, values, entityClazz);
+		return trackAll(DAO.queryForList(statement, toParamMap(values, true), p));
+	}
+
+	/**
+	 * 
+	 * find the entities whose field value is in the values, values are queried by chunks of 
+	 * {@link EntityLoader#DEFAULT_MAX_BATCH_SIZE}
+	 * 
+	 * @param fieldName
+	 * @param values
+	 * @return
+	 */
+	public List<Entity> findListByFieldIn(String fieldName, Collection<?> values) {
+		FieldValue[] fvs = new FieldValue[] { FieldValue.of(fieldName, null) };
+		NamedStatement<Entity> statement = getFieldsStatement(FieldsOperation.FIND_IN, fvs, entityClazz);
+		return trackAll(queryByFieldIn(statement, fieldName, values));
+	}
+
+	private <T> List<T> queryByFieldIn(NamedStatement<T> statement, String fieldName, Collection<?> values) {
+		List<Object> distinct = new ArrayList<Object>(new LinkedHashSet<Object>(values));
+		List<T> result = new ArrayList<T>();
+		for (int from = 0; from < distinct.size(); from += EntityLoader.DEFAULT_MAX_BATCH_SIZE) {
+			Map<String, Object> param = new HashMap<String, Object>();
+			param.put(fieldName, distinct.subList(from, Math.min(from + EntityLoader.DEFAULT_MAX_BATCH_SIZE,
+					distinct.size())));
+			result.addAll(DAO.queryForList(statement, param));
+		}
+		return result;
+	}
+
+	// ============================ projections =====================//
+
+	/**
+	 * @param resultType DTO class or interface, properties are matched to the persisted properties by name
+	 * @return the cached projection, only the matched columns are selected
+	 */
+	public <P> Projection<P> projection(Class<P> resultType) {
+		return Projection.of(metadata, resultType);
+	}
+
+	/**
+	 * @param properties persisted properties
+	 * @return the cached projection, rows are mapped to entities with only these properties set
+	 */
+	public Projection<Entity> projection(String... properties) {
+		return Projection.of(metadata, properties);
+	}
+
+	/**
+	 * projected results are neither cached nor dirty tracked, 
+	 * entities of a column subset should be updated by {@link #updateFields(Serializable, FieldValue...)}
+	 * 
+	 * @param id
+	 * @param projection
+	 * @return the projected row, null if not exists
+	 */
+	public <P> P get(PK id, Projection<P> projection) {
+		FieldValue[] fvs = new FieldValue[] { FieldValue.of(metadata.getId().getName(), id) };
+		List<P> result = DAO.queryForList(getFieldsStatement(FieldsOperation.FIND_ONE, fvs, projection),
+				toParamMap(fvs, true));
+		return result.isEmpty() ? null : result.get(0);
+	}
+
+	public <P> P get(PK id, Class<P> resultType) {
+		return get(id, projection(resultType));
+	}
+
+	public <P> List<P> list(List<PK> ids, Projection<P> projection) {
+		return findListByFieldIn(projection, metadata.getId().getName(), ids);
+	}
+
+	public <P> List<P> getAll(Projection<P> projection) {
+		return findListByFields(projection);
+	}
+
+	public <P> List<P> getAll(Class<P> resultType) {
+		return getAll(projection(resultType));
+	}
+
+	public <P> Page<P> getAll(Projection<P> projection, Pageable p) {
+		return findListByFields(projection, Collections.<FieldValue> emptyList(), p);
+	}
+
+	public <P> P findByFields(Projection<P> projection, FieldValue... fvs) {
+		NamedStatement<P> statement = getFieldsStatement(FieldsOperation.FIND_ONE, fvs, projection);
+		List<P> result = DAO.queryForFirst(statement, toParamMap(fvs, true), 1);
+		return CollectionUtils.isEmpty(result) ? null : result.get(0);
+	}
+
+	public <P> List<P> findListByFields(Projection<P> projection, FieldValue... fvs) {
+		return DAO.queryForList(getFieldsStatement(FieldsOperation.FIND_LIST, fvs, projection), toParamMap(fvs, false));
+	}
+
+	public <P> List<P> findListByFields(Class<P> resultType, FieldValue... fvs) {
+		return findListByFields(projection(resultType), fvs);
+	}
+
+	public <P> Page<P> findListByFields(Projection<P> projection, List<FieldValue> fvs, Pageable p) {
+		FieldValue[] values = fvs.toArray(new FieldValue[fvs.size()]);
+		NamedStatement<P> statement = getFieldsStatement(FieldsOperation.FIND_PAGE, values, projection);
+		return DAO.queryForList(statement, toParamMap(values, true), p);
+	}
+
+	public <P> List<P> findListByFieldIn(Projection<P> projection, String fieldName, Collection<?> values) {
+		FieldValue[] fvs = new FieldValue[] { FieldValue.of(fieldName, null) };
+		return queryByFieldIn(getFieldsStatement(FieldsOperation.FIND_IN, fvs, projection), fieldName, values);
+	}
+
+	/**
+	 * 
+	 * load the children of the parents by one (chunked) IN query, and set them to the collection property of parents.
+	 * 
+	 * the collection property is the only one (normally @Transient) List/Set/Collection property of the child type.
+	 * 
+	 * <pre>
+	 * // select * from member_login where member_id in (:memberId)
+	 * memberService.loadChildren(members, memberLoginService, "memberId");
+	 * </pre>
+	 * 
+	 * @param parents
+	 * @param childService
+	 * @param foreignKeyField property of the child which references the id of the parent
+	 * @return children grouped by the parent id
+	 */
+	public <Child, CPK extends Serializable> Map<PK, List<Child>> loadChildren(List<Entity> parents,
+			JdbcxService<Child, CPK> childService, String foreignKeyField) {
+		return loadChildren(parents, childService, foreignKeyField, findCollectionProperty(childService.entityClazz));
+	}
+
+	/**
+	 * @see #loadChildren(List, JdbcxService, String)
+	 * @param collectionField property of the parent to set the children to, not set if null
+	 */
+	@SuppressWarnings("unchecked")
+	public <Child, CPK extends Serializable> Map<PK, List<Child>> loadChildren(List<Entity> parents,
+			JdbcxService<Child, CPK> childService, String foreignKeyField, String collectionField) {
+		PropertyMetadata foreignKey = childService.getMetadata().getProperty(foreignKeyField);
+		Assert.notNull(foreignKey, "foreign key field " + foreignKeyField + " is not found in " + childService.entityClazz);
+
+		Map<Object, PK> ids = new LinkedHashMap<Object, PK>(parents.size());
+		for (Entity parent : parents) {
+			PK id = getId(parent);
+			ids.put(toJoinKey(id), id);
+		}
+		Map<PK, List<Child>> grouped = new LinkedHashMap<PK, List<Child>>(ids.size());
+		for (PK id : ids.values()) {
+			grouped.put(id, new ArrayList<Child>());
+		}
+		if (!ids.isEmpty()) {
+			for (Child child : childService.findListByFieldIn(foreignKeyField, ids.values())) {
+				PK id = ids.get(toJoinKey(foreignKey.getValue(child)));
+				if (id != null) {
+					grouped.get(id).add(child);
+				}
 			}
 		}
-		return DAO.queryForListBean(sb.toString(), param, entityClazz);
+
+		if (collectionField != null) {
+			PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(entityClazz, collectionField);
+			Assert.isTrue(pd != null && pd.getWriteMethod() != null,
+					"collection property " + collectionField + " is not writable in " + entityClazz);
+			boolean isSet = Set.class.isAssignableFrom(pd.getPropertyType());
+			for (Entity parent : parents) {
+				List<Child> children = grouped.get(getId(parent));
+				Collection<Child> value = isSet ? new LinkedHashSet<Child>(children) : children;
+				ReflectionUtils.invokeMethod(pd.getWriteMethod(), parent, value);
+			}
+		}
+		return grouped;
 	}
 
-	public Page<Entity> findListByFields(List<FieldValue> fvs, Pageable p) {
-		Map<String, Object> param = new HashMap<String, Object>();
-		StringBuffer sb = new StringBuffer("select * from ").append(tableName).append(" where 1=1 ");
-		for (FieldValue fv : fvs) {
-			String dbFieldName = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, fv.getFieldName());
-			sb.append(" and ").append(dbFieldName).append(" = :").append(fv.getFieldName());
-			param.put(fv.getFieldName(), fv.getFieldValue());
+	/**
+	 * integral ids of different types (Integer id referenced by Long foreign key, or mapped as Long by the driver) 
+	 * are matched as Long
+	 * 
+	 * @param id
+	 * @return the id as hash key
+	 */
+	public static Object toJoinKey(Object id) {
+		if (id instanceof Integer || id instanceof Short || id instanceof Byte) {
+			return ((Number) id).longValue();
 		}
+		return id;
+	}
 
-		return DAO.queryForListBean(sb.toString(), param, entityClazz, p);
+	private String findCollectionProperty(Class<?> childClass) {
+		String found = null;
+		for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(entityClazz)) {
+			if (pd.getWriteMethod() == null || !Collection.class.isAssignableFrom(pd.getPropertyType())) {
+				continue;
+			}
+			Type type = pd.getWriteMethod().getGenericParameterTypes()[0];
+			if (type instanceof ParameterizedType
+					&& ((ParameterizedType) type).getActualTypeArguments()[0] == childClass) {
+				Assert.isNull(found, "more than one collection property of " + childClass + " in " + entityClazz);
+				found = pd.getName();
+			}
+		}
+		Assert.notNull(found, "no collection property of " + childClass + " is found in " + entityClazz);
+		return found;
 	}
 
 	public Integer countByFields(FieldValue... fvs) {
-		Map<String, Object> param = new HashMap<String, Object>();
-		StringBuffer sb = new StringBuffer("select count(*) from ").append(tableName).append(" where 1=1 ");
-		for (FieldValue fv : fvs) {
-			String dbFieldName = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, fv.getFieldName());
-			sb.append(" and ").append(dbFieldName).append(" = :").append(fv.getFieldName());
-			param.put(fv.getFieldName(), fv.getFieldValue());
-		}
-		return DAO.queryForObject(sb.toString(), param, Integer.class);
+		NamedStatement<Integer> statement = getFieldsStatement(FieldsOperation.COUNT, fvs, Integer.class);
+		return DAO.queryForObject(statement, toParamMap(fvs, true));
 	}
 
+	/**
+	 * 
+	 * update the fields of the entity by id.
+	 * 
+	 * if the entity has a @Version property, the current version should be given as a field value, 
+	 * the row is updated only if the version is not changed by others and the version is increased, 
+	 * else {@link OptimisticLockingFailureException} is thrown
+	 * 
+	 * @param id
+	 * @param fvs fields to update, and the current version for versioned entities
+	 * @return updated count
+	 */
 	public int updateFields(PK id, FieldValue... fvs) {
-		Map<String, Object> param = new HashMap<String, Object>();
+		PropertyMetadata version = metadata.getVersion();
+		if (version != null) {
+			FieldValue current = null;
+			for (FieldValue fv : fvs) {
+				if (isVersionField(fv.getFieldName())) {
+					current = fv;
+				}
+			}
+			Assert.isTrue(current != null && current.getFieldValue() != null,
+					"current version of the entity to update should be given as field [" + version.getName() + "]");
+		}
+		NamedStatement<Integer> statement = getFieldsStatement(FieldsOperation.UPDATE, fvs, Integer.class);
+		Map<String, Object> param = toParamMap(fvs, false);
 		param.put("id", id);
+		int count = DAO.update(statement, param);
+		evict(id);
+		if (version != null && count == 0) {
+			throw new OptimisticLockingFailureException(MessageFormat.format(
+					"[{0}] entity {1} is updated or deleted by others", entityClazz.getName(), id));
+		}
+		return count;
+	}
 
-		StringBuffer sb = new StringBuffer("update ").append(tableName).append(" set ");
-		boolean addComma = false;
-		for (FieldValue fv : fvs) {
-			sb.append(addComma ? "," : "");
-			String dbFieldName = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, fv.getFieldName());
-			sb.append(dbFieldName);
-			if (fv.getFieldValue() == null) {
-				sb.append(" = null");
+	private boolean isVersionField(String fieldName) {
+		PropertyMetadata version = metadata.getVersion();
+		return version != null && getColumnName(fieldName).equalsIgnoreCase(version.getColumnName());
+	}
+
+	/**
+	 * 
+	 * get the cached statement of the fields shape, SQL is generated and parsed only once for each shape
+	 * 
+	 * @param operation
+	 * @param fvs
+	 * @param resultType
+	 * @return
+	 */
+	private <T> NamedStatement<T> getFieldsStatement(FieldsOperation operation, FieldValue[] fvs,
+			Class<T> resultType) {
+		return getFieldsStatement(operation, fvs, resultType, null);
+	}
+
+	private <P> NamedStatement<P> getFieldsStatement(FieldsOperation operation, FieldValue[] fvs,
+			Projection<P> projection) {
+		Assert.notNull(projection, "projection should not be null");
+		Assert.isTrue(projection.getEntity() == metadata, projection + " is not a projection of " + entityClazz);
+		return getFieldsStatement(operation, fvs, projection.getResultType(), projection);
+	}
+
+	/**
+	 * @param projection selected columns and row mapper of select operations, null to select all columns
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> NamedStatement<T> getFieldsStatement(FieldsOperation operation, FieldValue[] fvs,
+			Class<T> resultType, Projection<T> projection) {
+		// key: operation, projection, null fields (only for operations which render null as SQL), field names
+		Object[] key = new Object[fvs.length + 3];
+		BitSet nulls = new BitSet(fvs.length);
+		for (int i = 0; i < fvs.length; i++) {
+			key[i + 3] = fvs[i].getFieldName();
+			if (operation.rendersNull && fvs[i].getFieldValue() == null) {
+				nulls.set(i);
+			}
+		}
+		key[0] = operation;
+		key[1] = projection;
+		key[2] = nulls;
+		List<Object> cacheKey = Arrays.asList(key);
+
+		NamedStatement<T> statement = (NamedStatement<T>) fieldsStatements.getIfPresent(cacheKey);
+		if (statement == null) {
+			String sql = generateFieldsSql(operation, fvs, nulls,
+					projection == null ? "*" : projection.getSelectList());
+			logger.debug("[{}] generated {} sql is `{}`", entityClazz, operation, sql);
+			statement = new NamedStatement<T>(sql, resultType, projection == null ? null : projection.getRowMapper());
+			fieldsStatements.put(cacheKey, statement);
+		}
+		return statement;
+	}
+
+	private String generateFieldsSql(FieldsOperation operation, FieldValue[] fvs, BitSet nulls, String selectList) {
+		StringBuilder sb = new StringBuilder();
+		if (operation == FieldsOperation.UPDATE) {
+			sb.append("update ").append(tableName).append(" set ");
+			// the version field is the current version, checked in where clause
+			String versionParam = null;
+			int set = 0;
+			for (int i = 0; i < fvs.length; i++) {
+				if (isVersionField(fvs[i].getFieldName())) {
+					versionParam = fvs[i].getFieldName();
+					continue;
+				}
+				sb.append(set++ > 0 ? ", " : "").append(getColumnName(fvs[i].getFieldName()));
+				if (nulls.get(i)) {
+					sb.append(" = null");
+				} else {
+					sb.append(" = :").append(fvs[i].getFieldName());
+				}
+			}
+			PropertyMetadata version = metadata.getVersion();
+			if (version != null) {
+				sb.append(set > 0 ? ", " : "").append(version.getColumnName()).append(" = ")
+						.append(version.getColumnName()).append(" + 1");
+			}
+			sb.append(" where ").append(idColumnName).append(" = :id");
+			if (version != null) {
+				sb.append(" and ").append(version.getColumnName()).append(" = :").append(versionParam);
+			}
+			return sb.toString();
+		}
+
+		if (operation == FieldsOperation.FIND_IN) {
+			return sb.append("select ").append(selectList).append(" from ").append(tableName).append(" where ")
+					.append(getColumnName(fvs[0].getFieldName())).append(" in (:").append(fvs[0].getFieldName())
+					.append(")").toString();
+		}
+
+		String select = operation == FieldsOperation.COUNT ? "select count(*) from "
+				: operation == FieldsOperation.EXISTS ? "select 1 from " : "select " + selectList + " from ";
+		sb.append(select).append(tableName).append(" where 1=1");
+		for (int i = 0; i < fvs.length; i++) {
+			sb.append(" and ").append(getColumnName(fvs[i].getFieldName()));
+			if (nulls.get(i)) {
+				sb.append(" is null");
 			} else {
-				sb.append(" = :").append(fv.getFieldName());
+				sb.append(" = :").append(fvs[i].getFieldName());
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param fieldName property of entity, or column name
+	 * @return the column name
+	 */
+	protected String getColumnName(String fieldName) {
+		PropertyMetadata property = metadata.getProperty(fieldName);
+		return property != null ? property.getColumnName() : upperCamelToUnderscore(fieldName);
+	}
+
+	private Map<String, Object> toParamMap(FieldValue[] fvs, boolean includeNull) {
+		Map<String, Object> param = new HashMap<String, Object>();
+		for (FieldValue fv : fvs) {
+			if (includeNull || fv.getFieldValue() != null) {
 				param.put(fv.getFieldName(), fv.getFieldValue());
 			}
-			addComma = true;
 		}
-		sb.append(" where ").append(this.idColumnName).append(" = :id");
-		return DAO.update(sb.toString(), param);
+		return param;
 	}
 
 	public Entity insert(Entity entity) {
-		KeyHolder insert = DAO.insert(this.insertSql, entity, idColumnName);
-		ReflectionUtils.setField(idField, entity, insert.getKey());
+		PropertyMetadata version = metadata.getVersion();
+		if (version != null && version.getValue(entity) == null) {
+			version.setValue(entity, toVersion(0));
+		}
+		KeyHolder insert = DAO.supports(DialectCapability.INSERT_RETURNING)
+				? DAO.insertReturning(this.insertSql, entity, idColumnName)
+				: DAO.insert(this.insertSql, entity, idColumnName);
+		metadata.getId().setValue(entity, insert.getKey());
+		evict(getId(entity));
+		return track(entity);
+	}
+
+	/**
+	 * 
+	 * update the entity by id.
+	 * 
+	 * <li>if dirty tracking is enabled and the entity is loaded (or inserted) by this service, 
+	 * 		only the changed columns are updated, nothing is executed if no column is changed</li>
+	 * <li>otherwise all columns are updated</li>
+	 * <li>if the entity has a @Version property, the row is updated only if the version is not changed by others 
+	 * 		and the version is increased, else {@link OptimisticLockingFailureException} is thrown</li>
+	 * 
+	 * @param entity
+	 * @return updated count, 0 if nothing is changed
+	 */
+	public int update(Entity entity) {
+		checkUpdatable(entity);
+		List<PropertyMetadata> properties = metadata.getProperties();
+		Object[] snapshot = dirtyTracking ? snapshots.getIfPresent(entity) : null;
+		Object[] values = takeSnapshot(entity);
+		BitSet changed = new BitSet(properties.size());
+		for (int i = 0; i < properties.size(); i++) {
+			PropertyMetadata property = properties.get(i);
+			if (!property.isId() && !property.isVersion()
+					&& (snapshot == null || !ObjectUtils.nullSafeEquals(snapshot[i], values[i]))) {
+				changed.set(i);
+			}
+		}
+		if (changed.isEmpty()) {
+			logger.debug("[{}] nothing changed, skip updating", entityClazz);
+			return 0;
+		}
+
+		int count = DAO.update(getUpdateStatement(changed), entity);
+		evict(getId(entity));
+		if (metadata.getVersion() != null) {
+			if (count == 0) {
+				throw new OptimisticLockingFailureException(MessageFormat.format(
+						"[{0}] entity {1} is updated or deleted by others", entityClazz.getName(),
+						metadata.getId().getValue(entity)));
+			}
+			increaseVersion(entity);
+		}
+		track(entity);
+		return count;
+	}
+
+	/**
+	 * 
+	 * update all columns of the entities by id, with one batch statement.
+	 * 
+	 * if the entity has a @Version property, versions of the updated entities are increased, 
+	 * {@link OptimisticLockingFailureException} is thrown if any entity is updated or deleted by others. 
+	 * If the driver reports {@link Statement#SUCCESS_NO_INFO}, the version check could not be verified, 
+	 * {@link IncorrectUpdateSemanticsDataAccessException} is thrown so the transaction could be rolled back.
+	 * 
+	 * @param entities
+	 * @return updated counts of the batch
+	 */
+	public int[] updateAll(List<Entity> entities) {
+		if (entities.isEmpty()) {
+			return new int[0];
+		}
+		List<PropertyMetadata> properties = metadata.getProperties();
+		BitSet all = new BitSet(properties.size());
+		for (int i = 0; i < properties.size(); i++) {
+			if (!properties.get(i).isId() && !properties.get(i).isVersion()) {
+				all.set(i);
+			}
+		}
+		for (Entity entity : entities) {
+			checkUpdatable(entity);
+		}
+
+		int[] counts = DAO.batchUpdate(getUpdateStatement(all), entities);
+		for (Entity entity : entities) {
+			evict(getId(entity));
+		}
+		List<Object> conflicts = new ArrayList<Object>();
+		List<Object> unverified = new ArrayList<Object>();
+		for (int i = 0; i < counts.length; i++) {
+			Entity entity = entities.get(i);
+			if (metadata.getVersion() != null) {
+				if (counts[i] == 0 || counts[i] == Statement.EXECUTE_FAILED) {
+					conflicts.add(metadata.getId().getValue(entity));
+					continue;
+				} else if (counts[i] == Statement.SUCCESS_NO_INFO) {
+					unverified.add(metadata.getId().getValue(entity));
+					continue;
+				}
+				increaseVersion(entity);
+			}
+			track(entity);
+		}
+		if (!conflicts.isEmpty()) {
+			throw new OptimisticLockingFailureException(MessageFormat.format(
+					"[{0}] entities {1} are updated or deleted by others", entityClazz.getName(), conflicts));
+		}
+		if (!unverified.isEmpty()) {
+			logger.warn("[{}] driver reports no update count for entities {}, versions are not verified", entityClazz,
+					unverified);
+			throw new IncorrectUpdateSemanticsDataAccessException(MessageFormat.format(
+					"[{0}] versions of entities {1} could not be verified, the driver reports no update count",
+					entityClazz.getName(), unverified));
+		}
+		return counts;
+	}
+
+	private void checkUpdatable(Entity entity) {
+		Assert.notNull(metadata.getId().getValue(entity), "id of the entity to update should not be null");
+		Assert.isTrue(metadata.getVersion() == null || metadata.getVersion().getValue(entity) != null,
+				"version of the entity to update should not be null");
+	}
+
+	private void increaseVersion(Entity entity) {
+		PropertyMetadata version = metadata.getVersion();
+		version.setValue(entity, toVersion(((Number) version.getValue(entity)).longValue() + 1));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object toVersion(long value) {
+		Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(metadata.getVersion().getType());
+		return NumberUtils.convertNumberToTargetClass(value, (Class<Number>) type);
+	}
+
+	private NamedStatement<Integer> getUpdateStatement(BitSet changed) {
+		NamedStatement<Integer> statement = updateStatements.getIfPresent(changed);
+		if (statement == null) {
+			List<PropertyMetadata> properties = metadata.getProperties();
+			StringBuilder sb = new StringBuilder("update ").append(tableName).append(" set ");
+			int first = changed.nextSetBit(0);
+			for (int i = first; i >= 0; i = changed.nextSetBit(i + 1)) {
+				sb.append(i > first ? ", " : "").append(properties.get(i).getColumnName())
+						.append(" = :").append(properties.get(i).getName());
+			}
+			PropertyMetadata version = metadata.getVersion();
+			if (version != null) {
+				sb.append(", ").append(version.getColumnName()).append(" = ").append(version.getColumnName())
+						.append(" + 1");
+			}
+			sb.append(" where ").append(idColumnName).append(" = :").append(metadata.getId().getName());
+			if (version != null) {
+				sb.append(" and ").append(version.getColumnName()).append(" = :").append(version.getName());
+			}
+			statement = new NamedStatement<Integer>(sb.toString(), Integer.class);
+			logger.debug("[{}] generated update sql is `{}`", entityClazz, statement.getSql());
+			updateStatements.put(changed, statement);
+		}
+		return statement;
+	}
+
+	/**
+	 * column values of the entity, mutable values are copied so in-place changes of the entity are not shared
+	 */
+	private Object[] takeSnapshot(Entity entity) {
+		List<PropertyMetadata> properties = metadata.getProperties();
+		Object[] values = new Object[properties.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = copyOf(properties.get(i).getValue(entity));
+		}
+		return values;
+	}
+
+	/**
+	 * @param value
+	 * @return a copy of dates, calendars, arrays, lists, sets and maps (elements are copied too), others as is
+	 */
+	@SuppressWarnings("unchecked")
+	private static Object copyOf(Object value) {
+		if (value instanceof Date) {
+			return ((Date) value).clone();
+		} else if (value instanceof Calendar) {
+			return ((Calendar) value).clone();
+		} else if (value instanceof Object[]) {
+			Object[] array = ((Object[]) value).clone();
+			for (int i = 0; i < array.length; i++) {
+				array[i] = copyOf(array[i]);
+			}
+			return array;
+		} else if (value != null && value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			Object array = Array.newInstance(value.getClass().getComponentType(), length);
+			System.arraycopy(value, 0, array, 0, length);
+			return array;
+		} else if (value instanceof List) {
+			List<Object> list = new ArrayList<Object>(((List<?>) value).size());
+			for (Object element : (List<?>) value) {
+				list.add(copyOf(element));
+			}
+			return list;
+		} else if (value instanceof Set) {
+			Set<Object> set = new LinkedHashSet<Object>();
+			for (Object element : (Set<?>) value) {
+				set.add(copyOf(element));
+			}
+			return set;
+		} else if (value instanceof Map) {
+			Map<Object, Object> map = new LinkedHashMap<Object, Object>();
+			for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) value).entrySet()) {
+				map.put(entry.getKey(), copyOf(entry.getValue()));
+			}
+			return map;
+		}
+		return value;
+	}
+
+	/**
+	 * put the column values of the entity into entity cache if the cache is set, 
+	 * unless an eviction happened since the read started, the values may be older than the eviction.
+	 * 
+	 * nothing is cached within a transaction, the values may be uncommitted, or rolled back later
+	 * 
+	 * @param entity
+	 * @param generation cache generation before the read
+	 * @return the entity
+	 */
+	private Entity cache(Entity entity, long generation) {
+		if (entityCache != null && entity != null && cacheGeneration.get() == generation
+				&& !TransactionSynchronizationManager.isSynchronizationActive()) {
+			PK id = getId(entity);
+			entityCache.put(id, takeSnapshot(entity));
+			// evicted while putting
+			if (cacheGeneration.get() != generation) {
+				entityCache.evict(id);
+			}
+		}
 		return entity;
 	}
 
+	/**
+	 * evict the entity from the caches, within a transaction it is evicted again after completion, 
+	 * so values read by others before the commit are not kept
+	 */
+	private void evict(final PK id) {
+		if (id == null) {
+			return;
+		}
+		final EntityCache<PK> cache = entityCache;
+		if (cache != null) {
+			cacheGeneration.incrementAndGet();
+			cache.evict(id);
+			if (TransactionSynchronizationManager.isSynchronizationActive()) {
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+					@Override
+					public void afterCompletion(int status) {
+						cacheGeneration.incrementAndGet();
+						cache.evict(id);
+					}
+				});
+			}
+		}
+		LoaderScope scope = LoaderScope.current();
+		if (scope != null) {
+			scope.evict(this, id);
+		}
+	}
+
+	private Entity toEntity(Object[] values) {
+		Entity entity = BeanUtils.instantiateClass(entityClazz);
+		List<PropertyMetadata> properties = metadata.getProperties();
+		for (int i = 0; i < values.length; i++) {
+			// cached values are shared, so the entity gets copies
+			properties.get(i).setValue(entity, copyOf(values[i]));
+		}
+		return entity;
+	}
+
+	@SuppressWarnings("unchecked")
+	private PK getId(Entity entity) {
+		return (PK) metadata.getId().getValue(entity);
+	}
+
+	/**
+	 * record the column values of the entity if dirty tracking is enabled
+	 * 
+	 * @param entity
+	 * @return the entity
+	 */
+	protected Entity track(Entity entity) {
+		if (dirtyTracking && entity != null) {
+			snapshots.put(entity, takeSnapshot(entity));
+		}
+		return entity;
+	}
+
+	/**
+	 * @see #track(Object)
+	 */
+	protected <E extends Iterable<Entity>> E trackAll(E entities) {
+		if (dirtyTracking && entities != null) {
+			for (Entity entity : entities) {
+				track(entity);
+			}
+		}
+		return entities;
+	}
+
 	public int delete(PK id) {
 		Map<String, PK> paramMap = new HashMap<String, PK>();
 		paramMap.put("id", id);
 		int count = DAO.update(deleteByIdSql, paramMap);
+		evict(id);
 		return count;
 	}
 
@@ -252,58 +1050,33 @@ public class JdbcxService<Entity, PK extends Serializable> {
 	}
 
 	private void guessTableMeta() throws NoSuchFieldException, SecurityException {
-		// get table name if entity is annotated by @Table
-		Table table = AnnotationUtils.findAnnotation(entityClazz, Table.class);
-		if (table != null) {
-			tableName = table.name();
-		}
-
-		// if no table name specified, detect from class name
-		if (StringUtils.isEmpty(tableName)) {
-			logger.info("[{}] not @Table annotation with name is fould", entityClazz);
-			String clazz = entityClazz.getName();
-			int lastIndexOf = clazz.lastIndexOf(".");
-			String className = clazz.substring(lastIndexOf + 1);
-			tableName = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, className);
-		}
-
-		// guess id column name
-		Field[] fields = FieldUtils.getAllFields(entityClazz);
-		List<String> fieldNames = new ArrayList<String>(fields.length);
-		for (Field field : fields) {
-			int modifiers = field.getModifiers();
-			if (field.isAnnotationPresent(Id.class) || field.getName().equals("id")) {
-				if (field.isAnnotationPresent(Column.class)) {
-					Column column = field.getAnnotation(Column.class);
-					if (column != null) {
-						idColumnName = column.name();
-					}
-				}
-				if (StringUtils.isEmpty(idColumnName)) {
-					idColumnName = upperCamelToUnderscore(field.getName());
-				}
-				idField = field;
-			} else if (!field.isAnnotationPresent(Transient.class) && !Modifier.isFinal(modifiers)
-					&& !Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
-				fieldNames.add(field.getName());
-			}
+		metadata = EntityMetadata.of(entityClazz);
+		tableName = metadata.getTableName();
+
+		PropertyMetadata id = metadata.getId();
+		if (id == null) {
+			throw new NoSuchFieldException("no @Id annotated or *id* named field is found in " + entityClazz);
 		}
+		idColumnName = id.getColumnName();
+		idField = id.getField();
 
-		if (StringUtils.isEmpty(idColumnName)) {
-			logger.info("[{}] not @Id annotation is fould, will use *id* as id column name", entityClazz);
-			idColumnName = "id";
-			idField = entityClazz.getDeclaredField(idColumnName);
+		List<String> fieldNames = new ArrayList<String>();
+		List<String> uniqueColumns = new ArrayList<String>();
+		for (PropertyMetadata property : metadata.getProperties()) {
+			if (!property.isId()) {
+				fieldNames.add(property.getName());
+				if (property.isUnique()) {
+					uniqueColumns.add(property.getColumnName());
+				}
+			}
 		}
 
-		idField.setAccessible(true);
+		sortableColumns = SortableColumns.of(idColumnName, uniqueColumns.toArray(new String[uniqueColumns.size()]));
 		logger.info("[{}] detected table meta: table-name `{}`, id-column-name `{}`", entityClazz, tableName,
 				idColumnName);
 
 		this.insertSql = generateInsertSql(fieldNames);
 		logger.debug("[{}] generated insert sql is `{}`", entityClazz, insertSql);
-
-		// TODO update sql ? i don't like this
-
 	}
 
 	/**
@@ -316,7 +1089,7 @@ public class JdbcxService<Entity, PK extends Serializable> {
 		CollectionUtils.transform(fieldNames, new Transformer<String, String>() {
 			@Override
 			public String transform(String input) {
-				return upperCamelToUnderscore(input);
+				return getColumnName(input);
 			}
 		});
 		String insertKeys = StringUtils.collectionToDelimitedString(fieldNames, ",");
@@ -331,16 +1104,73 @@ public class JdbcxService<Entity, PK extends Serializable> {
 		return CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, value);
 	}
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * @return table, id and column mappings of the entity
+	 */
+	public EntityMetadata getMetadata() {
+		return metadata;
+	}
+
+	/**
+	 * @return hit/miss counters of the cached findByFields/countByFields/updateFields statements
+	 */
+	public CacheStats getFieldsStatementStats() {
+		return fieldsStatements.stats();
+	}
+
+	/**
+	 * sortable columns detected from entity, the id column and @Column(unique = true) columns. 
+	 * 
+	 * @see net.turnbig.jdbcx.pageable.PaginationHelper#getPagination(Integer, String, SortableColumns)
+	 * @return
+	 */
+	public SortableColumns getSortableColumns() {
+		return sortableColumns;
+	}
+
+	/**
+	 * @param sortableColumns replace the detected sortable columns, 
+	 * 		e.g. {@link SortableColumns#fromIndexes(javax.sql.DataSource, String, String)}
+	 */
+	public void setSortableColumns(SortableColumns sortableColumns) {
+		this.sortableColumns = sortableColumns;
+	}
+
+	public EntityCache<PK> getEntityCache() {
+		return entityCache;
+	}
+
+	/**
+	 * 
+	 * cache the entities loaded by {@link #get(Serializable)} and {@link #list(List)}, 
+	 * cached entities are evicted when updated or deleted through this service.
+	 * 
+	 * changes made by others (SQL, other services or processes) are not detected, 
+	 * so use it for the data which is rarely changed, or set a short time to live. 
+	 * If reads are routed to replicas, the entities to be cached are read from the primary. 
+	 * Within a transaction nothing is cached, and the updated entities are evicted again after completion.
+	 * 
+	 * @param entityCache null to disable the cache
+	 */
+	public void setEntityCache(EntityCache<PK> entityCache) {
+		this.entityCache = entityCache;
+	}
+
+	public boolean isDirtyTracking() {
+		return dirtyTracking;
+	}
+
+	/**
+	 * @param dirtyTracking snapshot loaded entities, so {@link #update(Object)} only writes the changed columns
+	 */
+	public void setDirtyTracking(boolean dirtyTracking) {
+		this.dirtyTracking = dirtyTracking;
+	}
+
 	public HashMap<PK, Entity> mapped(List<Entity> list) {
-		HashMap<PK, Entity> mapped = new HashMap<PK, Entity>(list.size());
+		HashMap<PK, Entity> mapped = new HashMap<PK, Entity>((int) (list.size() / 0.75f) + 1);
 		for (Entity entity : list) {
-			try {
-				mapped.put((PK) idField.get(entity), entity);
-			} catch (Exception e) {
-				// ignore should not happen?
-				logger.warn("could not get id field value for entity {}", entity.getClass());
-			}
+			mapped.put(getId(entity), entity);
 		}
 		return mapped;
 	}
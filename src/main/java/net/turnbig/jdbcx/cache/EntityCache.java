@@ -0,0 +1,48 @@
+/**
+ * @(#)EntityCache.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 
+ * read-through cache backend of the entities of a JDBCX service, keyed by primary key.
+ * 
+ * The column values (in the order of {@link net.turnbig.jdbcx.meta.EntityMetadata#getProperties()}) are cached 
+ * instead of the entity, every lookup gets a new entity, so cached entries are never changed by callers.
+ * 
+ * {@link GuavaEntityCache} is the in-process implementation, other backends (redis, memcached ...) 
+ * could be plugged in by implementing this interface.
+ * 
+ * @see net.turnbig.jdbcx.JdbcxService#setEntityCache(EntityCache)
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public interface EntityCache<K> {
+
+	/**
+	 * @param id
+	 * @return cached column values, null if absent
+	 */
+	Object[] get(K id);
+
+	/**
+	 * @param ids
+	 * @return cached column values of the present ids
+	 */
+	Map<K, Object[]> getAll(Collection<K> ids);
+
+	void put(K id, Object[] values);
+
+	void evict(K id);
+
+	void clear();
+
+}
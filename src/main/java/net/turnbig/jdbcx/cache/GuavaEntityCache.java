@@ -0,0 +1,77 @@
+/**
+ * @(#)GuavaEntityCache.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * 
+ * in-process {@link EntityCache}, bounded by size and expired after written.
+ * 
+ * <pre>
+ * memberService.setEntityCache(new GuavaEntityCache&lt;Integer&gt;(10000, 10 * 60 * 1000));
+ * </pre>
+ * 
+ * hit/miss/eviction counters are recorded.
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class GuavaEntityCache<K> implements EntityCache<K> {
+
+	private final Cache<K, Object[]> cache;
+
+	/**
+	 * @param maximumSize max entities kept
+	 * @param expireAfterWriteMillis time to live of the entities, not positive means never expired
+	 */
+	public GuavaEntityCache(long maximumSize, long expireAfterWriteMillis) {
+		CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats();
+		if (expireAfterWriteMillis > 0) {
+			builder.expireAfterWrite(expireAfterWriteMillis, TimeUnit.MILLISECONDS);
+		}
+		this.cache = builder.build();
+	}
+
+	@Override
+	public Object[] get(K id) {
+		return cache.getIfPresent(id);
+	}
+
+	@Override
+	public Map<K, Object[]> getAll(Collection<K> ids) {
+		return cache.getAllPresent(ids);
+	}
+
+	@Override
+	public void put(K id, Object[] values) {
+		cache.put(id, values);
+	}
+
+	@Override
+	public void evict(K id) {
+		cache.invalidate(id);
+	}
+
+	@Override
+	public void clear() {
+		cache.invalidateAll();
+	}
+
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+}
@@ -0,0 +1,115 @@
+/**
+ * @(#)ParsedSqlCache.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * 
+ * bounded cache of parsed named-parameter SQL shared by all JDBCX DAO.
+ * 
+ * Spring's NamedParameterJdbcTemplate keeps a fixed 256 entries LRU cache which thrashes when there are thousands
+ * of dynamic SQL. The size could be tuned with:
+ * 
+ * <pre>
+ * spring.jdbcx.parsed-sql-cache.maximum-size = 4096
+ * </pre>
+ * 
+ * hit/miss/eviction counters are recorded so the hot path could be observed.
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+@Component
+@ConfigurationProperties(prefix = "spring.jdbcx.parsed-sql-cache")
+public class ParsedSqlCache {
+
+	public static final long DEFAULT_MAXIMUM_SIZE = 4096L;
+
+	long maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+	private volatile Cache<String, ParsedSql> cache;
+
+	private Cache<String, ParsedSql> getCache() {
+		if (cache == null) {
+			synchronized (this) {
+				if (cache == null) {
+					cache = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * get parsed SQL from cache, parse and cache it when absent
+	 * 
+	 * @param sql
+	 * @return
+	 */
+	public ParsedSql get(String sql) {
+		Cache<String, ParsedSql> cache = getCache();
+		ParsedSql parsedSql = cache.getIfPresent(sql);
+		if (parsedSql == null) {
+			parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+			cache.put(sql, parsedSql);
+		}
+		return parsedSql;
+	}
+
+	public void invalidateAll() {
+		getCache().invalidateAll();
+	}
+
+	public CacheStats getStats() {
+		return getCache().stats();
+	}
+
+	public long getHitCount() {
+		return getStats().hitCount();
+	}
+
+	public long getMissCount() {
+		return getStats().missCount();
+	}
+
+	public long getEvictionCount() {
+		return getStats().evictionCount();
+	}
+
+	public long getSize() {
+		return getCache().size();
+	}
+
+	public long getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * should be set before the cache is used
+	 * 
+	 * @param maximumSize
+	 */
+	public void setMaximumSize(long maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	@Override
+	public String toString() {
+		return "ParsedSqlCache [maximumSize=" + maximumSize + ", size=" + getSize() + ", " + getStats() + "]";
+	}
+
+}
@@ -0,0 +1,238 @@
+/**
+ * @(#)EntityLoader.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.dataloader;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.util.Assert;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import net.turnbig.jdbcx.JdbcxService;
+import net.turnbig.jdbcx.meta.PropertyMetadata;
+
+/**
+ * 
+ * Batch loader and identity map of the entities of a JDBCX service, kills the N+1 queries of loading in loops.
+ * 
+ * <li>{@link #loadAsync(Serializable)} only queues the id, queued ids are deduplicated and loaded by one 
+ * 		<code>where id in (:id)</code> query (chunked by {@link #setMaxBatchSize(int)}) when {@link #dispatch()} 
+ * 		is called, or the value of any queued future is got</li>
+ * <li>loaded entities (and not found ids) are memoized, the same id always gets the same instance</li>
+ * 
+ * <pre>
+ * try (LoaderScope scope = LoaderScope.open()) {
+ * 	for (Order order : orders) {
+ * 		futures.add(memberService.getAsync(order.getMemberId()));
+ * 	}
+ * 	// one query for all members
+ * 	scope.dispatchAll();
+ * }
+ * </pre>
+ * 
+ * Loaders are short lived (a request), normally got from {@link LoaderScope} or {@link JdbcxService#getLoader()}.
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class EntityLoader<Entity, PK extends Serializable> {
+
+	// Oracle IN-list limit
+	public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+	private final JdbcxService<Entity, PK> service;
+	private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+	// identity map, null value means the entity does not exist
+	private final Map<PK, Entity> loaded = new HashMap<PK, Entity>();
+	private final Map<PK, LoadFuture> pending = new LinkedHashMap<PK, LoadFuture>();
+
+	public EntityLoader(JdbcxService<Entity, PK> service) {
+		this.service = service;
+	}
+
+	/**
+	 * @param id
+	 * @return future of the entity (null if not exists), loaded when dispatched
+	 */
+	public synchronized ListenableFuture<Entity> loadAsync(PK id) {
+		Assert.notNull(id, "id should not be null");
+		if (loaded.containsKey(id)) {
+			return Futures.immediateFuture(loaded.get(id));
+		}
+		LoadFuture future = pending.get(id);
+		if (future == null) {
+			future = new LoadFuture();
+			pending.put(id, future);
+		}
+		return future;
+	}
+
+	/**
+	 * load the entity, together with all queued ids
+	 * 
+	 * @param id
+	 * @return the entity, null if not exists
+	 */
+	public Entity load(PK id) {
+		return getValue(loadAsync(id));
+	}
+
+	/**
+	 * load the entities, together with all queued ids
+	 * 
+	 * @param ids
+	 * @return the existing entities, in order of the ids
+	 */
+	public List<Entity> loadAll(Collection<PK> ids) {
+		List<ListenableFuture<Entity>> futures = new ArrayList<ListenableFuture<Entity>>(ids.size());
+		for (PK id : ids) {
+			futures.add(loadAsync(id));
+		}
+		dispatch();
+		List<Entity> entities = new ArrayList<Entity>(ids.size());
+		for (ListenableFuture<Entity> future : futures) {
+			Entity entity = getValue(future);
+			if (entity != null) {
+				entities.add(entity);
+			}
+		}
+		return entities;
+	}
+
+	/**
+	 * load all queued ids, futures of a failed query get the exception
+	 */
+	public void dispatch() {
+		Map<PK, LoadFuture> batch;
+		synchronized (this) {
+			if (pending.isEmpty()) {
+				return;
+			}
+			batch = new LinkedHashMap<PK, LoadFuture>(pending);
+			pending.clear();
+		}
+
+		PropertyMetadata idProperty = service.getMetadata().getId();
+		List<PK> ids = new ArrayList<PK>(batch.keySet());
+		for (int from = 0; from < ids.size(); from += maxBatchSize) {
+			List<PK> chunk = new ArrayList<PK>(ids.subList(from, Math.min(from + maxBatchSize, ids.size())));
+			try {
+				List<Entity> entities = service.list(chunk);
+				Map<Object, Entity> byId = new HashMap<Object, Entity>(entities.size());
+				for (Entity entity : entities) {
+					byId.put(JdbcxService.toJoinKey(idProperty.getValue(entity)), entity);
+				}
+				for (PK id : chunk) {
+					Entity entity = byId.get(JdbcxService.toJoinKey(id));
+					synchronized (this) {
+						loaded.put(id, entity);
+					}
+					batch.get(id).set(entity);
+				}
+			} catch (RuntimeException e) {
+				for (PK id : chunk) {
+					batch.get(id).setException(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * put a loaded entity into the identity map
+	 * 
+	 * @param id
+	 * @param entity
+	 */
+	public synchronized void prime(PK id, Entity entity) {
+		loaded.put(id, entity);
+	}
+
+	/**
+	 * remove the id from the identity map, it will be loaded again
+	 * 
+	 * @param id
+	 */
+	public synchronized void evict(PK id) {
+		loaded.remove(id);
+	}
+
+	public synchronized void clear() {
+		loaded.clear();
+	}
+
+	/**
+	 * @param maxBatchSize max ids in one query
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		Assert.isTrue(maxBatchSize > 0, "max batch size should be positive");
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	private static <T> T getValue(Future<T> future) {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new UncheckedExecutionException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while loading entities", e);
+		}
+	}
+
+	/**
+	 * dispatches the queued ids when the value is required
+	 */
+	private class LoadFuture extends AbstractFuture<Entity> {
+
+		@Override
+		public Entity get() throws InterruptedException, ExecutionException {
+			if (!isDone()) {
+				dispatch();
+			}
+			return super.get();
+		}
+
+		@Override
+		public Entity get(long timeout, TimeUnit unit)
+				throws InterruptedException, TimeoutException, ExecutionException {
+			if (!isDone()) {
+				dispatch();
+			}
+			return super.get(timeout, unit);
+		}
+
+		@Override
+		protected boolean set(Entity value) {
+			return super.set(value);
+		}
+
+		@Override
+		protected boolean setException(Throwable throwable) {
+			return super.setException(throwable);
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+/**
+ * @(#)LoaderScope.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.dataloader;
+
+import java.io.Closeable;
+import java.io.Serializable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import net.turnbig.jdbcx.JdbcxService;
+
+/**
+ * 
+ * A thread bound scope (a request, a job ...) which shares one {@link EntityLoader} for each JDBCX service, 
+ * so the entities are batch loaded and memoized across the whole scope.
+ * 
+ * <pre>
+ * try (LoaderScope scope = LoaderScope.open()) {
+ * 	// memberService.load / getAsync use the loader of the scope
+ * }
+ * </pre>
+ * 
+ * for web application, open the scope in a filter or an interceptor. 
+ * Scopes could be nested, the inner scope has its own loaders.
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class LoaderScope implements Closeable {
+
+	private static final ThreadLocal<LoaderScope> CURRENT = new ThreadLocal<LoaderScope>();
+
+	private final LoaderScope parent;
+	private final Map<JdbcxService<?, ?>, EntityLoader<?, ?>> loaders = new IdentityHashMap<JdbcxService<?, ?>, EntityLoader<?, ?>>();
+
+	private LoaderScope(LoaderScope parent) {
+		this.parent = parent;
+	}
+
+	/**
+	 * open a scope and bind it to current thread, should be closed by the same thread
+	 * 
+	 * @return
+	 */
+	public static LoaderScope open() {
+		LoaderScope scope = new LoaderScope(CURRENT.get());
+		CURRENT.set(scope);
+		return scope;
+	}
+
+	/**
+	 * @return scope of current thread, null if not opened
+	 */
+	public static LoaderScope current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * @param service
+	 * @return loader of the service in this scope
+	 */
+	@SuppressWarnings("unchecked")
+	public <Entity, PK extends Serializable> EntityLoader<Entity, PK> getLoader(JdbcxService<Entity, PK> service) {
+		EntityLoader<Entity, PK> loader = (EntityLoader<Entity, PK>) loaders.get(service);
+		if (loader == null) {
+			loader = new EntityLoader<Entity, PK>(service);
+			loaders.put(service, loader);
+		}
+		return loader;
+	}
+
+	/**
+	 * remove the entity from the identity map of the service's loader
+	 * 
+	 * @param service
+	 * @param id
+	 */
+	@SuppressWarnings("unchecked")
+	public <Entity, PK extends Serializable> void evict(JdbcxService<Entity, PK> service, PK id) {
+		EntityLoader<Entity, PK> loader = (EntityLoader<Entity, PK>) loaders.get(service);
+		if (loader != null) {
+			loader.evict(id);
+		}
+	}
+
+	/**
+	 * dispatch the queued ids of all loaders
+	 */
+	public void dispatchAll() {
+		for (EntityLoader<?, ?> loader : loaders.values()) {
+			loader.dispatch();
+		}
+	}
+
+	/**
+	 * release the loaders and restore the outer scope
+	 */
+	@Override
+	public void close() {
+		loaders.clear();
+		if (CURRENT.get() == this) {
+			if (parent == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(parent);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,29 @@
+/**
+ * @(#)CapableDialect.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.dialect;
+
+/**
+ * 
+ * dialect which declares the optional features of its database.
+ * 
+ * Kept out of {@link SQLDialect}, so dialects implemented before are still valid, they support no capability.
+ * Check with {@link DialectCapability#isSupportedBy(SQLDialect)} instead of the dialect class.
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public interface CapableDialect extends SQLDialect {
+
+	/**
+	 * @param capability
+	 * @return whether the database supports the capability
+	 */
+	boolean supports(DialectCapability capability);
+
+}
@@ -0,0 +1,406 @@
+/**
+ * @(#)CountSqlOptimizer.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.dialect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.expression.operators.relational.IsNullExpression;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.select.AllColumns;
+import net.sf.jsqlparser.statement.select.FromItem;
+import net.sf.jsqlparser.statement.select.Join;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectBody;
+import net.sf.jsqlparser.statement.select.SelectExpressionItem;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import net.sf.jsqlparser.statement.select.SetOperationList;
+import net.sf.jsqlparser.statement.select.SubJoin;
+import net.sf.jsqlparser.statement.select.SubSelect;
+import net.sf.jsqlparser.statement.select.WithItem;
+
+/**
+ * 
+ * <h3>Count SQL optimizer</h3>
+ * 
+ * Rewrites which never change the row count, but make the count query cheaper:
+ * 
+ * <li>order by of sub-queries without row limiting (limit, offset, fetch, top...) is removed</li>
+ * <li>left join which is to-one (joined on a declared unique column, see {@link UniqueKeys}) and never referenced
+ *  is removed</li>
+ * <li>select distinct col with "col is not null" condition is counted with count(distinct col)</li>
+ * <li>select list of group by without having is replaced with constant 1</li>
+ * 
+ * All rewrites are conservative, a rewrite is skipped when it could not be proved safe 
+ * (ex: unqualified column, sub-select in conditions).
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public abstract class CountSqlOptimizer {
+
+	/**
+	 * @param plain
+	 * @return true if the select has row limiting expression
+	 */
+	public static boolean hasRowLimit(PlainSelect plain) {
+		return plain.getLimit() != null || plain.getOffset() != null || plain.getFetch() != null
+				|| plain.getTop() != null || plain.getFirst() != null || plain.getSkip() != null;
+	}
+
+	public static boolean hasRowLimit(SetOperationList list) {
+		return list.getLimit() != null || list.getOffset() != null || list.getFetch() != null;
+	}
+
+	/**
+	 * remove order by of with-items, derived tables and union branches which have no row limiting
+	 * 
+	 * @param select
+	 */
+	public static void stripSubQueryOrderBy(Select select) {
+		if (select.getWithItemsList() != null) {
+			for (WithItem withItem : select.getWithItemsList()) {
+				stripOrderBy(withItem.getSelectBody());
+			}
+		}
+		SelectBody body = select.getSelectBody();
+		if (body instanceof PlainSelect) {
+			stripFromItemsOrderBy((PlainSelect) body);
+		} else if (body instanceof SetOperationList) {
+			for (SelectBody branch : ((SetOperationList) body).getSelects()) {
+				stripOrderBy(branch);
+			}
+		}
+	}
+
+	private static void stripOrderBy(SelectBody body) {
+		if (body instanceof PlainSelect) {
+			PlainSelect plain = (PlainSelect) body;
+			if (!hasRowLimit(plain)) {
+				plain.setOrderByElements(null);
+			}
+			stripFromItemsOrderBy(plain);
+		} else if (body instanceof SetOperationList) {
+			SetOperationList list = (SetOperationList) body;
+			if (!hasRowLimit(list)) {
+				list.setOrderByElements(null);
+			}
+			for (SelectBody branch : list.getSelects()) {
+				stripOrderBy(branch);
+			}
+		}
+	}
+
+	private static void stripFromItemsOrderBy(PlainSelect plain) {
+		stripOrderBy(plain.getFromItem());
+		if (plain.getJoins() != null) {
+			for (Join join : plain.getJoins()) {
+				stripOrderBy(join.getRightItem());
+			}
+		}
+	}
+
+	private static void stripOrderBy(FromItem fromItem) {
+		if (fromItem instanceof SubSelect) {
+			stripOrderBy(((SubSelect) fromItem).getSelectBody());
+		} else if (fromItem instanceof SubJoin) {
+			SubJoin subJoin = (SubJoin) fromItem;
+			stripOrderBy(subJoin.getLeft());
+			if (subJoin.getJoin() != null) {
+				stripOrderBy(subJoin.getJoin().getRightItem());
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * remove left joins which could not change the row count:
+	 * 
+	 * <li>the joined item is a table, and joined on one of its declared unique columns (to-one)</li>
+	 * <li>the joined table is never referenced by other parts of the select</li>
+	 * 
+	 * nothing is removed if no unique key is declared
+	 * 
+	 * @param plain
+	 * @param selectItemsKept	whether select items are kept in count SQL (distinct, group by)
+	 * @param uniqueKeys		declared unique columns of the joined tables
+	 * @return true if any join is removed
+	 */
+	public static boolean removeUnusedLeftJoins(PlainSelect plain, boolean selectItemsKept, UniqueKeys uniqueKeys) {
+		List<Join> joins = plain.getJoins();
+		if (uniqueKeys.isEmpty() || joins == null || joins.isEmpty() || plain.getOracleHierarchical() != null) {
+			return false;
+		}
+
+		boolean removed = false;
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int i = joins.size() - 1; i >= 0; i--) {
+				Join join = joins.get(i);
+				String tableName = getToOneJoinedTable(join, uniqueKeys);
+				if (tableName != null && !isReferenced(plain, join, tableName, selectItemsKept)) {
+					joins.remove(i);
+					removed = changed = true;
+				}
+			}
+		}
+		if (joins.isEmpty()) {
+			plain.setJoins(null);
+		}
+		return removed;
+	}
+
+	/**
+	 * @param join
+	 * @param uniqueKeys
+	 * @return name (or alias) of the joined table if it is a to-one left join, else null
+	 */
+	private static String getToOneJoinedTable(Join join, UniqueKeys uniqueKeys) {
+		if (!join.isLeft() || join.isNatural() || join.isRight() || join.isFull() || join.isCross()
+				|| join.isInner()) {
+			return null;
+		}
+		if (!(join.getRightItem() instanceof Table) || join.getOnExpression() == null
+				|| join.getUsingColumns() != null) {
+			return null;
+		}
+
+		Table table = (Table) join.getRightItem();
+		Alias alias = table.getAlias();
+		String tableName = alias != null ? alias.getName() : table.getName();
+
+		// other conditions only reduce the matched rows
+		for (Expression condition : conjuncts(join.getOnExpression())) {
+			if (condition instanceof EqualsTo) {
+				EqualsTo equalsTo = (EqualsTo) condition;
+				if (isUniqueKeyOf(equalsTo.getLeftExpression(), table, tableName, uniqueKeys)
+						&& isIndependentOf(equalsTo.getRightExpression(), tableName)) {
+					return tableName;
+				}
+				if (isUniqueKeyOf(equalsTo.getRightExpression(), table, tableName, uniqueKeys)
+						&& isIndependentOf(equalsTo.getLeftExpression(), tableName)) {
+					return tableName;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static boolean isUniqueKeyOf(Expression expression, Table table, String tableName, UniqueKeys uniqueKeys) {
+		if (!(expression instanceof Column)) {
+			return false;
+		}
+		Column column = (Column) expression;
+		String qualifier = getQualifier(column);
+		return qualifier != null && qualifier.equalsIgnoreCase(tableName)
+				&& uniqueKeys.isUnique(table.getName(), column.getColumnName());
+	}
+
+	private static boolean isIndependentOf(Expression expression, String tableName) {
+		References references = new References(tableName);
+		expression.accept(references);
+		return !references.referenced && !references.unknown;
+	}
+
+	private static boolean isReferenced(PlainSelect plain, Join excluded, String tableName,
+			boolean selectItemsKept) {
+		References references = new References(tableName);
+		StringBuilder text = new StringBuilder();
+
+		if (selectItemsKept) {
+			for (SelectItem item : plain.getSelectItems()) {
+				if (item instanceof AllColumns) {
+					return true;
+				} else if (item instanceof SelectExpressionItem) {
+					((SelectExpressionItem) item).getExpression().accept(references);
+				}
+				text.append(item).append(' ');
+			}
+		}
+		if (plain.getWhere() != null) {
+			plain.getWhere().accept(references);
+			text.append(plain.getWhere()).append(' ');
+		}
+		if (plain.getHaving() != null) {
+			plain.getHaving().accept(references);
+			text.append(plain.getHaving()).append(' ');
+		}
+		if (plain.getGroupByColumnReferences() != null) {
+			for (Expression expression : plain.getGroupByColumnReferences()) {
+				expression.accept(references);
+				text.append(expression).append(' ');
+			}
+		}
+		if (plain.getOrderByElements() != null) {
+			text.append(PlainSelect.orderByToString(plain.getOrderByElements()));
+		}
+		text.append(plain.getFromItem()).append(' ');
+		for (Join join : plain.getJoins()) {
+			if (join == excluded) {
+				continue;
+			}
+			if (join.getOnExpression() != null) {
+				join.getOnExpression().accept(references);
+			}
+			text.append(join).append(' ');
+		}
+
+		if (references.referenced || references.unknown) {
+			return true;
+		}
+		// double check with text, in case some expressions are not visited
+		Pattern qualified = Pattern.compile("(?i)(^|[^\\w.])" + Pattern.quote(tableName) + "\\s*\\.");
+		return qualified.matcher(text).find();
+	}
+
+	/**
+	 * 
+	 * select distinct col from ... where col is not null ... =&gt; select count(distinct col) from ...
+	 * 
+	 * <li>only single column is supported, multiple columns count(distinct a, b) is not standard</li>
+	 * <li>count(distinct) ignores null, so "col is not null" must be required by the where condition</li>
+	 * 
+	 * @param plain
+	 * @return true if rewritten
+	 */
+	public static boolean toCountDistinct(PlainSelect plain) {
+		if (plain.getDistinct() == null || plain.getDistinct().getOnSelectItems() != null
+				|| plain.getGroupByColumnReferences() != null || hasRowLimit(plain)) {
+			return false;
+		}
+		List<SelectItem> items = plain.getSelectItems();
+		if (items.size() != 1 || !(items.get(0) instanceof SelectExpressionItem)) {
+			return false;
+		}
+		Expression expression = ((SelectExpressionItem) items.get(0)).getExpression();
+		if (!(expression instanceof Column) || plain.getWhere() == null) {
+			return false;
+		}
+
+		for (Expression condition : conjuncts(plain.getWhere())) {
+			if (condition instanceof IsNullExpression) {
+				IsNullExpression isNull = (IsNullExpression) condition;
+				if (isNull.isNot() && isNull.getLeftExpression().toString().equalsIgnoreCase(expression.toString())) {
+					Function count = new Function();
+					count.setName("count");
+					count.setDistinct(true);
+					count.setParameters(new ExpressionList(Arrays.asList(expression)));
+					List<SelectItem> countItems = new ArrayList<SelectItem>();
+					countItems.add(new SelectExpressionItem(count));
+					plain.setDistinct(null);
+					plain.setSelectItems(countItems);
+					plain.setOrderByElements(null);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 
+	 * replace the select list of a group by select with constant 1, 
+	 * skipped when the select has having, distinct, or group by references select aliases (or positions)
+	 * 
+	 * @param plain
+	 * @return true if rewritten
+	 */
+	public static boolean minimizeGroupByItems(PlainSelect plain) {
+		List<Expression> groupBy = plain.getGroupByColumnReferences();
+		if (groupBy == null || plain.getHaving() != null || plain.getDistinct() != null) {
+			return false;
+		}
+
+		Set<String> aliases = new HashSet<String>();
+		for (SelectItem item : plain.getSelectItems()) {
+			if (item instanceof SelectExpressionItem && ((SelectExpressionItem) item).getAlias() != null) {
+				aliases.add(((SelectExpressionItem) item).getAlias().getName().toLowerCase());
+			}
+		}
+		for (Expression expression : groupBy) {
+			if (expression instanceof LongValue) {
+				return false;
+			}
+			if (expression instanceof Column && getQualifier((Column) expression) == null
+					&& aliases.contains(((Column) expression).getColumnName().toLowerCase())) {
+				return false;
+			}
+		}
+
+		List<SelectItem> items = new ArrayList<SelectItem>();
+		items.add(new SelectExpressionItem(new LongValue(1)));
+		plain.setSelectItems(items);
+		return true;
+	}
+
+	private static List<Expression> conjuncts(Expression expression) {
+		List<Expression> result = new ArrayList<Expression>();
+		if (expression instanceof AndExpression) {
+			AndExpression and = (AndExpression) expression;
+			result.addAll(conjuncts(and.getLeftExpression()));
+			result.addAll(conjuncts(and.getRightExpression()));
+		} else {
+			result.add(expression);
+		}
+		return result;
+	}
+
+	private static String getQualifier(Column column) {
+		Table table = column.getTable();
+		if (table == null || table.getName() == null || table.getName().isEmpty()) {
+			return null;
+		}
+		return table.getName();
+	}
+
+	/**
+	 * collect whether a table is referenced, unqualified columns and sub-selects are treated as unknown
+	 */
+	private static class References extends ExpressionVisitorAdapter {
+
+		private final String tableName;
+		private boolean referenced;
+		private boolean unknown;
+
+		References(String tableName) {
+			this.tableName = tableName;
+		}
+
+		@Override
+		public void visit(Column column) {
+			String qualifier = getQualifier(column);
+			if (qualifier == null) {
+				unknown = true;
+			} else if (qualifier.equalsIgnoreCase(tableName)) {
+				referenced = true;
+			}
+		}
+
+		@Override
+		public void visit(SubSelect subSelect) {
+			unknown = true;
+		}
+	}
+
+}
@@ -24,6 +24,7 @@ import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
 
 import net.turnbig.jdbcx.dialect.exception.NotImplementDialectException;
 import net.turnbig.jdbcx.dialect.impl.Db2Dialect;
@@ -32,8 +33,11 @@ import net.turnbig.jdbcx.dialect.impl.HsqldbDialect;
 import net.turnbig.jdbcx.dialect.impl.InformixDialect;
 import net.turnbig.jdbcx.dialect.impl.MariaDialect;
 import net.turnbig.jdbcx.dialect.impl.MysqlDialect;
+import net.turnbig.jdbcx.dialect.impl.Oracle12cDialect;
 import net.turnbig.jdbcx.dialect.impl.OracleDialect;
 import net.turnbig.jdbcx.dialect.impl.PostgreDialect;
+import net.turnbig.jdbcx.dialect.impl.SqlServer2012Dialect;
+import net.turnbig.jdbcx.dialect.impl.SqlServerDialect;
 import net.turnbig.jdbcx.dialect.impl.SqliteDialect;
 
 public enum Databases {
@@ -49,10 +53,13 @@ public enum Databases {
     postgresql("PostgreSQL",PostgreDialect.class), 
     h2("H2",H2Dialect.class), 
 	oracle("Oracle", OracleDialect.class), 
+	// Oracle 12c and later
+	oracle12c("Oracle", Oracle12cDialect.class), 
     db2("DB2", Db2Dialect.class), 
     informix("informix", InformixDialect.class), 
-    //sqlserver, 
-    //sqlserver2012;
+    sqlserver("Microsoft SQL Server", SqlServerDialect.class), 
+    // SQL Server 2012 (version 11) and later
+    sqlserver2012("Microsoft SQL Server", SqlServer2012Dialect.class), 
     ;
 	//@on
 
@@ -60,21 +67,21 @@ public enum Databases {
 
 	Class<? extends SQLDialect> dialect;
 	String dbName;
+	// dialects are stateless, one instance is shared
+	private final SQLDialect instance;
 	static List<String> names = new ArrayList<String>();
 
 	Databases(String dbName, Class<? extends SQLDialect> dialect) {
 		this.dbName = dbName;
 		this.dialect = dialect;
+		this.instance = BeanUtils.instantiateClass(dialect);
 	}
 
+	/**
+	 * @return the shared dialect instance
+	 */
 	public SQLDialect getDialect() {
-		try {
-			return this.dialect.newInstance();
-		} catch (Exception e) {
-			// should not happen
-			logger.error("failed to create dialect instance", e);
-		}
-		return null;
+		return instance;
 	}
 
 	public static Databases of(String name) {
@@ -103,16 +110,36 @@ public enum Databases {
 				databaseMajorVersion, databaseMinorVersion);
 		logger.info(format);
 
+		// MariaDB drivers may report the product as MySQL, the version is like "5.5.5-10.1.26-MariaDB"
+		String productVersion = metaData.getDatabaseProductVersion();
+		if (productVersion != null && productVersion.contains("MariaDB")) {
+			return Databases.mariadb;
+		}
+
+		return fromProduct(dbName, databaseMajorVersion, databaseMinorVersion);
+	}
+
+	/**
+	 * choose database by product name and version
+	 * 
+	 * <li>Oracle 12c+ and SQL Server 2012+ support "offset x rows fetch next x rows only"</li>
+	 * 
+	 * @param dbName
+	 * @param majorVersion
+	 * @param minorVersion
+	 * @return
+	 */
+	public static Databases fromProduct(String dbName, int majorVersion, int minorVersion) {
 		if (dbName == null) {
 			throw new NotImplementDialectException("Unable to determine database. Database Product name is null.");
 		}
 
 		if (dbName.startsWith("Microsoft SQL Server")) {
-			// TODO different version
-			throw new IllegalArgumentException("Microsoft SQL Server is not support for now.");
+			return majorVersion >= 11 ? Databases.sqlserver2012 : Databases.sqlserver;
 		} else if (dbName.startsWith("Oracle")) {
-			// Oracle 12 supports row fetch, TODO
-			return Databases.oracle;
+			return majorVersion >= 12 ? Databases.oracle12c : Databases.oracle;
+		} else if (dbName.startsWith("MariaDB")) {
+			return Databases.mariadb;
 		} else if (dbName.contains("Mysql")) {
 			return Databases.mysql;
 		} else {
@@ -0,0 +1,42 @@
+/**
+ * @(#)DialectCapability.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.dialect;
+
+/**
+ * 
+ * optional SQL features of a database, see {@link CapableDialect}
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public enum DialectCapability {
+
+	/** row_number() over (...) and other window functions */
+	WINDOW_FUNCTIONS,
+
+	/** row value comparison, "(created_on, id) &gt; (:createdOn, :id)", used by keyset paging */
+	ROW_VALUE_COMPARISON,
+
+	/** "insert ... returning id" */
+	INSERT_RETURNING,
+
+	/** native upsert: "on conflict", "on duplicate key update" or "merge" */
+	UPSERT,
+
+	;
+
+	/**
+	 * @param dialect
+	 * @return whether the dialect is a {@link CapableDialect} which supports this capability
+	 */
+	public boolean isSupportedBy(SQLDialect dialect) {
+		return dialect instanceof CapableDialect && ((CapableDialect) dialect).supports(this);
+	}
+
+}
@@ -0,0 +1,36 @@
+/**
+ * @(#)DialectProvider.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.dialect;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+/**
+ * 
+ * SPI to plug in dialects of databases not supported by {@link Databases}, or to replace a built-in one.
+ * 
+ * Providers are discovered from:
+ * <li>spring beans of this type, used by the DAO beans of the same context</li>
+ * <li>{@link java.util.ServiceLoader}, META-INF/services/net.turnbig.jdbcx.dialect.DialectProvider</li>
+ * <li>{@link DialectRegistry#register(DialectProvider)}</li>
+ * 
+ * @see MatchingDialectProvider
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public interface DialectProvider {
+
+	/**
+	 * @param metaData meta-data of the connected database
+	 * @return the dialect, or null if the database is not supported by this provider
+	 * @throws SQLException
+	 */
+	SQLDialect getDialect(DatabaseMetaData metaData) throws SQLException;
+
+}
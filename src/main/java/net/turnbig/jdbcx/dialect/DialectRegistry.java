@@ -0,0 +1,119 @@
+/**
+ * @(#)DialectRegistry.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.dialect;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 
+ * Choose dialect of a database, the first non-null result wins:
+ * 
+ * <li>providers given by the caller, e.g. spring beans of the context of {@link net.turnbig.jdbcx.JdbcxDaoSupport}</li>
+ * <li>providers registered by {@link #register(DialectProvider)}, latest registered first</li>
+ * <li>providers discovered by {@link ServiceLoader}</li>
+ * <li>built-in {@link Databases}</li>
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public abstract class DialectRegistry {
+
+	private static final Logger logger = LoggerFactory.getLogger(DialectRegistry.class);
+
+	private static final CopyOnWriteArrayList<DialectProvider> registered = new CopyOnWriteArrayList<DialectProvider>();
+
+	private static volatile List<DialectProvider> discovered;
+
+	/**
+	 * @param provider
+	 * @return false if the provider has been registered already
+	 */
+	public static boolean register(DialectProvider provider) {
+		if (registered.contains(provider)) {
+			return false;
+		}
+		registered.add(0, provider);
+		logger.info("[jdbcx] dialect provider registered : {}", provider);
+		return true;
+	}
+
+	public static boolean unregister(DialectProvider provider) {
+		return registered.remove(provider);
+	}
+
+	/**
+	 * @param metaData
+	 * @return dialect of the database
+	 * @throws SQLException
+	 * @throws net.turnbig.jdbcx.dialect.exception.NotImplementDialectException if no dialect matches
+	 */
+	public static SQLDialect getDialect(DatabaseMetaData metaData) throws SQLException {
+		return getDialect(metaData, Collections.<DialectProvider> emptyList());
+	}
+
+	/**
+	 * @param metaData
+	 * @param providers	providers checked before the registered ones, in order
+	 * @return dialect of the database
+	 * @throws SQLException
+	 * @throws net.turnbig.jdbcx.dialect.exception.NotImplementDialectException if no dialect matches
+	 */
+	public static SQLDialect getDialect(DatabaseMetaData metaData, List<DialectProvider> providers)
+			throws SQLException {
+		SQLDialect dialect = getProvidedDialect(metaData, providers);
+		return dialect != null ? dialect : Databases.fromMetaData(metaData).getDialect();
+	}
+
+	/**
+	 * @param metaData
+	 * @param providers	providers checked before the registered ones, in order
+	 * @return dialect of the first provider supports the database, null if none (built-in {@link Databases} are not checked)
+	 * @throws SQLException
+	 */
+	public static SQLDialect getProvidedDialect(DatabaseMetaData metaData, List<DialectProvider> providers)
+			throws SQLException {
+		for (List<DialectProvider> list : Arrays.asList(providers, registered, getDiscovered())) {
+			for (DialectProvider provider : list) {
+				SQLDialect dialect = provider.getDialect(metaData);
+				if (dialect != null) {
+					return dialect;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static List<DialectProvider> getDiscovered() {
+		if (discovered == null) {
+			synchronized (DialectRegistry.class) {
+				if (discovered == null) {
+					List<DialectProvider> providers = new ArrayList<DialectProvider>();
+					for (DialectProvider provider : ServiceLoader.load(DialectProvider.class,
+							DialectRegistry.class.getClassLoader())) {
+						logger.info("[jdbcx] dialect provider discovered : {}", provider);
+						providers.add(provider);
+					}
+					discovered = Collections.unmodifiableList(providers);
+				}
+			}
+		}
+		return discovered;
+	}
+
+}
@@ -0,0 +1,157 @@
+/**
+ * @(#)DialectResolver.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.dialect;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.support.DatabaseMetaDataCallback;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import net.turnbig.jdbcx.dialect.exception.NotImplementDialectException;
+
+/**
+ * 
+ * Resolve database (and version) of a data-source.
+ * 
+ * <li>the connection is borrowed through {@link JdbcUtils#extractDatabaseMetaData} and returned immediately</li>
+ * <li>the result is cached for each data-source, so all DAO beans share a single detection</li>
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public abstract class DialectResolver {
+
+	// weak keys, data-source is compared by identity and not pinned by the cache
+	private static final Cache<DataSource, DatabaseInfo> resolved = CacheBuilder.newBuilder().weakKeys().build();
+
+	/**
+	 * @param dataSource
+	 * @return the database information of the data-source
+	 * @throws MetaDataAccessException when connection or meta-data is not available
+	 */
+	public static DatabaseInfo resolve(DataSource dataSource) throws MetaDataAccessException {
+		return resolve(dataSource, Collections.<DialectProvider> emptyList());
+	}
+
+	/**
+	 * @param dataSource
+	 * @param providers	providers of the caller (e.g. spring beans of its context), checked before the registered ones, 
+	 * 					only used when the data-source is resolved the first time
+	 * @return the database information of the data-source
+	 * @throws MetaDataAccessException when connection or meta-data is not available
+	 */
+	public static DatabaseInfo resolve(DataSource dataSource, final List<DialectProvider> providers)
+			throws MetaDataAccessException {
+		DatabaseInfo info = resolved.getIfPresent(dataSource);
+		if (info == null) {
+			info = (DatabaseInfo) JdbcUtils.extractDatabaseMetaData(dataSource, new DatabaseMetaDataCallback() {
+				@Override
+				public Object processMetaData(DatabaseMetaData metaData) throws SQLException, MetaDataAccessException {
+					SQLDialect dialect = DialectRegistry.getProvidedDialect(metaData, providers);
+					Databases database = null;
+					try {
+						database = Databases.fromMetaData(metaData);
+					} catch (NotImplementDialectException e) {
+						if (dialect == null) {
+							throw e;
+						}
+						// database is supported by a dialect provider only
+					}
+					return new DatabaseInfo(database, dialect != null ? dialect : database.getDialect(),
+							metaData.getDatabaseProductName(), metaData.getDatabaseMajorVersion(),
+							metaData.getDatabaseMinorVersion());
+				}
+			});
+			resolved.put(dataSource, info);
+		}
+		return info;
+	}
+
+	/**
+	 * @param dataSource
+	 * @return the (singleton) dialect of the data-source, see {@link DialectRegistry}
+	 * @throws MetaDataAccessException
+	 */
+	public static SQLDialect getDialect(DataSource dataSource) throws MetaDataAccessException {
+		return resolve(dataSource).getDialect();
+	}
+
+	/**
+	 * @param dataSource
+	 * @param providers	providers of the caller, see {@link #resolve(DataSource, List)}
+	 * @return the (singleton) dialect of the data-source, see {@link DialectRegistry}
+	 * @throws MetaDataAccessException
+	 */
+	public static SQLDialect getDialect(DataSource dataSource, List<DialectProvider> providers)
+			throws MetaDataAccessException {
+		return resolve(dataSource, providers).getDialect();
+	}
+
+	/**
+	 * 
+	 * detected database and version
+	 * 
+	 */
+	public static final class DatabaseInfo {
+
+		private final Databases database;
+		private final SQLDialect dialect;
+		private final String productName;
+		private final int majorVersion;
+		private final int minorVersion;
+
+		public DatabaseInfo(Databases database, SQLDialect dialect, String productName, int majorVersion,
+				int minorVersion) {
+			this.database = database;
+			this.dialect = dialect;
+			this.productName = productName;
+			this.majorVersion = majorVersion;
+			this.minorVersion = minorVersion;
+		}
+
+		/**
+		 * @return built-in database, null if the database is supported by a dialect provider only
+		 */
+		public Databases getDatabase() {
+			return database;
+		}
+
+		public SQLDialect getDialect() {
+			return dialect;
+		}
+
+		public String getProductName() {
+			return productName;
+		}
+
+		public int getMajorVersion() {
+			return majorVersion;
+		}
+
+		public int getMinorVersion() {
+			return minorVersion;
+		}
+
+		@Override
+		public String toString() {
+			return "DatabaseInfo [database=" + database + ", dialect=" + dialect.getClass().getName() + ", productName=" + productName + ", version="
+					+ majorVersion + "." + minorVersion + "]";
+		}
+	}
+
+}
@@ -0,0 +1,86 @@
+/**
+ * @(#)MatchingDialectProvider.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.dialect;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.regex.Pattern;
+
+import org.springframework.util.Assert;
+
+/**
+ * 
+ * Provide a dialect when the database product matches.
+ * 
+ * <pre>
+ * // TiDB reports itself as MySQL, product version like "5.7.25-TiDB-v5.0.1"
+ * new MatchingDialectProvider("MySQL", ".*TiDB.*", 0, new TiDBDialect());
+ * // CockroachDB reports itself as PostgreSQL
+ * new MatchingDialectProvider("PostgreSQL", ".*CockroachDB.*", 0, new CockroachDialect());
+ * </pre>
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class MatchingDialectProvider implements DialectProvider {
+
+	private final String productName;
+	private final Pattern productVersion;
+	private final int minMajorVersion;
+	private final SQLDialect dialect;
+
+	/**
+	 * @param productName		prefix of the product name (case insensitive)
+	 * @param productVersion	regex the product version string should match, null matches any
+	 * @param minMajorVersion	min major version of the database
+	 * @param dialect
+	 */
+	public MatchingDialectProvider(String productName, String productVersion, int minMajorVersion,
+			SQLDialect dialect) {
+		Assert.hasText(productName, "product name must not be empty");
+		Assert.notNull(dialect, "dialect must not be null");
+		this.productName = productName.toLowerCase();
+		this.productVersion = productVersion == null ? null : Pattern.compile(productVersion, Pattern.DOTALL);
+		this.minMajorVersion = minMajorVersion;
+		this.dialect = dialect;
+	}
+
+	public MatchingDialectProvider(String productName, SQLDialect dialect) {
+		this(productName, null, 0, dialect);
+	}
+
+	@Override
+	public SQLDialect getDialect(DatabaseMetaData metaData) throws SQLException {
+		return matches(metaData.getDatabaseProductName(), metaData.getDatabaseProductVersion(),
+				metaData.getDatabaseMajorVersion()) ? dialect : null;
+	}
+
+	/**
+	 * @param name		product name
+	 * @param version	product version string
+	 * @param major		major version
+	 * @return
+	 */
+	public boolean matches(String name, String version, int major) {
+		if (name == null || !name.toLowerCase().startsWith(productName)) {
+			return false;
+		}
+		if (productVersion != null && (version == null || !productVersion.matcher(version).matches())) {
+			return false;
+		}
+		return major >= minMajorVersion;
+	}
+
+	@Override
+	public String toString() {
+		return "MatchingDialectProvider [productName=" + productName + ", productVersion=" + productVersion
+				+ ", minMajorVersion=" + minMajorVersion + ", dialect=" + dialect.getClass().getName() + "]";
+	}
+
+}
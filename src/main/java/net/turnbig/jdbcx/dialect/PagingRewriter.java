@@ -0,0 +1,36 @@
+/**
+ * @(#)PagingRewriter.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.dialect;
+
+import net.sf.jsqlparser.statement.select.Select;
+
+/**
+ * 
+ * Rewrite a (sorted) select statement to its paged form, the rewritten SQL is cached by 
+ * {@link SelectSqlUtils#getPagedSql(String, org.springframework.data.domain.Sort, PagingRewriter)} 
+ * and shared by all pages, so the row numbers must be written as named parameters 
+ * (see {@link SelectSqlUtils#pageParameter(String)}):
+ * 
+ * <li>{@link SelectSqlUtils#OFFSET_PARAM} - rows to skip</li>
+ * <li>{@link SelectSqlUtils#PAGE_SIZE_PARAM} - rows to return</li>
+ * <li>{@link SelectSqlUtils#END_ROW_PARAM} - offset + page size</li>
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public interface PagingRewriter {
+
+	/**
+	 * rewrite the select statement in place
+	 * 
+	 * @param select	parsed select statement, sort of the pageable has been added
+	 */
+	void rewrite(Select select);
+
+}
@@ -0,0 +1,39 @@
+/**
+ * @(#)ParsingSqlRewriter.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.dialect;
+
+import org.springframework.data.domain.Sort;
+
+import net.sf.jsqlparser.statement.select.Select;
+
+/**
+ * 
+ * Rewrite SQL with the parsed AST, supports all SQL which could be parsed. 
+ * 
+ * SQL which could take long to parse is rejected, see {@link SelectSqlUtils#parseSelectSql(String)}.
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class ParsingSqlRewriter implements SqlRewriter {
+
+	@Override
+	public String getCountSql(String sql) {
+		return SelectSqlUtils.getCountSql(SelectSqlUtils.parseSelectSql(sql));
+	}
+
+	@Override
+	public String getPageableSql(String sql, Sort sort, PagingRewriter pagingRewriter) {
+		Select select = SelectSqlUtils.parseSelectSql(sql);
+		SelectSqlUtils.addSort(select, sort);
+		pagingRewriter.rewrite(select);
+		return select.toString();
+	}
+
+}
@@ -8,8 +8,10 @@
 package net.turnbig.jdbcx.dialect;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,12 +21,18 @@ import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.domain.Sort.Order;
 import org.springframework.util.Assert;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import net.sf.jsqlparser.JSQLParserException;
 import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.expression.JdbcNamedParameter;
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
 import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.Fetch;
 import net.sf.jsqlparser.statement.select.Limit;
+import net.sf.jsqlparser.statement.select.Offset;
 import net.sf.jsqlparser.statement.select.OrderByElement;
 import net.sf.jsqlparser.statement.select.PlainSelect;
 import net.sf.jsqlparser.statement.select.Select;
@@ -84,6 +92,54 @@ public class SelectSqlUtils {
 
 	private static final Logger logger = LoggerFactory.getLogger(SelectSqlUtils.class);
 
+	/**
+	 * named parameters of row numbers, paged SQL binds them instead of rendering numbers into SQL, 
+	 * see {@link net.turnbig.jdbcx.params.PageableSqlParameterSource}
+	 */
+	public static final String OFFSET_PARAM = "jdbcxPageOffset";
+	public static final String PAGE_SIZE_PARAM = "jdbcxPageSize";
+	public static final String END_ROW_PARAM = "jdbcxPageEndRow";
+
+	// max paged SQL kept, keyed by rewriter, SQL and sort
+	private static final int PAGED_SQL_CACHE_SIZE = 1024;
+
+	private static final Cache<List<Object>, String> PAGED_SQL_CACHE = CacheBuilder.newBuilder()
+			.maximumSize(PAGED_SQL_CACHE_SIZE).build();
+
+	// column or table.column, sort properties are rendered into SQL directly
+	private static final Pattern SORT_PROPERTY = Pattern.compile("[A-Za-z_][\\w$]*(\\.[A-Za-z_][\\w$]*)?");
+
+	// keyed by SQL and unique keys
+	private static final Cache<List<Object>, String> COUNT_SQL_CACHE = CacheBuilder.newBuilder()
+			.maximumSize(PAGED_SQL_CACHE_SIZE).build();
+
+	// fast path first, then full parsing
+	private static final SqlRewriter[] REWRITERS = { new SimpleSqlRewriter(), new ParsingSqlRewriter() };
+
+	// jsqlparser could not be interrupted, so SQL which could take long to parse is rejected before parsing
+	private static volatile int maxParseLength = 65536;
+	private static volatile int maxParseDepth = 32;
+
+	/**
+	 * limit x offset x
+	 */
+	public static final PagingRewriter LIMIT_OFFSET = new PagingRewriter() {
+		@Override
+		public void rewrite(Select select) {
+			setLimit(select, new PageLimit());
+		}
+	};
+
+	/**
+	 * offset x rows fetch next x rows only
+	 */
+	public static final PagingRewriter OFFSET_FETCH = new OffsetFetchRewriter(false);
+
+	/**
+	 * offset x rows fetch next x rows only, "order by (select null)" is added when no order by expression
+	 */
+	public static final PagingRewriter ORDERED_OFFSET_FETCH = new OffsetFetchRewriter(true);
+
 	private static final List<SelectItem> COUNT_ITEM;
 	private static final Alias TABLE_ALIAS;
 
@@ -101,12 +157,78 @@ public class SelectSqlUtils {
 	 * @see SelectSqlUtils#getPageableSqlWithLimitOffset(Select, Pageable)
 	 * @param sql
 	 * @param pageable
-	 * @return
+	 * @return SQL with the row numbers of the page as literals
+	 * @deprecated use {@link #getPagedSqlWithLimitOffset(String, Sort)} and bind the row numbers
 	 */
+	@Deprecated
 	public static String getPageableSqlWithLimitOffset(String sql, Pageable pageable) {
-		Select select = parseSelectSql(sql);
-		getPageableSqlWithLimitOffset(select, pageable);
-		return select.toString();
+		return bindRowNumbers(getPagedSqlWithLimitOffset(sql, pageable.getSort()), pageable);
+	}
+
+	/**
+	 * @see #getPagedSql(String, Sort, PagingRewriter)
+	 * @param sql
+	 * @param sort
+	 * @return SQL with limit :jdbcxPageSize offset :jdbcxPageOffset
+	 */
+	public static String getPagedSqlWithLimitOffset(String sql, Sort sort) {
+		return getPagedSql(sql, sort, LIMIT_OFFSET);
+	}
+
+	/**
+	 * get pageable SQL with the rewriter
+	 * 
+	 * @param sql
+	 * @param pageable
+	 * @param rewriter
+	 * @return SQL with the row numbers of the page as literals
+	 * @deprecated use {@link #getPagedSql(String, Sort, PagingRewriter)} and bind the row numbers
+	 */
+	@Deprecated
+	public static String getPageableSql(String sql, Pageable pageable, PagingRewriter rewriter) {
+		return bindRowNumbers(getPagedSql(sql, pageable.getSort(), rewriter), pageable);
+	}
+
+	/**
+	 * 
+	 * get paged SQL with the rewriter.
+	 * 
+	 * <li>SQL is parsed, sorted and rewritten only once for each (rewriter, SQL, sort)</li>
+	 * <li>row numbers are named parameters ({@link #OFFSET_PARAM}, {@link #PAGE_SIZE_PARAM}, {@link #END_ROW_PARAM}),
+	 * 		so all pages share one statement, they are bound by {@link net.turnbig.jdbcx.params.PageableSqlParameterSource}</li>
+	 * 
+	 * @param sql
+	 * @param sort sort appended, nullable
+	 * @param rewriter
+	 * @return
+	 */
+	public static String getPagedSql(String sql, Sort sort, PagingRewriter rewriter) {
+		List<Object> key = Arrays.<Object> asList(rewriter, sql, sort);
+		String pagedSql = PAGED_SQL_CACHE.getIfPresent(key);
+		if (pagedSql == null) {
+			for (SqlRewriter sqlRewriter : REWRITERS) {
+				pagedSql = sqlRewriter.getPageableSql(sql, sort, rewriter);
+				if (pagedSql != null) {
+					break;
+				}
+			}
+			PAGED_SQL_CACHE.put(key, pagedSql);
+		}
+		return pagedSql;
+	}
+
+	/**
+	 * replace the row number parameters of a paged SQL with the literal row numbers of the page
+	 * 
+	 * @param pagedSql SQL returned by {@link #getPagedSql(String, Sort, PagingRewriter)}
+	 * @param pageable
+	 * @return
+	 */
+	public static String bindRowNumbers(String pagedSql, Pageable pageable) {
+		long offset = pageable.getOffset();
+		return pagedSql.replace(":" + OFFSET_PARAM, String.valueOf(offset))
+				.replace(":" + PAGE_SIZE_PARAM, String.valueOf(pageable.getPageSize()))
+				.replace(":" + END_ROW_PARAM, String.valueOf(offset + pageable.getPageSize()));
 	}
 
 	/**
@@ -131,19 +253,164 @@ public class SelectSqlUtils {
 			limit.setRowCount(pageable.getPageSize());
 			limit.setOffset(pageable.getOffset());
 			((SetOperationList) sb).setLimit(limit);
-		} else if (sb instanceof WithItem) {
-			// should not happen ?
-			logger.error(
-					"select body could not be a with-item, please report the issue to https://github.com/IamFive/spring-data-jdbcx");
-			throw new GeneratePagingSqlException(select.toString(), "SQL body could not be a with-item");
 		}
 	}
 
 	/**
+	 * get pageable SQL which support SQL:2008 offset x rows fetch next x rows only
+	 * 
+	 * @see SelectSqlUtils#getPageableSqlWithOffsetFetch(Select, Pageable, boolean)
+	 * @param sql
+	 * @param pageable
+	 * @param orderByRequired
+	 * @return SQL with the row numbers of the page as literals
+	 * @deprecated use {@link #getPagedSqlWithOffsetFetch(String, Sort, boolean)} and bind the row numbers
+	 */
+	@Deprecated
+	public static String getPageableSqlWithOffsetFetch(String sql, Pageable pageable, boolean orderByRequired) {
+		return bindRowNumbers(getPagedSqlWithOffsetFetch(sql, pageable.getSort(), orderByRequired), pageable);
+	}
+
+	/**
+	 * @see #getPagedSql(String, Sort, PagingRewriter)
+	 * @param sql
+	 * @param sort
+	 * @param orderByRequired
+	 * @return SQL with offset :jdbcxPageOffset rows fetch next :jdbcxPageSize rows only
+	 */
+	public static String getPagedSqlWithOffsetFetch(String sql, Sort sort, boolean orderByRequired) {
+		return getPagedSql(sql, sort, orderByRequired ? ORDERED_OFFSET_FETCH : OFFSET_FETCH);
+	}
+
+	/**
+	 * 
+	 * get pageable SQL which support SQL:2008 offset x rows fetch next x rows only (Oracle 12c+, SQL Server 2012+)
+	 * 
+	 * <li>Pageable's page starts from *zero*</li>
+	 * <li>when order by is required (SQL Server) but absent, "order by (select null)" is added</li>
+	 * 
+	 * @param select
+	 * @param pageable
+	 * @param orderByRequired
+	 */
+	public static void getPageableSqlWithOffsetFetch(Select select, Pageable pageable, boolean orderByRequired) {
+		SelectSqlUtils.addSort(select, pageable.getSort()); // add sort expression
+		Offset offset = new Offset();
+		offset.setOffset(pageable.getOffset());
+		offset.setOffsetParam("ROWS");
+		Fetch fetch = new Fetch();
+		fetch.setRowCount(pageable.getPageSize());
+		fetch.setFetchParam("ROWS");
+		setOffsetFetch(select, offset, fetch, orderByRequired);
+	}
+
+	private static void setOffsetFetch(Select select, Offset offset, Fetch fetch, boolean orderByRequired) {
+		SelectBody sb = select.getSelectBody();
+		if (sb instanceof PlainSelect) {
+			PlainSelect plain = (PlainSelect) sb;
+			if (orderByRequired && isEmpty(plain.getOrderByElements())) {
+				plain.setOrderByElements(buildOrderByNothing());
+			}
+			plain.setOffset(offset);
+			plain.setFetch(fetch);
+		} else if (sb instanceof SetOperationList) {
+			SetOperationList list = (SetOperationList) sb;
+			if (orderByRequired && isEmpty(list.getOrderByElements())) {
+				list.setOrderByElements(buildOrderByNothing());
+			}
+			list.setOffset(offset);
+			list.setFetch(fetch);
+		}
+	}
+
+	/**
+	 * @param name one of {@link #OFFSET_PARAM}, {@link #PAGE_SIZE_PARAM}, {@link #END_ROW_PARAM}
+	 * @return named parameter expression of the row number
+	 */
+	public static JdbcNamedParameter pageParameter(String name) {
+		JdbcNamedParameter parameter = new JdbcNamedParameter();
+		parameter.setName(name);
+		return parameter;
+	}
+
+	/**
+	 * @param select
+	 * @return order by elements of the final select body, null if not sorted
+	 */
+	public static List<OrderByElement> getOrderByElements(Select select) {
+		SelectBody sb = select.getSelectBody();
+		if (sb instanceof PlainSelect) {
+			return ((PlainSelect) sb).getOrderByElements();
+		} else if (sb instanceof SetOperationList) {
+			return ((SetOperationList) sb).getOrderByElements();
+		}
+		return null;
+	}
+
+	private static void setLimit(Select select, Limit limit) {
+		SelectBody sb = select.getSelectBody();
+		if (sb instanceof PlainSelect) {
+			((PlainSelect) sb).setLimit(limit);
+		} else if (sb instanceof SetOperationList) {
+			((SetOperationList) sb).setLimit(limit);
+		}
+	}
+
+	/**
+	 * 
+	 * wrap the select body as a sub-select of a new plain select, 
+	 * with-items are moved to the new outer select.
+	 * 
+	 * <pre>
+	 * with x as (...) select ... 
+	 * =&gt;
+	 * with x as (...) select [items] from (select ...) [alias]
+	 * </pre>
+	 * 
+	 * @param select
+	 * @param alias
+	 * @param items
+	 * @return the new outer plain select
+	 */
+	public static PlainSelect wrapSelect(Select select, String alias, List<SelectItem> items) {
+		SubSelect subSelect = new SubSelect();
+		subSelect.setSelectBody(select.getSelectBody());
+		if (alias != null) {
+			Alias subAlias = new Alias(alias);
+			subAlias.setUseAs(false);
+			subSelect.setAlias(subAlias);
+		}
+		PlainSelect wrapper = new PlainSelect();
+		wrapper.setSelectItems(items);
+		wrapper.setFromItem(subSelect);
+		select.setSelectBody(wrapper);
+		return wrapper;
+	}
+
+	private static boolean isEmpty(List<?> list) {
+		return list == null || list.isEmpty();
+	}
+
+	/**
+	 * @return order by (select null), keeps the natural order
+	 */
+	private static List<OrderByElement> buildOrderByNothing() {
+		List<OrderByElement> elements = new ArrayList<OrderByElement>();
+		OrderByElement e = new OrderByElement();
+		e.setExpression(new Column("(select null)"));
+		elements.add(e);
+		return elements;
+	}
+
+	/**
+	 * parse select SQL, SQL longer than {@link #setMaxParseLength(int)} or nested deeper than
+	 * {@link #setMaxParseDepth(int)} is rejected without parsing
+	 * 
 	 * @param sql
 	 * @return
 	 */
-	public static Select parseSelectSql(String sql) {
+	public static Select parseSelectSql(final String sql) {
+		checkParseLimits(sql);
 		Statement smt = null;
 		try {
 			smt = CCJSqlParserUtil.parse(sql);
@@ -156,6 +423,65 @@ public class SelectSqlUtils {
 		}
 	}
 
+	/**
+	 * parsing time grows with the length and (much faster) with the parentheses nesting of SQL, 
+	 * both are checked in one pass, quoted literals and identifiers are skipped
+	 * 
+	 * @param sql
+	 */
+	private static void checkParseLimits(String sql) {
+		int maxLength = maxParseLength;
+		if (maxLength > 0 && sql.length() > maxLength) {
+			throw new GeneratePagingSqlException(sql,
+					"SQL is too long to be parsed: " + sql.length() + " > " + maxLength + " characters");
+		}
+		int maxDepth = maxParseDepth;
+		if (maxDepth <= 0) {
+			return;
+		}
+		int depth = 0;
+		char quote = 0;
+		for (int i = 0; i < sql.length(); i++) {
+			char c = sql.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '\'' || c == '"' || c == '`') {
+				quote = c;
+			} else if (c == '(') {
+				if (++depth > maxDepth) {
+					throw new GeneratePagingSqlException(sql,
+							"SQL is nested too deep to be parsed: more than " + maxDepth + " levels of parentheses");
+				}
+			} else if (c == ')') {
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * @param maxParseLength max characters of SQL to be parsed, not positive means no limit
+	 */
+	public static void setMaxParseLength(int maxParseLength) {
+		SelectSqlUtils.maxParseLength = maxParseLength;
+	}
+
+	public static int getMaxParseLength() {
+		return maxParseLength;
+	}
+
+	/**
+	 * @param maxParseDepth max parentheses nesting of SQL to be parsed, not positive means no limit
+	 */
+	public static void setMaxParseDepth(int maxParseDepth) {
+		SelectSqlUtils.maxParseDepth = maxParseDepth;
+	}
+
+	public static int getMaxParseDepth() {
+		return maxParseDepth;
+	}
+
 	/***
 	 * <h3>add sort to the SQL</h3> if the SQL has got an order expression, will append new "Sort" to the tail
 	 * 
@@ -194,11 +520,6 @@ public class SelectSqlUtils {
 					elements = elements == null ? new ArrayList<OrderByElement>() : elements;
 					elements.addAll(buildOrderByElements(iterator));
 					((SetOperationList) sb).setOrderByElements(elements);
-				} else if (sb instanceof WithItem) {
-					// should not happen ?
-					logger.error(
-							"select body could not be a with-item, please report the issue to https://github.com/IamFive/spring-data-jdbcx");
-					throw new GeneratePagingSqlException("SQL body could not be a with-item");
 				}
 			}
 		}
@@ -229,6 +550,17 @@ public class SelectSqlUtils {
 		return sql;
 	}
 
+	/**
+	 * @param sort
+	 * @return " ORDER BY ..." of the sort, or empty string if nothing to sort
+	 */
+	public static String getOrderByString(Sort sort) {
+		if (sort == null || !sort.iterator().hasNext()) {
+			return "";
+		}
+		return PlainSelect.orderByToString(buildOrderByElements(sort.iterator()));
+	}
+
 	/**
 	 * @param iterator
 	 * @param elements
@@ -238,6 +570,8 @@ public class SelectSqlUtils {
 		List<OrderByElement> list = new ArrayList<OrderByElement>();
 		while (iterator.hasNext()) {
 			Order order = iterator.next();
+			Assert.isTrue(SORT_PROPERTY.matcher(order.getProperty()).matches(),
+					"sort property should be a column name: " + order.getProperty());
 			OrderByElement e = new OrderByElement();
 			e.setExpression(new Column(order.getProperty()));
 			e.setAsc(Direction.ASC.equals(order.getDirection()));
@@ -251,23 +585,83 @@ public class SelectSqlUtils {
 	 * <h3>generate count SQL</h3>
 	 * <li>if SQL is a plain sql with out aggregate functions, will replace select columns with count(*)</li>
 	 * <li>else will use a temp table to count</li>
+	 * <li>unnecessary order by and select columns are removed, see {@link CountSqlOptimizer}</li>
 	 * 
 	 * @param sql
 	 * @return
 	 */
 	public static String getCountSql(String sql) {
-		Select select = parseSelectSql(sql);
+		return getCountSql(sql, UniqueKeys.NONE);
+	}
+
+	/**
+	 * generate count SQL, left joins on the declared unique keys which are never referenced are removed
+	 * 
+	 * @see #getCountSql(String)
+	 * @param sql
+	 * @param uniqueKeys
+	 * @return
+	 */
+	public static String getCountSql(String sql, UniqueKeys uniqueKeys) {
+		List<Object> key = Arrays.<Object> asList(sql, uniqueKeys);
+		String countSql = COUNT_SQL_CACHE.getIfPresent(key);
+		if (countSql == null) {
+			for (SqlRewriter rewriter : REWRITERS) {
+				// the fast path never handles joins
+				countSql = rewriter instanceof ParsingSqlRewriter
+						? getCountSql(parseSelectSql(sql), uniqueKeys) : rewriter.getCountSql(sql);
+				if (countSql != null) {
+					break;
+				}
+			}
+			COUNT_SQL_CACHE.put(key, countSql);
+		}
+		return countSql;
+	}
+
+	/**
+	 * generate count SQL of the parsed select, the select is modified
+	 * 
+	 * @see #getCountSql(String)
+	 * @param select
+	 * @return
+	 */
+	public static String getCountSql(Select select) {
+		return getCountSql(select, UniqueKeys.NONE);
+	}
+
+	/**
+	 * generate count SQL of the parsed select, the select is modified
+	 * 
+	 * @see #getCountSql(String, UniqueKeys)
+	 * @param select
+	 * @param uniqueKeys
+	 * @return
+	 */
+	public static String getCountSql(Select select, UniqueKeys uniqueKeys) {
+		CountSqlOptimizer.stripSubQueryOrderBy(select);
 		SelectBody sb = select.getSelectBody();
 
 		if (sb instanceof PlainSelect) {
 			PlainSelect plain = (PlainSelect) sb;
+			if (CountSqlOptimizer.hasRowLimit(plain)) {
+				// rows are limited, order by decides which rows are counted
+				return getCountSqlWithTempTable(select);
+			}
 			// remove order by expression of the main select body
 			plain.setOrderByElements(null);
 			if (!hasAggregateFunc(plain)) {
 				// we can directly replace columns with count(*)
+				CountSqlOptimizer.removeUnusedLeftJoins(plain, false, uniqueKeys);
 				plain.setSelectItems(COUNT_ITEM);
 				return select.toString();
 			}
+
+			CountSqlOptimizer.removeUnusedLeftJoins(plain, true, uniqueKeys);
+			if (CountSqlOptimizer.toCountDistinct(plain)) {
+				return select.toString();
+			}
+			CountSqlOptimizer.minimizeGroupByItems(plain);
 		} else if (sb instanceof SetOperationList) {
 			/**
 			  sub-select's order-by expression should not be removed.
@@ -278,13 +672,10 @@ public class SelectSqlUtils {
 				  order by name desc
 			 **/
 			SetOperationList list = (SetOperationList) sb;
-			// remove order by expression of the main select body
-			list.setOrderByElements(null);
-		} else if (sb instanceof WithItem) {
-			// should not happen ?
-			logger.error(
-					"select body could not be a with-item, please report the issue to https://github.com/IamFive/spring-data-jdbcx");
-			throw new GeneratePagingSqlException("SQL body could not be a with-item");
+			if (!CountSqlOptimizer.hasRowLimit(list)) {
+				// remove order by expression of the main select body
+				list.setOrderByElements(null);
+			}
 		}
 
 
@@ -364,10 +755,50 @@ public class SelectSqlUtils {
 			SetOperationList list = (SetOperationList) sb;
 			list.setOrderByElements(null);
 		} else if (sb instanceof WithItem) {
-			// should not happen ?
-			logger.error(
-					"select body could not be a with-item, please report the issue to https://github.com/IamFive/spring-data-jdbcx");
-			throw new GeneratePagingSqlException("SQL body could not be a with-item");
+			delOrderBy(((WithItem) sb).getSelectBody());
+		}
+	}
+
+	/**
+	 * offset x rows fetch next x rows only
+	 */
+	private static class OffsetFetchRewriter implements PagingRewriter {
+
+		private final boolean orderByRequired;
+
+		OffsetFetchRewriter(boolean orderByRequired) {
+			this.orderByRequired = orderByRequired;
+		}
+
+		@Override
+		public void rewrite(Select select) {
+			setOffsetFetch(select, new PageOffset(), new PageFetch(), orderByRequired);
+		}
+	}
+
+	/*
+	 * limit, offset and fetch of jsqlparser render numbers or "?" only, 
+	 * these render the named parameters of row numbers
+	 */
+
+	private static class PageLimit extends Limit {
+		@Override
+		public String toString() {
+			return " LIMIT :" + PAGE_SIZE_PARAM + " OFFSET :" + OFFSET_PARAM;
+		}
+	}
+
+	private static class PageOffset extends Offset {
+		@Override
+		public String toString() {
+			return " OFFSET :" + OFFSET_PARAM + " ROWS";
+		}
+	}
+
+	private static class PageFetch extends Fetch {
+		@Override
+		public String toString() {
+			return " FETCH NEXT :" + PAGE_SIZE_PARAM + " ROWS ONLY";
 		}
 	}
 
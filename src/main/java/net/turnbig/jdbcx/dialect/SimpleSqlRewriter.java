@@ -0,0 +1,92 @@
+/**
+ * @(#)SimpleSqlRewriter.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.dialect;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * 
+ * Regex fast path for trivial SQL, which skips the full parsing:
+ * 
+ * <pre>
+ * select [columns] from [tables] [where conditions]
+ * </pre>
+ * 
+ * <li>no parentheses, quotes, comments or semicolons</li>
+ * <li>no join, union, distinct, group by, order by, or row limiting keywords</li>
+ * <li>paging forms: limit/offset and offset/fetch, others return null</li>
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class SimpleSqlRewriter implements SqlRewriter {
+
+	private static final Pattern SIMPLE_SELECT = Pattern.compile("^\\s*select\\s+([^()'\";`\\[\\]]+?)\\s+from\\s+([^()'\";`\\[\\]]+?)\\s*$",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	private static final Pattern COMPLEX_KEYWORDS = Pattern.compile(
+			"--|/\\*|\\b(select|join|union|intersect|except|minus|distinct|unique|all|top|group|having|order|limit|offset"
+					+ "|fetch|first|skip|for|with|window|connect|start|into|lock|rownum|over|natural|cross|apply)\\b",
+			Pattern.CASE_INSENSITIVE);
+
+	@Override
+	public String getCountSql(String sql) {
+		Matcher matcher = match(sql);
+		if (matcher == null) {
+			return null;
+		}
+		return "SELECT count(*) FROM " + matcher.group(2);
+	}
+
+	@Override
+	public String getPageableSql(String sql, Sort sort, PagingRewriter pagingRewriter) {
+		boolean limitOffset = pagingRewriter == SelectSqlUtils.LIMIT_OFFSET;
+		boolean offsetFetch = pagingRewriter == SelectSqlUtils.OFFSET_FETCH;
+		boolean orderedOffsetFetch = pagingRewriter == SelectSqlUtils.ORDERED_OFFSET_FETCH;
+		if (!(limitOffset || offsetFetch || orderedOffsetFetch) || match(sql) == null) {
+			return null;
+		}
+
+		StringBuilder paged = new StringBuilder(sql.trim());
+		String orderBy = SelectSqlUtils.getOrderByString(sort);
+		if (orderBy.length() > 0) {
+			paged.append(orderBy);
+		} else if (orderedOffsetFetch) {
+			paged.append(" ORDER BY (select null)");
+		}
+
+		if (limitOffset) {
+			paged.append(" LIMIT :").append(SelectSqlUtils.PAGE_SIZE_PARAM).append(" OFFSET :")
+					.append(SelectSqlUtils.OFFSET_PARAM);
+		} else {
+			paged.append(" OFFSET :").append(SelectSqlUtils.OFFSET_PARAM).append(" ROWS FETCH NEXT :")
+					.append(SelectSqlUtils.PAGE_SIZE_PARAM).append(" ROWS ONLY");
+		}
+		return paged.toString();
+	}
+
+	/**
+	 * @param sql
+	 * @return the matcher (columns as group 1, tables and conditions as group 2), or null if not a trivial SQL
+	 */
+	private Matcher match(String sql) {
+		Matcher matcher = SIMPLE_SELECT.matcher(sql);
+		if (!matcher.matches()) {
+			return null;
+		}
+		if (COMPLEX_KEYWORDS.matcher(matcher.group(1)).find() || COMPLEX_KEYWORDS.matcher(matcher.group(2)).find()) {
+			return null;
+		}
+		return matcher;
+	}
+
+}
@@ -0,0 +1,55 @@
+/**
+ * @(#)SqlParseLimits.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.dialect;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 
+ * limits of the SQL parsed for paging and counting, SQL longer or nested deeper is rejected instead of parsed.
+ * 
+ * The limits are global (held by {@link SelectSqlUtils}), so they are configured once for the application 
+ * instead of by each DAO:
+ * 
+ * <pre>
+ * spring.jdbcx.sql.max-parse-length = 65536
+ * spring.jdbcx.sql.max-parse-depth = 32
+ * </pre>
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+@Component
+@ConfigurationProperties(prefix = "spring.jdbcx.sql")
+public class SqlParseLimits {
+
+	/**
+	 * @param maxParseLength max characters of SQL to be parsed, not positive means no limit
+	 */
+	public void setMaxParseLength(int maxParseLength) {
+		SelectSqlUtils.setMaxParseLength(maxParseLength);
+	}
+
+	public int getMaxParseLength() {
+		return SelectSqlUtils.getMaxParseLength();
+	}
+
+	/**
+	 * @param maxParseDepth max parentheses nesting of SQL to be parsed, not positive means no limit
+	 */
+	public void setMaxParseDepth(int maxParseDepth) {
+		SelectSqlUtils.setMaxParseDepth(maxParseDepth);
+	}
+
+	public int getMaxParseDepth() {
+		return SelectSqlUtils.getMaxParseDepth();
+	}
+
+}
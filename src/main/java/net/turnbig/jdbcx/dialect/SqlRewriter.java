@@ -0,0 +1,42 @@
+/**
+ * @(#)SqlRewriter.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.dialect;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * 
+ * Rewrite a select SQL to its count or paged form.
+ * 
+ * Rewriters are chained by {@link SelectSqlUtils}, a rewriter returns null when it could not handle the SQL, 
+ * then the next one is tried:
+ * 
+ * <li>{@link SimpleSqlRewriter} - regex fast path for trivial "select ... from ..." SQL, no parsing</li>
+ * <li>{@link ParsingSqlRewriter} - full SQL parsing (length and nesting limited) and AST rewriting</li>
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public interface SqlRewriter {
+
+	/**
+	 * @param sql
+	 * @return count SQL, or null if the SQL is not supported
+	 */
+	String getCountSql(String sql);
+
+	/**
+	 * @param sql
+	 * @param sort				sort to add, could be null
+	 * @param pagingRewriter	the paging form of the dialect
+	 * @return paged SQL with row number parameters, or null if the SQL is not supported
+	 */
+	String getPageableSql(String sql, Sort sort, PagingRewriter pagingRewriter);
+
+}
@@ -18,16 +18,20 @@
 package net.turnbig.jdbcx.dialect;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.domain.Sort;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import net.sf.jsqlparser.expression.Alias;
-import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.JdbcNamedParameter;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
 import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
-import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
 import net.sf.jsqlparser.schema.Column;
-import net.sf.jsqlparser.statement.Statement;
 import net.sf.jsqlparser.statement.select.AllColumns;
 import net.sf.jsqlparser.statement.select.AllTableColumns;
 import net.sf.jsqlparser.statement.select.FromItem;
@@ -62,12 +66,8 @@ import net.sf.jsqlparser.statement.select.WithItem;
  * @author liuzh
  */
 public class SqlServer {
-	// 缓存结果
-	private static final Map<String, String> CACHE = new ConcurrentHashMap<String, String>();
-	// 开始行号
-	private static final String START_ROW = String.valueOf(Long.MIN_VALUE);
-	// 结束行号
-	private static final String PAGE_SIZE = String.valueOf(Long.MAX_VALUE);
+	// 缓存结果(有上限), key: SQL + 排序
+	private static final Cache<List<Object>, String> CACHE = CacheBuilder.newBuilder().maximumSize(1024).build();
 	// 外层包装表
 	private static final String WRAP_TABLE = "WRAP_OUTER_TABLE";
 	// 表别名名字
@@ -89,33 +89,43 @@ public class SqlServer {
 	}
 
 	/**
-	 * 转换为分页语句
+	 * 转换为分页语句, 行号以命名参数绑定(:jdbcxPageOffset, :jdbcxPageEndRow), 
+	 * 不同页使用同一个SQL, 数据库执行计划可以复用
 	 *
+	 * @see net.turnbig.jdbcx.params.PageableSqlParameterSource
 	 * @param sql
-	 * @param offset
-	 * @param limit
+	 * @param sort 追加的排序, 可以为null
 	 * @return
 	 */
-	public String convertToPageSql(String sql, int offset, int limit) {
-		String pageSql = CACHE.get(sql);
+	public String convertToPageSql(String sql, Sort sort) {
+		List<Object> key = Arrays.<Object> asList(sql, sort);
+		String pageSql = CACHE.getIfPresent(key);
 		if (pageSql == null) {
-			// 解析SQL
-			Statement stmt;
-			try {
-				stmt = CCJSqlParserUtil.parse(sql);
-			} catch (Throwable e) {
-				throw new RuntimeException("不支持该SQL转换为分页查询!");
-			}
-			if (!(stmt instanceof Select)) {
-				throw new RuntimeException("分页语句必须是Select查询!");
-			}
+			// 解析SQL(超长或嵌套过深的SQL不解析)
+			Select stmt = SelectSqlUtils.parseSelectSql(sql);
+			SelectSqlUtils.addSort(stmt, sort);
 			// 获取分页查询的select
-			Select pageSelect = getPageSelect((Select) stmt);
+			Select pageSelect = getPageSelect(stmt);
 			pageSql = pageSelect.toString();
-			CACHE.put(sql, pageSql);
+			CACHE.put(key, pageSql);
 		}
-		pageSql = pageSql.replace(START_ROW, String.valueOf(offset));
-		pageSql = pageSql.replace(PAGE_SIZE, String.valueOf(limit));
+		return pageSql;
+	}
+
+	/**
+	 * 转换为分页语句, 行号直接写入SQL
+	 *
+	 * @param sql
+	 * @param offset
+	 * @param limit
+	 * @return
+	 * @deprecated use {@link #convertToPageSql(String, Sort)} and bind the row numbers
+	 */
+	@Deprecated
+	public String convertToPageSql(String sql, int offset, int limit) {
+		String pageSql = convertToPageSql(sql, (Sort) null);
+		pageSql = pageSql.replace(":" + SelectSqlUtils.OFFSET_PARAM, String.valueOf(offset));
+		pageSql = pageSql.replace(":" + SelectSqlUtils.END_ROW_PARAM, String.valueOf((long) offset + limit));
 		return pageSql;
 	}
 
@@ -144,21 +154,20 @@ public class SqlServer {
 		// 新建一个select
 		Select newSelect = new Select();
 		PlainSelect newSelectBody = new PlainSelect();
-		// 设置top
-		Top top = new Top();
-		top.setRowCount(Long.MAX_VALUE);
-		newSelectBody.setTop(top);
 		// 设置order by
 		List<OrderByElement> orderByElements = new ArrayList<OrderByElement>();
 		OrderByElement orderByElement = new OrderByElement();
 		orderByElement.setExpression(PAGE_ROW_NUMBER_COLUMN);
 		orderByElements.add(orderByElement);
 		newSelectBody.setOrderByElements(orderByElements);
-		// 设置where
+		// 设置where: 行号在 (offset, endRow] 之间
 		GreaterThan greaterThan = new GreaterThan();
 		greaterThan.setLeftExpression(PAGE_ROW_NUMBER_COLUMN);
-		greaterThan.setRightExpression(new LongValue(Long.MIN_VALUE));
-		newSelectBody.setWhere(greaterThan);
+		greaterThan.setRightExpression(namedParameter(SelectSqlUtils.OFFSET_PARAM));
+		MinorThanEquals minorThanEquals = new MinorThanEquals();
+		minorThanEquals.setLeftExpression(PAGE_ROW_NUMBER_COLUMN);
+		minorThanEquals.setRightExpression(namedParameter(SelectSqlUtils.END_ROW_PARAM));
+		newSelectBody.setWhere(new AndExpression(greaterThan, minorThanEquals));
 		// 设置selectItems
 		newSelectBody.setSelectItems(selectItems);
 		// 设置fromIterm
@@ -174,6 +183,12 @@ public class SqlServer {
 		return newSelect;
 	}
 
+	private static JdbcNamedParameter namedParameter(String name) {
+		JdbcNamedParameter parameter = new JdbcNamedParameter();
+		parameter.setName(name);
+		return parameter;
+	}
+
 	/**
 	 * 包装SetOperationList
 	 *
@@ -257,7 +272,8 @@ public class SqlServer {
 			// 注意：order by别名的时候有错,由于没法判断一个列是否为别名，所以不能解决
 			orderByBuilder.append(PlainSelect.orderByToString(false, plainSelect.getOrderByElements()));
 		} else {
-			throw new RuntimeException("请您在sql中包含order by语句!");
+			// 没有order by时保持自然顺序
+			orderByBuilder.append(" ORDER BY (SELECT NULL)");
 		}
 		// 需要把改orderby清空
 		if (isNotEmptyList(plainSelect.getOrderByElements())) {
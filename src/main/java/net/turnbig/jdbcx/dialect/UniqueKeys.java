@@ -0,0 +1,103 @@
+/**
+ * @(#)UniqueKeys.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ *
+ */
+package net.turnbig.jdbcx.dialect;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.Assert;
+
+/**
+ *
+ * Declared unique columns (primary key or unique constraint) of tables, used by {@link CountSqlOptimizer} to detect
+ * left joins which are to-one. Tables are matched by name (without schema), case insensitive.
+ *
+ * Nothing is declared by default, so no left join is removed unless the unique keys of the joined table are declared.
+ * Instances are immutable.
+ *
+ * <pre>
+ * UniqueKeys keys = UniqueKeys.of("profile", "id").and("team", "id", "code");
+ * </pre>
+ *
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public final class UniqueKeys {
+
+	public static final UniqueKeys NONE = new UniqueKeys(Collections.<String, Set<String>> emptyMap());
+
+	// lower case table name to lower case unique column names
+	private final Map<String, Set<String>> columnsByTable;
+
+	private UniqueKeys(Map<String, Set<String>> columnsByTable) {
+		this.columnsByTable = columnsByTable;
+	}
+
+	/**
+	 * @param table		table name without schema
+	 * @param columns	columns which are unique each, not composite keys
+	 * @return
+	 */
+	public static UniqueKeys of(String table, String... columns) {
+		return NONE.and(table, columns);
+	}
+
+	/**
+	 * @param table		table name without schema
+	 * @param columns	columns which are unique each, not composite keys
+	 * @return a new instance with the columns added
+	 */
+	public UniqueKeys and(String table, String... columns) {
+		Assert.hasText(table, "table name should not be empty");
+		Assert.notEmpty(columns, "at least one unique column should be declared");
+		Map<String, Set<String>> map = new HashMap<String, Set<String>>(columnsByTable);
+		String key = table.toLowerCase(Locale.US);
+		Set<String> set = map.containsKey(key) ? new HashSet<String>(map.get(key)) : new HashSet<String>();
+		for (String column : columns) {
+			Assert.hasText(column, "column name should not be empty");
+			set.add(column.toLowerCase(Locale.US));
+		}
+		map.put(key, Collections.unmodifiableSet(set));
+		return new UniqueKeys(Collections.unmodifiableMap(map));
+	}
+
+	public boolean isEmpty() {
+		return columnsByTable.isEmpty();
+	}
+
+	/**
+	 * @param table
+	 * @param column
+	 * @return whether the column is declared unique in the table
+	 */
+	public boolean isUnique(String table, String column) {
+		Set<String> columns = columnsByTable.get(table.toLowerCase(Locale.US));
+		return columns != null && columns.contains(column.toLowerCase(Locale.US));
+	}
+
+	@Override
+	public int hashCode() {
+		return columnsByTable.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof UniqueKeys && columnsByTable.equals(((UniqueKeys) obj).columnsByTable);
+	}
+
+	@Override
+	public String toString() {
+		return "UniqueKeys " + columnsByTable;
+	}
+
+}
@@ -16,12 +16,20 @@
  *******************************************************************************/
 package net.turnbig.jdbcx.dialect.impl;
 
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.Assert;
 
-import net.turnbig.jdbcx.dialect.SQLDialect;
+import net.turnbig.jdbcx.dialect.CapableDialect;
+import net.turnbig.jdbcx.dialect.DialectCapability;
 import net.turnbig.jdbcx.dialect.SelectSqlUtils;
+import net.turnbig.jdbcx.dialect.UniqueKeys;
 
 /**
  * 
@@ -29,17 +37,72 @@ import net.turnbig.jdbcx.dialect.SelectSqlUtils;
  * @date 2016年1月28日
  * @version $Revision$
  */
-public abstract class AbstractSQLDialect implements SQLDialect {
+public abstract class AbstractSQLDialect implements CapableDialect {
 
 	static final Logger logger = LoggerFactory.getLogger(AbstractSQLDialect.class);
 
+	private final Set<DialectCapability> capabilities;
+
+	protected AbstractSQLDialect(DialectCapability... capabilities) {
+		this.capabilities = capabilities.length == 0 ? EnumSet.noneOf(DialectCapability.class)
+				: EnumSet.copyOf(Arrays.asList(capabilities));
+	}
+
+	@Override
+	public boolean supports(DialectCapability capability) {
+		return capabilities.contains(capability);
+	}
+
 	@Override
 	public String getCountSql(final String sql) {
 		return SelectSqlUtils.getCountSql(sql);
 	}
 
+	/**
+	 * @param sql
+	 * @param uniqueKeys	unique keys of the joined tables, unreferenced to-one left joins are removed
+	 * @return count SQL
+	 */
+	public String getCountSql(final String sql, UniqueKeys uniqueKeys) {
+		return uniqueKeys.isEmpty() ? getCountSql(sql) : SelectSqlUtils.getCountSql(sql, uniqueKeys);
+	}
+
+	/**
+	 * the row numbers of the page are literals, so each page is a different statement
+	 * 
+	 * @see #getPagedSql(String, Sort)
+	 */
+	@Override
+	public String getPageableSql(String sql, Pageable pageable) {
+		String pagedSql = getPagedSql(sql, pageable.getSort());
+		Assert.notNull(pagedSql, getClass().getName() + " should implement getPagedSql or getPageableSql");
+		return SelectSqlUtils.bindRowNumbers(pagedSql, pageable);
+	}
+
+	/**
+	 * 
+	 * paged SQL whose row numbers are named parameters ({@link SelectSqlUtils#OFFSET_PARAM}, 
+	 * {@link SelectSqlUtils#PAGE_SIZE_PARAM}, {@link SelectSqlUtils#END_ROW_PARAM}), all pages share one statement, 
+	 * the row numbers are bound by {@link net.turnbig.jdbcx.params.PageableSqlParameterSource}
+	 * 
+	 * @param sql		original SQL
+	 * @param sort		sort appended, nullable
+	 * @return paged SQL, null if the dialect implements {@link #getPageableSql(String, Pageable)} only
+	 */
+	public String getPagedSql(String sql, Sort sort) {
+		return null;
+	}
+
+	/**
+	 * @deprecated use {@link #getPagedSqlWithLimitOffset(String, Sort)} and bind the row numbers
+	 */
+	@Deprecated
 	public String getPageableSqlWithLimitOffset(String sql, Pageable pageable) {
-		String pagedSql = SelectSqlUtils.getPageableSqlWithLimitOffset(sql, pageable);
+		return SelectSqlUtils.bindRowNumbers(getPagedSqlWithLimitOffset(sql, pageable.getSort()), pageable);
+	}
+
+	public String getPagedSqlWithLimitOffset(String sql, Sort sort) {
+		String pagedSql = SelectSqlUtils.getPagedSqlWithLimitOffset(sql, sort);
 		logger.debug("original sql is : {}, paged sql is: {}", sql, pagedSql);
 		return pagedSql;
 	}
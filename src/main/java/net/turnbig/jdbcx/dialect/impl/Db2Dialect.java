@@ -17,27 +17,136 @@
 
 package net.turnbig.jdbcx.dialect.impl;
 
-import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.select.AllColumns;
+import net.sf.jsqlparser.statement.select.AllTableColumns;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectExpressionItem;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import net.turnbig.jdbcx.dialect.DialectCapability;
+import net.turnbig.jdbcx.dialect.PagingRewriter;
 import net.turnbig.jdbcx.dialect.SelectSqlUtils;
+import net.turnbig.jdbcx.dialect.exception.GeneratePagingSqlException;
 
+/**
+ * 
+ * DB2 pagination SQL sample, row numbers follow the order by of the sorted SQL:
+ * <pre>
+ * select * from ( 
+ *     select tmp_page.*, row_number() over(order by tmp_page.id asc) row_id from ( 
+ *         select ... order by id asc
+ *     ) tmp_page 
+ * ) tmp_row where row_id &gt; :offset and row_id &lt;= :end order by row_id
+ * </pre>
+ * 
+ * columns of the order by are referenced through tmp_page, so they should be selected (by the same name or alias).
+ * 
+ * @author Woo Cupid
+ * @date 2016年1月28日
+ * @version $Revision$
+ */
 public class Db2Dialect extends AbstractSQLDialect {
 
+	private static final String PAGE_TABLE = "tmp_page";
+
+	private static final PagingRewriter ROW_NUMBER = new PagingRewriter() {
+		@Override
+		public void rewrite(Select select) {
+			String over = PlainSelect.orderByToString(false, toPageOrderBy(select));
+
+			Column rowId = new Column("row_id");
+			List<SelectItem> items = new ArrayList<SelectItem>();
+			items.add(new AllTableColumns(new Table(PAGE_TABLE)));
+			SelectExpressionItem rowNumberItem = new SelectExpressionItem(
+					new Column("row_number() over(" + over.trim() + ")"));
+			rowNumberItem.setAlias(new Alias(rowId.getColumnName(), false));
+			items.add(rowNumberItem);
+			SelectSqlUtils.wrapSelect(select, PAGE_TABLE, items);
+
+			List<SelectItem> all = new ArrayList<SelectItem>();
+			all.add(new AllColumns());
+			PlainSelect row = SelectSqlUtils.wrapSelect(select, "tmp_row", all);
+			GreaterThan startRow = new GreaterThan();
+			startRow.setLeftExpression(rowId);
+			startRow.setRightExpression(SelectSqlUtils.pageParameter(SelectSqlUtils.OFFSET_PARAM));
+			MinorThanEquals endRow = new MinorThanEquals();
+			endRow.setLeftExpression(rowId);
+			endRow.setRightExpression(SelectSqlUtils.pageParameter(SelectSqlUtils.END_ROW_PARAM));
+			row.setWhere(new AndExpression(startRow, endRow));
+			// order of the derived table is not kept by the outer select
+			OrderByElement byRowId = new OrderByElement();
+			byRowId.setExpression(rowId);
+			List<OrderByElement> orderBy = new ArrayList<OrderByElement>();
+			orderBy.add(byRowId);
+			row.setOrderByElements(orderBy);
+		}
+	};
+
+	public Db2Dialect() {
+		super(DialectCapability.WINDOW_FUNCTIONS, DialectCapability.UPSERT);
+	}
+
+	/**
+	 * copy the order by of the sorted select, with columns referenced through the page table
+	 * 
+	 * @param select
+	 * @return order by of over(...), empty if the select is not sorted
+	 */
+	private static List<OrderByElement> toPageOrderBy(Select select) {
+		List<OrderByElement> elements = SelectSqlUtils.getOrderByElements(select);
+		List<OrderByElement> copies = new ArrayList<OrderByElement>();
+		if (elements == null) {
+			return copies;
+		}
+		ExpressionVisitorAdapter qualifier = new ExpressionVisitorAdapter() {
+			@Override
+			public void visit(Column column) {
+				column.setTable(new Table(PAGE_TABLE));
+			}
+		};
+		for (OrderByElement element : elements) {
+			Expression expression;
+			try {
+				// parsed again, so the order by of the sorted select is not changed
+				expression = CCJSqlParserUtil.parseExpression(element.getExpression().toString());
+			} catch (JSQLParserException e) {
+				throw new GeneratePagingSqlException(select.toString(), "order by could not be copied", e);
+			}
+			expression.accept(qualifier);
+			OrderByElement copy = new OrderByElement();
+			copy.setExpression(expression);
+			copy.setAsc(element.isAsc());
+			copy.setAscDescPresent(element.isAscDescPresent());
+			copy.setNullOrdering(element.getNullOrdering());
+			copies.add(copy);
+		}
+		return copies;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see com.woo.jdbcx.dialect.SQLDialect#getPageableSql(java.lang.String, org.springframework.data.domain.Pageable)
+	 * @see net.turnbig.jdbcx.dialect.impl.AbstractSQLDialect#getPagedSql(java.lang.String, org.springframework.data.domain.Sort)
 	 */
 	@Override
-	public String getPageableSql(String sql, Pageable pageable) {
-		String sortedSql = SelectSqlUtils.addSort(sql, pageable.getSort());
-		int startRow = pageable.getOffset();
-		int endRow = pageable.getOffset() + pageable.getPageSize();
-		String pagedSql = "select * from ( select tmp_page.*,rownumber() over() as row_id from ({0}) as tmp_page"
-				+ ") where row_id between {1} and {2} ";
-		return MessageFormat.format(pagedSql, sortedSql, ""+startRow, ""+endRow);
+	public String getPagedSql(String sql, Sort sort) {
+		return SelectSqlUtils.getPagedSql(sql, sort, ROW_NUMBER);
 	}
 
-}
\ No newline at end of file
+}
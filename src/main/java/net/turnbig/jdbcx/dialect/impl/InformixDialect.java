@@ -17,29 +17,57 @@
 
 package net.turnbig.jdbcx.dialect.impl;
 
-import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
+import net.sf.jsqlparser.statement.select.AllColumns;
+import net.sf.jsqlparser.statement.select.First;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import net.sf.jsqlparser.statement.select.Skip;
+import net.turnbig.jdbcx.dialect.PagingRewriter;
 import net.turnbig.jdbcx.dialect.SelectSqlUtils;
 
+/**
+ * 
+ * Informix pagination SQL sample:
+ * <pre>
+ * select skip :offset first :size * from ( select ... order by ... ) temp_t
+ * </pre>
+ * 
+ * @author Woo Cupid
+ * @date 2016年1月28日
+ * @version $Revision$
+ */
 public class InformixDialect extends AbstractSQLDialect {
-	public String getPageSql(String sql) {
-		StringBuilder sqlBuilder = new StringBuilder(sql.length() + 40);
-		sqlBuilder.append("select skip {1} first {2} * from ({0}) temp_t");
-		return sqlBuilder.toString();
-	}
+
+	private static final PagingRewriter SKIP_FIRST = new PagingRewriter() {
+		@Override
+		public void rewrite(Select select) {
+			List<SelectItem> all = new ArrayList<SelectItem>();
+			all.add(new AllColumns());
+			PlainSelect page = SelectSqlUtils.wrapSelect(select, "temp_t", all);
+			Skip skip = new Skip();
+			skip.setVariable(":" + SelectSqlUtils.OFFSET_PARAM);
+			First first = new First();
+			first.setKeyword(First.Keyword.FIRST);
+			first.setVariable(":" + SelectSqlUtils.PAGE_SIZE_PARAM);
+			page.setSkip(skip);
+			page.setFirst(first);
+		}
+	};
 
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see com.woo.jdbcx.dialect.SQLDialect#getPageableSql(java.lang.String, org.springframework.data.domain.Pageable)
+	 * @see net.turnbig.jdbcx.dialect.impl.AbstractSQLDialect#getPagedSql(java.lang.String, org.springframework.data.domain.Sort)
 	 */
 	@Override
-	public String getPageableSql(String sql, Pageable pageable) {
-		String sortedSql = SelectSqlUtils.addSort(sql, pageable.getSort());
-		String pagedSql = "select skip {1} first {2} * from ({0}) temp_t";
-		return MessageFormat.format(pagedSql, sortedSql, pageable.getOffset(), pageable.getPageSize());
+	public String getPagedSql(String sql, Sort sort) {
+		return SelectSqlUtils.getPagedSql(sql, sort, SKIP_FIRST);
 	}
 
 }
\ No newline at end of file
@@ -17,18 +17,24 @@
 
 package net.turnbig.jdbcx.dialect.impl;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import net.turnbig.jdbcx.dialect.DialectCapability;
 
 public class MariaDialect extends AbstractSQLDialect {
 
+	public MariaDialect() {
+		super(DialectCapability.ROW_VALUE_COMPARISON, DialectCapability.UPSERT);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see com.woo.jdbcx.dialect.SQLDialect#getPageableSql(java.lang.String, org.springframework.data.domain.Pageable)
+	 * @see net.turnbig.jdbcx.dialect.impl.AbstractSQLDialect#getPagedSql(java.lang.String, org.springframework.data.domain.Sort)
 	 */
 	@Override
-	public String getPageableSql(String sql, Pageable pageable) {
-		return getPageableSqlWithLimitOffset(sql, pageable);
+	public String getPagedSql(String sql, Sort sort) {
+		return getPagedSqlWithLimitOffset(sql, sort);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ *
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+
+package net.turnbig.jdbcx.dialect.impl;
+
+import org.springframework.data.domain.Sort;
+
+import net.turnbig.jdbcx.dialect.DialectCapability;
+import net.turnbig.jdbcx.dialect.SelectSqlUtils;
+
+/**
+ * 
+
+Oracle 12c and later, the pagination SQL sample:
+<pre>
+SELECT fieldA,fieldB 
+FROM table 
+ORDER BY fieldA 
+OFFSET 5 ROWS FETCH NEXT 14 ROWS ONLY
+</pre>
+
+the optimizer could use top-N plans with it, which is blocked by the nested rownum wrapper.
+
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class Oracle12cDialect extends AbstractSQLDialect {
+
+	public Oracle12cDialect() {
+		super(DialectCapability.WINDOW_FUNCTIONS, DialectCapability.UPSERT);
+	}
+
+	/*
+	 * 
+	 * @see net.turnbig.jdbcx.dialect.impl.AbstractSQLDialect#getPagedSql(java.lang.String, org.springframework.data.domain.Sort)
+	 */
+	@Override
+	public String getPagedSql(String sql, Sort sort) {
+		return SelectSqlUtils.getPagedSqlWithOffsetFetch(sql, sort, false);
+	}
+
+}
@@ -17,10 +17,24 @@
 
 package net.turnbig.jdbcx.dialect.impl;
 
-import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
+import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.select.AllColumns;
+import net.sf.jsqlparser.statement.select.AllTableColumns;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectExpressionItem;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import net.turnbig.jdbcx.dialect.DialectCapability;
+import net.turnbig.jdbcx.dialect.PagingRewriter;
 import net.turnbig.jdbcx.dialect.SelectSqlUtils;
 
 /**
@@ -55,18 +69,48 @@ OFFSET 5 ROWS FETCH NEXT 14 ROWS ONLY;
  */
 public class OracleDialect extends AbstractSQLDialect {
 
+	/**
+	 * select * from ( select tmp_page.*, rownum row_id from ( sorted SQL ) tmp_page where rownum &lt;= :end ) tmp_row 
+	 * where row_id &gt; :offset
+	 */
+	private static final PagingRewriter ROWNUM = new PagingRewriter() {
+		@Override
+		public void rewrite(Select select) {
+			Column rownum = new Column("rownum");
+			Column rowId = new Column("row_id");
+
+			List<SelectItem> items = new ArrayList<SelectItem>();
+			items.add(new AllTableColumns(new Table("tmp_page")));
+			SelectExpressionItem rownumItem = new SelectExpressionItem(rownum);
+			rownumItem.setAlias(new Alias(rowId.getColumnName(), false));
+			items.add(rownumItem);
+			PlainSelect page = SelectSqlUtils.wrapSelect(select, "tmp_page", items);
+			MinorThanEquals endRow = new MinorThanEquals();
+			endRow.setLeftExpression(rownum);
+			endRow.setRightExpression(SelectSqlUtils.pageParameter(SelectSqlUtils.END_ROW_PARAM));
+			page.setWhere(endRow);
+
+			List<SelectItem> all = new ArrayList<SelectItem>();
+			all.add(new AllColumns());
+			PlainSelect row = SelectSqlUtils.wrapSelect(select, "tmp_row", all);
+			GreaterThan startRow = new GreaterThan();
+			startRow.setLeftExpression(rowId);
+			startRow.setRightExpression(SelectSqlUtils.pageParameter(SelectSqlUtils.OFFSET_PARAM));
+			row.setWhere(startRow);
+		}
+	};
+
+	public OracleDialect() {
+		super(DialectCapability.WINDOW_FUNCTIONS, DialectCapability.UPSERT);
+	}
+
 	/*
 	 * 
-	 * @see com.woo.jdbcx.dialect.SQLDialect#getPageableSql(java.lang.String, org.springframework.data.domain.Pageable)
+	 * @see net.turnbig.jdbcx.dialect.impl.AbstractSQLDialect#getPagedSql(java.lang.String, org.springframework.data.domain.Sort)
 	 */
 	@Override
-	public String getPageableSql(String sql, Pageable pageable) {
-		String sortedSql = SelectSqlUtils.addSort(sql, pageable.getSort());
-		int startRow = pageable.getOffset();
-		int endRow = pageable.getOffset() + pageable.getPageSize();
-		String pagedSql = "select * from ( select tmp_page.*, rownum row_id from ({0}) tmp_page "
-				+ " where rownum <= {1} ) where row_id > {2}";
-		return MessageFormat.format(pagedSql, sortedSql, ""+endRow, ""+startRow);
+	public String getPagedSql(String sql, Sort sort) {
+		return SelectSqlUtils.getPagedSql(sql, sort, ROWNUM);
 	}
 
 }
\ No newline at end of file
@@ -17,12 +17,16 @@
 
 package net.turnbig.jdbcx.dialect.impl;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import net.turnbig.jdbcx.dialect.DialectCapability;
+import net.turnbig.jdbcx.dialect.SelectSqlUtils;
 
 /**
  * Take note that at least one column
  * needs to be defined for ORDER BY
- * in oder for OFFSET .. ROWS to work
+ * in oder for OFFSET .. ROWS to work, 
+ * "ORDER BY (SELECT NULL)" is used when the SQL has no order by expression
  */
 public class SqlServer2012Dialect extends AbstractSQLDialect {
 
@@ -33,14 +37,18 @@ public class SqlServer2012Dialect extends AbstractSQLDialect {
 		return sqlBuilder.toString();
 	}
 
+	public SqlServer2012Dialect() {
+		super(DialectCapability.WINDOW_FUNCTIONS, DialectCapability.UPSERT);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see com.woo.jdbcx.dialect.SQLDialect#getPageableSql(java.lang.String, org.springframework.data.domain.Pageable)
+	 * @see net.turnbig.jdbcx.dialect.impl.AbstractSQLDialect#getPagedSql(java.lang.String, org.springframework.data.domain.Sort)
 	 */
 	@Override
-	public String getPageableSql(String sql, Pageable pageable) {
-		return null;
+	public String getPagedSql(String sql, Sort sort) {
+		return SelectSqlUtils.getPagedSqlWithOffsetFetch(sql, sort, true);
 	}
 
 }
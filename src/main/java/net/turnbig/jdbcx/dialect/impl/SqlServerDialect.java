@@ -17,7 +17,10 @@
 
 package net.turnbig.jdbcx.dialect.impl;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import net.turnbig.jdbcx.dialect.DialectCapability;
+import net.turnbig.jdbcx.dialect.SqlServer;
 
 /**
 
@@ -43,6 +46,11 @@ select top {LIMIT HERE} * from (
 ) xx where r_n_n >={OFFSET HERE}
 </pre>
 
+ROW_NUMBER() requires an order by, "ORDER BY (SELECT NULL)" is used when the SQL has no order by expression 
+(and no sort is given), the rows of such pages are in an unspecified order
+
+the paged SQL binds the row numbers as named parameters (:jdbcxPageOffset, :jdbcxPageEndRow), 
+see {@link net.turnbig.jdbcx.params.PageableSqlParameterSource}
 
  * 
  * @author Woo Cupid
@@ -51,14 +59,23 @@ select top {LIMIT HERE} * from (
  */
 public class SqlServerDialect extends AbstractSQLDialect {
 
+	private final SqlServer sqlServer = new SqlServer();
+
+	public SqlServerDialect() {
+		super(DialectCapability.WINDOW_FUNCTIONS, DialectCapability.UPSERT);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see com.woo.jdbcx.dialect.SQLDialect#getPageSql(java.lang.String, org.springframework.data.domain.Pageable)
+	 * @see net.turnbig.jdbcx.dialect.impl.AbstractSQLDialect#getPagedSql(java.lang.String, org.springframework.data.domain.Sort)
 	 */
 	@Override
-	public String getPageableSql(String sql, Pageable pageable) {
-		throw new RuntimeException("not implement yet");
+	public String getPagedSql(String sql, Sort sort) {
+		// row numbers are bound by JdbcxPagingDaoSupport, all pages share one statement
+		String pagedSql = sqlServer.convertToPageSql(sql, sort);
+		logger.debug("original sql is : {}, paged sql is: {}", sql, pagedSql);
+		return pagedSql;
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,272 @@
+/**
+ * @(#)EntityMetadata.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ *
+ */
+package net.turnbig.jdbcx.meta;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.persistence.Version;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import com.google.common.base.CaseFormat;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ *
+ * Mapping of a class to table, computed once and shared by SQL generation, row mapping and parameter binding.
+ *
+ * <li>table name is the @Table(name), or the underscored simple class name</li>
+ * <li>id is the @Id field, or the field named id</li>
+ * <li>version is the numeric @Version field, used for optimistic locking</li>
+ * <li>persisted properties are the fields which are not @Transient, static, final or transient,
+ * 		column name is the @Column(name), or the underscored property name</li>
+ * <li>any class could be described, DTO without id or persisted fields is used for row mapping only</li>
+ *
+ * <pre>
+ * EntityMetadata metadata = EntityMetadata.of(Member.class);
+ * metadata.getProperty("registIp").getColumnName(); // regist_ip
+ * </pre>
+ *
+ * Instances are immutable and cached by class.
+ *
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class EntityMetadata {
+
+	private static final Logger logger = LoggerFactory.getLogger(EntityMetadata.class);
+
+	// never evicted (one entry for each entity class), the metadata references its class, so the classes of a
+	// redeployed class-loader are kept while JDBCX is loaded by a shared parent class-loader
+	private static final Cache<Class<?>, EntityMetadata> METADATA = CacheBuilder.newBuilder().build();
+
+	private final Class<?> entityClass;
+	private final String tableName;
+	private final PropertyMetadata id;
+	private final PropertyMetadata version;
+	private final List<PropertyMetadata> properties;
+	private final Map<String, PropertyMetadata> propertiesByName;
+	private final Map<String, PropertyMetadata> propertiesByColumn;
+	// lower-cased property name, underscored name and column name to writable bean property, for row mapping
+	private final Map<String, PropertyDescriptor> mappedFields;
+	private final Set<String> mappedProperties;
+
+	/**
+	 * @param entityClass
+	 * @return the cached metadata of the class
+	 */
+	public static EntityMetadata of(Class<?> entityClass) {
+		Assert.notNull(entityClass, "entity class should not be null");
+		EntityMetadata metadata = METADATA.getIfPresent(entityClass);
+		if (metadata == null) {
+			metadata = new EntityMetadata(entityClass);
+			METADATA.put(entityClass, metadata);
+		}
+		return metadata;
+	}
+
+	private EntityMetadata(Class<?> entityClass) {
+		this.entityClass = entityClass;
+		this.tableName = detectTableName(entityClass);
+
+		Map<String, PropertyDescriptor> descriptors = new HashMap<String, PropertyDescriptor>();
+		Map<String, PropertyDescriptor> mappedFields = new HashMap<String, PropertyDescriptor>();
+		Set<String> mappedProperties = new HashSet<String>();
+		for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(entityClass)) {
+			descriptors.put(pd.getName(), pd);
+			if (pd.getWriteMethod() != null) {
+				String lowerCaseName = pd.getName().toLowerCase(Locale.US);
+				mappedFields.put(lowerCaseName, pd);
+				mappedFields.put(underscoreName(pd.getName()), pd);
+				mappedProperties.add(pd.getName());
+			}
+		}
+
+		Field idField = null;
+		List<Field> persistedFields = new ArrayList<Field>();
+		for (Field field : FieldUtils.getAllFields(entityClass)) {
+			int modifiers = field.getModifiers();
+			if (field.isAnnotationPresent(Transient.class) || Modifier.isFinal(modifiers)
+					|| Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+				continue;
+			}
+			if (field.isAnnotationPresent(Id.class)
+					|| (field.getName().equals("id") && (idField == null || !idField.isAnnotationPresent(Id.class)))) {
+				idField = field;
+			}
+			persistedFields.add(field);
+		}
+
+		PropertyMetadata id = null;
+		PropertyMetadata version = null;
+		List<PropertyMetadata> properties = new ArrayList<PropertyMetadata>(persistedFields.size());
+		Map<String, PropertyMetadata> propertiesByName = new LinkedHashMap<String, PropertyMetadata>();
+		Map<String, PropertyMetadata> propertiesByColumn = new HashMap<String, PropertyMetadata>();
+		for (Field field : persistedFields) {
+			// field of super-class is hidden by the same name field of sub-class
+			if (propertiesByName.containsKey(field.getName())) {
+				continue;
+			}
+			Column column = field.getAnnotation(Column.class);
+			String columnName = column == null || StringUtils.isEmpty(column.name())
+					? CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, field.getName()) : column.name();
+			PropertyDescriptor pd = descriptors.get(field.getName());
+			PropertyMetadata property = new PropertyMetadata(field.getName(), columnName, field,
+					pd == null ? null : pd.getReadMethod(), pd == null ? null : pd.getWriteMethod(), field == idField,
+					field.isAnnotationPresent(Version.class), column != null && column.unique());
+			properties.add(property);
+			propertiesByName.put(property.getName(), property);
+			propertiesByColumn.put(columnName.toLowerCase(Locale.US), property);
+			if (property.isId()) {
+				id = property;
+			} else if (property.isVersion()) {
+				Assert.isTrue(Number.class.isAssignableFrom(ClassUtils.resolvePrimitiveIfNecessary(field.getType())),
+						"@Version field should be numeric: " + field);
+				version = property;
+			}
+			// column declared by @Column(name) is mapped to the property too
+			if (pd != null && pd.getWriteMethod() != null) {
+				mappedFields.put(columnName.toLowerCase(Locale.US), pd);
+			}
+		}
+
+		this.id = id;
+		this.version = version;
+		this.properties = Collections.unmodifiableList(properties);
+		this.propertiesByName = Collections.unmodifiableMap(propertiesByName);
+		this.propertiesByColumn = Collections.unmodifiableMap(propertiesByColumn);
+		this.mappedFields = Collections.unmodifiableMap(mappedFields);
+		this.mappedProperties = Collections.unmodifiableSet(mappedProperties);
+		logger.debug("[{}] detected entity metadata: table-name `{}`, id `{}`, properties {}", entityClass, tableName,
+				id, properties);
+	}
+
+	private static String detectTableName(Class<?> entityClass) {
+		Table table = AnnotationUtils.findAnnotation(entityClass, Table.class);
+		if (table != null && StringUtils.hasText(table.name())) {
+			return table.name();
+		}
+		String clazz = entityClass.getName();
+		String className = clazz.substring(clazz.lastIndexOf(".") + 1);
+		return CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, className);
+	}
+
+	/**
+	 * same as {@link org.springframework.jdbc.core.BeanPropertyRowMapper#underscoreName(String)}
+	 */
+	private static String underscoreName(String name) {
+		StringBuilder result = new StringBuilder();
+		result.append(name.substring(0, 1).toLowerCase(Locale.US));
+		for (int i = 1; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (Character.isUpperCase(c)) {
+				result.append('_').append(Character.toLowerCase(c));
+			} else {
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+
+	public Class<?> getEntityClass() {
+		return entityClass;
+	}
+
+	public String getTableName() {
+		return tableName;
+	}
+
+	/**
+	 * @return id property, null if the class has no id
+	 */
+	public PropertyMetadata getId() {
+		return id;
+	}
+
+	/**
+	 * @return version property, null if the class is not versioned
+	 */
+	public PropertyMetadata getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return column names of the id and the @Column(unique = true) properties
+	 */
+	public String[] getUniqueColumnNames() {
+		List<String> columns = new ArrayList<String>();
+		for (PropertyMetadata property : properties) {
+			if (property.isId() || property.isUnique()) {
+				columns.add(property.getColumnName());
+			}
+		}
+		return columns.toArray(new String[columns.size()]);
+	}
+
+	/**
+	 * @return persisted properties (id included) in declaring order
+	 */
+	public List<PropertyMetadata> getProperties() {
+		return properties;
+	}
+
+	/**
+	 * @param name property name
+	 * @return the persisted property, null if not exists
+	 */
+	public PropertyMetadata getProperty(String name) {
+		return propertiesByName.get(name);
+	}
+
+	/**
+	 * @param columnName column name, case insensitive
+	 * @return the persisted property, null if not exists
+	 */
+	public PropertyMetadata getPropertyByColumn(String columnName) {
+		return propertiesByColumn.get(columnName.toLowerCase(Locale.US));
+	}
+
+	/**
+	 * @return lower-cased property name, underscored property name and column name to writable bean property
+	 */
+	public Map<String, PropertyDescriptor> getMappedFields() {
+		return mappedFields;
+	}
+
+	/**
+	 * @return names of writable bean properties
+	 */
+	public Set<String> getMappedProperties() {
+		return mappedProperties;
+	}
+
+}
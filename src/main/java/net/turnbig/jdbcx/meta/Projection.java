@@ -0,0 +1,320 @@
+/**
+ * @(#)Projection.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ *
+ */
+package net.turnbig.jdbcx.meta;
+
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.Column;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import com.google.common.base.Defaults;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ *
+ * Columns of an entity selected for a result type, with the row mapper compiled for them.
+ *
+ * <li>DTO class: the writable properties which are persisted properties of the entity, matched by the
+ * 		@Column(name) of the DTO field if declared, else by name</li>
+ * <li>interface: the getters, each getter should be a persisted property of the entity (or @Column(name) of it),
+ * 		rows are mapped to proxies backed by the column values</li>
+ * <li>column subset: the given persisted properties, rows are mapped to entities with only these properties set</li>
+ *
+ * The select list is rendered once in the declaring order of the entity, so the row mapper reads the columns
+ * by index and sets them by the resolved accessors, no column name lookup is done for each row.
+ *
+ * <pre>
+ * Projection&lt;MemberName&gt; projection = Projection.of(EntityMetadata.of(Member.class), MemberName.class);
+ * "select " + projection.getSelectList() + " from member" // select id, name from member
+ * </pre>
+ *
+ * Instances are immutable and cached by (entity, result type, properties).
+ *
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class Projection<P> {
+
+	// weak values, so projections of redeployed class-loaders could be collected
+	private static final Cache<List<Object>, Projection<?>> PROJECTIONS = CacheBuilder.newBuilder().weakValues()
+			.build();
+
+	private final EntityMetadata entity;
+	private final Class<P> resultType;
+	private final List<PropertyMetadata> properties;
+	private final String selectList;
+	// for each selected column: the type read from the result set
+	private final Class<?>[] valueTypes;
+	// for DTO: setters of the columns, for column subset: null, properties are set by the entity accessors
+	private final Method[] setters;
+	// for interface: getter to the column index
+	private final Map<Method, Integer> getters;
+	private final RowMapper<P> rowMapper;
+
+	/**
+	 * @param entity
+	 * @param resultType DTO class or interface, the properties are matched to the entity by name
+	 * @return the cached projection
+	 */
+	@SuppressWarnings("unchecked")
+	public static <P> Projection<P> of(EntityMetadata entity, Class<P> resultType) {
+		Assert.notNull(entity, "entity metadata should not be null");
+		Assert.notNull(resultType, "result type should not be null");
+		List<Object> key = Arrays.<Object> asList(entity.getEntityClass(), resultType);
+		Projection<P> projection = (Projection<P>) PROJECTIONS.getIfPresent(key);
+		if (projection == null) {
+			projection = new Projection<P>(entity, resultType, null);
+			PROJECTIONS.put(key, projection);
+		}
+		return projection;
+	}
+
+	/**
+	 * @param entity
+	 * @param properties persisted property names of the entity
+	 * @return the cached projection, rows are mapped to the entity class
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> Projection<E> of(EntityMetadata entity, String... properties) {
+		Assert.notNull(entity, "entity metadata should not be null");
+		Assert.notEmpty(properties, "at least one property should be selected");
+		List<Object> key = new ArrayList<Object>(properties.length + 2);
+		key.add(entity.getEntityClass());
+		key.add(entity.getEntityClass());
+		key.addAll(Arrays.asList(properties));
+		Projection<E> projection = (Projection<E>) PROJECTIONS.getIfPresent(key);
+		if (projection == null) {
+			projection = new Projection<E>(entity, (Class<E>) entity.getEntityClass(), Arrays.asList(properties));
+			PROJECTIONS.put(key, projection);
+		}
+		return projection;
+	}
+
+	private Projection(EntityMetadata entity, Class<P> resultType, List<String> selected) {
+		this.entity = entity;
+		this.resultType = resultType;
+
+		// selected property name to the accessor of the result type, in the declaring order of the entity
+		Map<String, Method> accessors = new HashMap<String, Method>();
+		if (selected != null) {
+			for (String name : selected) {
+				Assert.notNull(entity.getProperty(name),
+						"[" + name + "] is not a persisted property of " + entity.getEntityClass());
+				accessors.put(name, null);
+			}
+		} else if (resultType.isInterface()) {
+			for (Method method : resultType.getMethods()) {
+				String name = getPropertyName(method);
+				Assert.notNull(name, "projection interface should declare getters only: " + method);
+				PropertyMetadata property = getEntityProperty(entity, name, method.getAnnotation(Column.class));
+				Assert.notNull(property,
+						"[" + name + "] is not a persisted property of " + entity.getEntityClass() + ": " + method);
+				accessors.put(property.getName(), method);
+			}
+		} else {
+			for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(resultType)) {
+				if (pd.getWriteMethod() == null) {
+					continue;
+				}
+				Field field = ReflectionUtils.findField(resultType, pd.getName());
+				PropertyMetadata property = getEntityProperty(entity, pd.getName(),
+						field == null ? null : field.getAnnotation(Column.class));
+				if (property != null) {
+					accessors.put(property.getName(), pd.getWriteMethod());
+				}
+			}
+		}
+		Assert.notEmpty(accessors, "no persisted property of " + entity.getEntityClass() + " is found in " + resultType);
+
+		List<PropertyMetadata> properties = new ArrayList<PropertyMetadata>(accessors.size());
+		for (PropertyMetadata property : entity.getProperties()) {
+			if (accessors.containsKey(property.getName())) {
+				properties.add(property);
+			}
+		}
+
+		int size = properties.size();
+		StringBuilder selectList = new StringBuilder();
+		Class<?>[] valueTypes = new Class<?>[size];
+		Method[] setters = selected == null && !resultType.isInterface() ? new Method[size] : null;
+		Map<Method, Integer> getters = resultType.isInterface() ? new LinkedHashMap<Method, Integer>() : null;
+		for (int i = 0; i < size; i++) {
+			PropertyMetadata property = properties.get(i);
+			Method accessor = accessors.get(property.getName());
+			selectList.append(i == 0 ? "" : ", ").append(property.getColumnName());
+			if (setters != null) {
+				ReflectionUtils.makeAccessible(accessor);
+				setters[i] = accessor;
+				valueTypes[i] = accessor.getParameterTypes()[0];
+			} else if (getters != null) {
+				getters.put(accessor, i);
+				valueTypes[i] = accessor.getReturnType();
+			} else {
+				valueTypes[i] = property.getType();
+			}
+		}
+
+		this.properties = Collections.unmodifiableList(properties);
+		this.selectList = selectList.toString();
+		this.valueTypes = valueTypes;
+		this.setters = setters;
+		this.getters = getters == null ? null : Collections.unmodifiableMap(getters);
+		this.rowMapper = new ProjectionRowMapper();
+	}
+
+	/**
+	 * @param column @Column of the result type property, matched by the column name if the name is declared
+	 * @return persisted property of the entity, null if not matched
+	 */
+	private static PropertyMetadata getEntityProperty(EntityMetadata entity, String name, Column column) {
+		if (column != null && StringUtils.hasText(column.name())) {
+			return entity.getPropertyByColumn(column.name());
+		}
+		return entity.getProperty(name);
+	}
+
+	/**
+	 * @return property name of the getter, null if the method is not a getter
+	 */
+	private static String getPropertyName(Method method) {
+		if (method.getParameterTypes().length != 0 || method.getReturnType() == void.class) {
+			return null;
+		}
+		String name = method.getName();
+		if (name.startsWith("get") && name.length() > 3) {
+			return Introspector.decapitalize(name.substring(3));
+		} else if (name.startsWith("is") && name.length() > 2
+				&& (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+			return Introspector.decapitalize(name.substring(2));
+		}
+		return null;
+	}
+
+	public EntityMetadata getEntity() {
+		return entity;
+	}
+
+	public Class<P> getResultType() {
+		return resultType;
+	}
+
+	/**
+	 * @return selected persisted properties, in the declaring order of the entity
+	 */
+	public List<PropertyMetadata> getProperties() {
+		return properties;
+	}
+
+	/**
+	 * @return comma separated column names of the selected properties, e.g. <code>id, name</code>
+	 */
+	public String getSelectList() {
+		return selectList;
+	}
+
+	/**
+	 * @return row mapper of the rows selected by {@link #getSelectList()}, columns are read by index
+	 */
+	public RowMapper<P> getRowMapper() {
+		return rowMapper;
+	}
+
+	@Override
+	public String toString() {
+		return "Projection [" + entity.getEntityClass().getName() + " as " + resultType.getName() + ": " + selectList
+				+ "]";
+	}
+
+	private class ProjectionRowMapper implements RowMapper<P> {
+
+		@Override
+		public P mapRow(ResultSet rs, int rowNum) throws SQLException {
+			if (getters != null) {
+				Object[] values = new Object[valueTypes.length];
+				for (int i = 0; i < values.length; i++) {
+					values[i] = JdbcUtils.getResultSetValue(rs, i + 1, valueTypes[i]);
+				}
+				return resultType.cast(Proxy.newProxyInstance(resultType.getClassLoader(), new Class<?>[] { resultType },
+						new ProjectionHandler(values)));
+			}
+
+			P result = BeanUtils.instantiateClass(resultType);
+			for (int i = 0; i < valueTypes.length; i++) {
+				Object value = JdbcUtils.getResultSetValue(rs, i + 1, valueTypes[i]);
+				// keep the default value of primitives
+				if (value == null && valueTypes[i].isPrimitive()) {
+					continue;
+				}
+				if (setters != null) {
+					ReflectionUtils.invokeMethod(setters[i], result, value);
+				} else {
+					properties.get(i).setValue(result, value);
+				}
+			}
+			return result;
+		}
+
+	}
+
+	private class ProjectionHandler implements InvocationHandler {
+
+		private final Object[] values;
+
+		ProjectionHandler(Object[] values) {
+			this.values = values;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Integer index = getters.get(method);
+			if (index != null) {
+				// NULL of a primitive getter is the default value, as DTO properties keep it
+				Object value = values[index];
+				return value == null && method.getReturnType().isPrimitive()
+						? Defaults.defaultValue(method.getReturnType()) : value;
+			}
+			String name = method.getName();
+			if (name.equals("equals") && args != null && args.length == 1) {
+				return proxy == args[0];
+			} else if (name.equals("hashCode") && args == null) {
+				return System.identityHashCode(proxy);
+			} else if (name.equals("toString") && args == null) {
+				StringBuilder sb = new StringBuilder(resultType.getSimpleName()).append(" [");
+				for (int i = 0; i < values.length; i++) {
+					sb.append(i == 0 ? "" : ", ").append(properties.get(i).getName()).append("=").append(values[i]);
+				}
+				return sb.append("]").toString();
+			}
+			throw new UnsupportedOperationException(method.toString());
+		}
+
+	}
+
+}
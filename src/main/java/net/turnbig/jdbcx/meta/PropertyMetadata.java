@@ -0,0 +1,138 @@
+/**
+ * @(#)PropertyMetadata.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ *
+ */
+package net.turnbig.jdbcx.meta;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ *
+ * A persisted property of an entity, with its column name, JDBC type and resolved accessors.
+ *
+ * <li>values are read by the getter and written by the setter, the field is used when no accessor is declared</li>
+ * <li>JDBC type is detected from the java type once, unknown types are left to the driver</li>
+ *
+ * Instances are immutable.
+ *
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class PropertyMetadata {
+
+	private final String name;
+	private final String columnName;
+	private final Class<?> type;
+	private final int sqlType;
+	private final Field field;
+	private final Method readMethod;
+	private final Method writeMethod;
+	private final boolean id;
+	private final boolean version;
+	private final boolean unique;
+
+	PropertyMetadata(String name, String columnName, Field field, Method readMethod, Method writeMethod, boolean id,
+			boolean version, boolean unique) {
+		this.name = name;
+		this.columnName = columnName;
+		this.type = field.getType();
+		this.sqlType = StatementCreatorUtils.javaTypeToSqlParameterType(type);
+		this.field = field;
+		this.readMethod = readMethod;
+		this.writeMethod = writeMethod;
+		this.id = id;
+		this.version = version;
+		this.unique = unique;
+		ReflectionUtils.makeAccessible(field);
+		if (readMethod != null) {
+			ReflectionUtils.makeAccessible(readMethod);
+		}
+		if (writeMethod != null) {
+			ReflectionUtils.makeAccessible(writeMethod);
+		}
+	}
+
+	/**
+	 * @param bean
+	 * @return property value of the bean
+	 */
+	public Object getValue(Object bean) {
+		if (readMethod != null) {
+			return ReflectionUtils.invokeMethod(readMethod, bean);
+		}
+		return ReflectionUtils.getField(field, bean);
+	}
+
+	/**
+	 * @param bean
+	 * @param value value of the property type, no conversion is applied
+	 */
+	public void setValue(Object bean, Object value) {
+		if (writeMethod != null) {
+			ReflectionUtils.invokeMethod(writeMethod, bean, value);
+		} else {
+			ReflectionUtils.setField(field, bean, value);
+		}
+	}
+
+	/**
+	 * @return property name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return column name, @Column(name) or the underscored property name
+	 */
+	public String getColumnName() {
+		return columnName;
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * @return JDBC type of the property type, {@link org.springframework.jdbc.support.JdbcUtils#TYPE_UNKNOWN} if unknown
+	 */
+	public int getSqlType() {
+		return sqlType;
+	}
+
+	public Field getField() {
+		return field;
+	}
+
+	public boolean isId() {
+		return id;
+	}
+
+	/**
+	 * @return whether the property is annotated by @Version
+	 */
+	public boolean isVersion() {
+		return version;
+	}
+
+	/**
+	 * @return whether the column is declared as @Column(unique = true)
+	 */
+	public boolean isUnique() {
+		return unique;
+	}
+
+	@Override
+	public String toString() {
+		return name + "(" + columnName + ")";
+	}
+
+}
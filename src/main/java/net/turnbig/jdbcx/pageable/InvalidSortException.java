@@ -0,0 +1,36 @@
+/**
+ * @(#)InvalidSortException.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.pageable;
+
+/**
+ * 
+ * the requested sort property is not allowed to sort by
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class InvalidSortException extends IllegalArgumentException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String property;
+
+	public InvalidSortException(String property) {
+		super("Sorting by [" + property + "] is not allowed");
+		this.property = property;
+	}
+
+	/**
+	 * @return the property
+	 */
+	public String getProperty() {
+		return property;
+	}
+
+}
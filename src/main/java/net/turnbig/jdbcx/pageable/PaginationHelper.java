@@ -53,6 +53,30 @@ public class PaginationHelper {
 		return getPagination(DEFAULT_PAGE_SIZE, sortby);
 	}
 
+	/**
+	 * @param sortable sortable columns of the queried table, sort by other columns are rejected
+	 * @return
+	 */
+	public PageRequest getPaginationBy(SortableColumns sortable) {
+		return getPagination(DEFAULT_PAGE_SIZE, null, sortable);
+	}
+
+	/**
+	 * 
+	 * get pagination with sort restricted to the sortable columns, the primary key is appended as tie-breaker
+	 * 
+	 * @param pageSize
+	 * @param sortby
+	 * @param sortable
+	 * @return
+	 * @throws InvalidSortException
+	 */
+	public PageRequest getPagination(Integer pageSize, String sortby, SortableColumns sortable) {
+		PageRequest pageRequest = getPagination(pageSize, sortby);
+		Sort sort = sortable.apply(pageRequest.getSort());
+		return new PageRequest(pageRequest.getPageNumber(), pageRequest.getPageSize(), sort);
+	}
+
 	public PageRequest getPagination(Integer pageSize, String sortby) {
 		String _sortby = context.getParameter(PAGINATION_ATTRNAME_SORT);
 		if (StringUtils.isNotBlank(_sortby)) {
@@ -0,0 +1,236 @@
+/**
+ * @(#)SortableColumns.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.pageable;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.domain.Sort.Order;
+import org.springframework.jdbc.support.DatabaseMetaDataCallback;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.util.Assert;
+
+import com.google.common.base.CaseFormat;
+
+/**
+ * 
+ * Whitelist of the columns which a client is allowed to sort by, normally the indexed columns.
+ * 
+ * <li>sort property could be the bean property (createdOn) or the column name (created_on)</li>
+ * <li>properties not in the whitelist are rejected ({@link InvalidSortException}) or ignored</li>
+ * <li>the primary key is always appended as tie-breaker, so rows of pages are stable</li>
+ * 
+ * <pre>
+ * SortableColumns sortable = SortableColumns.of("id", "name", "created_on");
+ * PageRequest pr = paginationHelper.getPagination(10, "-createdOn", sortable);
+ * // order by created_on desc, id desc
+ * </pre>
+ * 
+ * Instances are immutable.
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class SortableColumns {
+
+	public enum Policy {
+		/** throw {@link InvalidSortException} */
+		REJECT,
+		/** drop the order silently */
+		IGNORE
+	}
+
+	// lower-case property or column name -> column name
+	private final Map<String, String> columns;
+	private final String primaryKey;
+	private final Policy policy;
+
+	private SortableColumns(Map<String, String> columns, String primaryKey, Policy policy) {
+		this.columns = Collections.unmodifiableMap(columns);
+		this.primaryKey = primaryKey;
+		this.policy = policy;
+	}
+
+	/**
+	 * @param primaryKey	primary key column, used as tie-breaker, could be null
+	 * @param columns		other sortable columns
+	 * @return
+	 */
+	public static SortableColumns of(String primaryKey, String... columns) {
+		Map<String, String> map = new LinkedHashMap<String, String>();
+		if (primaryKey != null) {
+			register(map, primaryKey);
+		}
+		for (String column : columns) {
+			register(map, column);
+		}
+		return new SortableColumns(map, primaryKey, Policy.REJECT);
+	}
+
+	/**
+	 * 
+	 * read sortable columns from index meta-data of the table, the primary key and 
+	 * the leading column of each index are sortable.
+	 * 
+	 * @param dataSource
+	 * @param table
+	 * @param primaryKey	primary key column if there is no primary key constraint, could be null
+	 * @return
+	 * @throws MetaDataAccessException
+	 */
+	public static SortableColumns fromIndexes(DataSource dataSource, final String table, final String primaryKey)
+			throws MetaDataAccessException {
+		return (SortableColumns) JdbcUtils.extractDatabaseMetaData(dataSource, new DatabaseMetaDataCallback() {
+
+			@Override
+			public Object processMetaData(DatabaseMetaData dbmd) throws SQLException, MetaDataAccessException {
+				// identifiers may be stored in upper or lower case
+				String[] candidates = { table, table.toUpperCase(Locale.ENGLISH), table.toLowerCase(Locale.ENGLISH) };
+				String pk = null;
+				List<String> indexed = new ArrayList<String>();
+				for (String candidate : candidates) {
+					ResultSet keys = dbmd.getPrimaryKeys(null, null, candidate);
+					try {
+						while (keys.next()) {
+							if (keys.getShort("KEY_SEQ") == 1) {
+								pk = keys.getString("COLUMN_NAME");
+							}
+						}
+					} finally {
+						JdbcUtils.closeResultSet(keys);
+					}
+
+					ResultSet rs = dbmd.getIndexInfo(null, null, candidate, false, true);
+					try {
+						while (rs.next()) {
+							String column = rs.getString("COLUMN_NAME");
+							if (rs.getShort("ORDINAL_POSITION") == 1 && column != null) {
+								indexed.add(column);
+							}
+						}
+					} finally {
+						JdbcUtils.closeResultSet(rs);
+					}
+
+					if (pk != null || !indexed.isEmpty()) {
+						break;
+					}
+				}
+				return of(pk != null ? pk : primaryKey, indexed.toArray(new String[indexed.size()]));
+			}
+		});
+	}
+
+	/**
+	 * @param columns
+	 * @return a copy with more sortable columns
+	 */
+	public SortableColumns with(String... columns) {
+		Map<String, String> map = new LinkedHashMap<String, String>(this.columns);
+		for (String column : columns) {
+			register(map, column);
+		}
+		return new SortableColumns(map, primaryKey, policy);
+	}
+
+	/**
+	 * @param policy
+	 * @return a copy with the policy of unsortable properties
+	 */
+	public SortableColumns withPolicy(Policy policy) {
+		Assert.notNull(policy, "policy must not be null");
+		return new SortableColumns(new LinkedHashMap<String, String>(columns), primaryKey, policy);
+	}
+
+	/**
+	 * @param property bean property or column name
+	 * @return
+	 */
+	public boolean isSortable(String property) {
+		return getColumn(property) != null;
+	}
+
+	/**
+	 * @param property bean property or column name
+	 * @return the column name, or null if not sortable
+	 */
+	public String getColumn(String property) {
+		return property == null ? null : columns.get(property.toLowerCase(Locale.ENGLISH));
+	}
+
+	/**
+	 * 
+	 * map sort properties to sortable columns, and append the primary key as tie-breaker
+	 * 
+	 * @param sort could be null
+	 * @return sort by columns, null if nothing to sort
+	 * @throws InvalidSortException if property is not sortable and policy is {@link Policy#REJECT}
+	 */
+	public Sort apply(Sort sort) {
+		List<Order> orders = new ArrayList<Order>();
+		boolean pkIncluded = false;
+		Direction last = Direction.ASC;
+		if (sort != null) {
+			for (Order order : sort) {
+				String column = getColumn(order.getProperty());
+				if (column == null) {
+					if (policy == Policy.REJECT) {
+						throw new InvalidSortException(order.getProperty());
+					}
+					continue;
+				}
+				orders.add(new Order(order.getDirection(), column));
+				pkIncluded = pkIncluded || column.equalsIgnoreCase(primaryKey);
+				last = order.getDirection();
+			}
+		}
+
+		if (primaryKey != null && !pkIncluded) {
+			orders.add(new Order(last, primaryKey));
+		}
+		return orders.isEmpty() ? null : new Sort(orders);
+	}
+
+	public String getPrimaryKey() {
+		return primaryKey;
+	}
+
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	private static void register(Map<String, String> map, String column) {
+		Assert.hasText(column, "column must not be empty");
+		map.put(column.toLowerCase(Locale.ENGLISH), column);
+		String property = CaseFormat.LOWER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, column.toLowerCase(Locale.ENGLISH));
+		if (!map.containsKey(property.toLowerCase(Locale.ENGLISH))) {
+			map.put(property.toLowerCase(Locale.ENGLISH), column);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SortableColumns [columns=" + new LinkedHashSet<String>(columns.values()) + ", primaryKey=" + primaryKey + ", policy=" + policy
+				+ "]";
+	}
+
+}
@@ -0,0 +1,212 @@
+/**
+ * @(#)BeanParameterBinding.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ *
+ */
+package net.turnbig.jdbcx.params;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.core.namedparam.AbstractSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import net.turnbig.jdbcx.meta.EntityMetadata;
+import net.turnbig.jdbcx.meta.PropertyMetadata;
+
+/**
+ *
+ * Precomputed binding of a bean class to the named parameters of a SQL, cached by (class, SQL).
+ *
+ * <li>each parameter is resolved once to the accessor and JDBC type of the persisted property</li>
+ * <li>if every parameter is a scalar persisted property, the binding is positional: values are set to the
+ * 		prepared statement directly, no parameter source, bean wrapper or value array is created for each bean</li>
+ * <li>otherwise {@link #newParameterSource(Object)} reads persisted properties by the accessors and other
+ * 		(nested) properties by a bean wrapper, which is created only when needed</li>
+ *
+ * <pre>
+ * BeanParameterBinding binding = BeanParameterBinding.of(Member.class, sql, parsedSql);
+ * jdbcOperations.batchUpdate(binding.getPositionalSql(), binding.newBatchSetter(members));
+ * </pre>
+ *
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class BeanParameterBinding {
+
+	// max bindings kept, keyed by [bean class, SQL]
+	private static final int BINDING_CACHE_SIZE = 4096;
+
+	private static final Cache<List<Object>, BeanParameterBinding> BINDINGS = CacheBuilder.newBuilder()
+			.maximumSize(BINDING_CACHE_SIZE).build();
+
+	private final EntityMetadata metadata;
+	// parameters in placeholder order, duplicated names included
+	private final PropertyMetadata[] properties;
+	private final int[] sqlTypes;
+	// SQL with ? placeholders, null if the binding is not positional
+	private final String positionalSql;
+
+	/**
+	 * @param beanClass
+	 * @param sql the named-parameter SQL, used as cache key
+	 * @param parsedSql parsed SQL of the named-parameter SQL
+	 * @return the cached binding
+	 */
+	public static BeanParameterBinding of(Class<?> beanClass, String sql, ParsedSql parsedSql) {
+		List<Object> key = Arrays.<Object> asList(beanClass, sql);
+		BeanParameterBinding binding = BINDINGS.getIfPresent(key);
+		if (binding == null) {
+			binding = new BeanParameterBinding(EntityMetadata.of(beanClass), parsedSql);
+			BINDINGS.put(key, binding);
+		}
+		return binding;
+	}
+
+	/**
+	 * @param bean
+	 * @return parameter source of the bean for any SQL, persisted properties are read by the accessors and JDBC
+	 *         types of the cached {@link EntityMetadata}, other (nested) properties by a bean wrapper
+	 */
+	public static AbstractSqlParameterSource forBean(Object bean) {
+		return new BoundParameterSource(EntityMetadata.of(bean.getClass()), bean);
+	}
+
+	private BeanParameterBinding(EntityMetadata metadata, ParsedSql parsedSql) {
+		this.metadata = metadata;
+		List<SqlParameter> parameters = NamedParameterUtils.buildSqlParameterList(parsedSql,
+				EmptySqlParameterSource.INSTANCE);
+		this.properties = new PropertyMetadata[parameters.size()];
+		this.sqlTypes = new int[parameters.size()];
+		boolean positional = true;
+		for (int i = 0; i < properties.length; i++) {
+			PropertyMetadata property = metadata.getProperty(parameters.get(i).getName());
+			properties[i] = property;
+			sqlTypes[i] = property == null ? JdbcUtils.TYPE_UNKNOWN : property.getSqlType();
+			positional &= property != null && isScalar(property.getType());
+		}
+		this.positionalSql = positional ? NamedParameterUtils.substituteNamedParameters(parsedSql, null) : null;
+	}
+
+	/**
+	 * collection and object array values are expanded to multiple placeholders, so they are not scalar,
+	 * neither is Object which may hold them
+	 */
+	private static boolean isScalar(Class<?> type) {
+		return type != Object.class && !Collection.class.isAssignableFrom(type)
+				&& !(type.isArray() && !type.getComponentType().isPrimitive());
+	}
+
+	/**
+	 * @return whether values could be set by {@link #setValues(PreparedStatement, Object)}
+	 */
+	public boolean isPositional() {
+		return positionalSql != null;
+	}
+
+	/**
+	 * @return SQL with ? placeholders, null if the binding is not positional
+	 */
+	public String getPositionalSql() {
+		return positionalSql;
+	}
+
+	/**
+	 * set values of the bean to the prepared statement of {@link #getPositionalSql()}
+	 *
+	 * @param ps
+	 * @param bean
+	 * @throws SQLException
+	 */
+	public void setValues(PreparedStatement ps, Object bean) throws SQLException {
+		for (int i = 0; i < properties.length; i++) {
+			StatementCreatorUtils.setParameterValue(ps, i + 1, sqlTypes[i], properties[i].getValue(bean));
+		}
+	}
+
+	/**
+	 * @param beans beans of the binding class
+	 * @return batch setter of {@link #getPositionalSql()}
+	 */
+	public BatchPreparedStatementSetter newBatchSetter(final List<?> beans) {
+		return new BatchPreparedStatementSetter() {
+
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				BeanParameterBinding.this.setValues(ps, beans.get(i));
+			}
+
+			@Override
+			public int getBatchSize() {
+				return beans.size();
+			}
+		};
+	}
+
+	/**
+	 * @param bean
+	 * @return parameter source of the bean, for the SQL which could not be bound positionally
+	 */
+	public SqlParameterSource newParameterSource(Object bean) {
+		return new BoundParameterSource(metadata, bean);
+	}
+
+	private static class BoundParameterSource extends AbstractSqlParameterSource {
+
+		private final EntityMetadata metadata;
+		private final Object bean;
+		private BeanPropertySqlParameterSource fallback;
+
+		BoundParameterSource(EntityMetadata metadata, Object bean) {
+			this.metadata = metadata;
+			this.bean = bean;
+		}
+
+		private BeanPropertySqlParameterSource getFallback() {
+			if (fallback == null) {
+				fallback = new BeanPropertySqlParameterSource(bean);
+			}
+			return fallback;
+		}
+
+		@Override
+		public boolean hasValue(String paramName) {
+			return metadata.getProperty(paramName) != null || getFallback().hasValue(paramName);
+		}
+
+		@Override
+		public Object getValue(String paramName) throws IllegalArgumentException {
+			PropertyMetadata property = metadata.getProperty(paramName);
+			return property != null ? property.getValue(bean) : getFallback().getValue(paramName);
+		}
+
+		@Override
+		public int getSqlType(String paramName) {
+			int sqlType = super.getSqlType(paramName);
+			if (sqlType != TYPE_UNKNOWN) {
+				return sqlType;
+			}
+			PropertyMetadata property = metadata.getProperty(paramName);
+			return property != null ? property.getSqlType() : getFallback().getSqlType(paramName);
+		}
+
+	}
+
+}
@@ -0,0 +1,188 @@
+/**
+ * @(#)InListPaddingSqlParameterSource.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.params;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * 
+ * A parameter source which pads collection parameters to bucket sizes by repeating the last value.
+ * 
+ * Spring expands <code>where id in (:id)</code> to one placeholder for each element, so every list size produces 
+ * a different SQL which blows up the statement cache and the database's plan cache. With padding, only a handful of
+ * distinct statements exist for each query:
+ * 
+ * <li>only the parameters which are the whole list of an <code>in (:name)</code> are padded, collections used
+ * 		elsewhere (<code>values (:vals)</code>, <code>func(:list)</code> ...) are expanded as they are</li>
+ * <li>size 1 is kept, others are padded to the next power of two (2, 4, 8, 16 ...)</li>
+ * <li>padded size never goes over 1000 (Oracle IN-list limit) unless the original size does</li>
+ * <li>collections of Object[] (tuple lists, ex: insert values) are never padded</li>
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class InListPaddingSqlParameterSource implements SqlParameterSource {
+
+	public static final int MAX_PADDED_SIZE = 1000;
+
+	private static final Pattern IN_LIST_PARAMETER = Pattern.compile("\\bin\\s*\\(\\s*:([\\w.]+)\\s*\\)",
+			Pattern.CASE_INSENSITIVE);
+
+	// names of in-list parameters, weak keys (compared by identity) so parsed SQL evicted from cache is released
+	private static final Cache<ParsedSql, Set<String>> IN_LIST_PARAMETERS = CacheBuilder.newBuilder().weakKeys()
+			.build();
+
+	private final SqlParameterSource delegate;
+	private final Set<String> inListParameters;
+
+	/**
+	 * @param delegate
+	 * @param inListParameters names of the parameters to be padded, see {@link #getInListParameters(ParsedSql)}
+	 */
+	public InListPaddingSqlParameterSource(SqlParameterSource delegate, Set<String> inListParameters) {
+		this.delegate = delegate;
+		this.inListParameters = inListParameters;
+	}
+
+	/**
+	 * @param parsedSql
+	 * @return names of the parameters which are the whole list of an <code>in (...)</code>, detected once for 
+	 * 		each parsed SQL
+	 */
+	public static Set<String> getInListParameters(ParsedSql parsedSql) {
+		Set<String> names = IN_LIST_PARAMETERS.getIfPresent(parsedSql);
+		if (names == null) {
+			names = new HashSet<String>();
+			// toString() is the original SQL
+			Matcher matcher = IN_LIST_PARAMETER.matcher(blankLiteralsAndComments(parsedSql.toString()));
+			while (matcher.find()) {
+				names.add(matcher.group(1));
+			}
+			names = Collections.unmodifiableSet(names);
+			IN_LIST_PARAMETERS.put(parsedSql, names);
+		}
+		return names;
+	}
+
+	/**
+	 * @param sql
+	 * @return the SQL with quoted literals (identifiers) and comments replaced by blanks, skipped as
+	 * 		{@link org.springframework.jdbc.core.namedparam.NamedParameterUtils} does when parsing parameters
+	 */
+	private static String blankLiteralsAndComments(String sql) {
+		char[] chars = sql.toCharArray();
+		int i = 0;
+		while (i < chars.length) {
+			int end;
+			if (chars[i] == '\'' || chars[i] == '"') {
+				end = sql.indexOf(chars[i], i + 1);
+			} else if (sql.startsWith("--", i)) {
+				end = sql.indexOf('\n', i + 2);
+			} else if (sql.startsWith("/*", i)) {
+				end = sql.indexOf("*/", i + 2);
+				end = end < 0 ? end : end + 1;
+			} else {
+				i++;
+				continue;
+			}
+			end = end < 0 ? chars.length - 1 : end;
+			for (int j = i; j <= end; j++) {
+				chars[j] = ' ';
+			}
+			i = end + 1;
+		}
+		return new String(chars);
+	}
+
+	@Override
+	public boolean hasValue(String paramName) {
+		return delegate.hasValue(paramName);
+	}
+
+	@Override
+	public Object getValue(String paramName) throws IllegalArgumentException {
+		Object value = delegate.getValue(paramName);
+		return inListParameters.contains(paramName) ? pad(value) : value;
+	}
+
+	@Override
+	public int getSqlType(String paramName) {
+		return delegate.getSqlType(paramName);
+	}
+
+	@Override
+	public String getTypeName(String paramName) {
+		return delegate.getTypeName(paramName);
+	}
+
+	/**
+	 * @param value
+	 * @return padded collection if the value is a collection, else the value itself
+	 */
+	public static Object pad(Object value) {
+		if (value instanceof SqlParameterValue) {
+			SqlParameterValue parameterValue = (SqlParameterValue) value;
+			Object padded = pad(parameterValue.getValue());
+			return padded == parameterValue.getValue() ? value : new SqlParameterValue(parameterValue, padded);
+		}
+
+		if (!(value instanceof Collection)) {
+			return value;
+		}
+
+		Collection<?> collection = (Collection<?>) value;
+		int size = collection.size();
+		int bucketSize = bucketSize(size);
+		if (bucketSize == size) {
+			return value;
+		}
+
+		List<Object> padded = new ArrayList<Object>(bucketSize);
+		Object last = null;
+		for (Object element : collection) {
+			if (element instanceof Object[]) {
+				// tuple list, should not be padded
+				return value;
+			}
+			padded.add(element);
+			last = element;
+		}
+		while (padded.size() < bucketSize) {
+			padded.add(last);
+		}
+		return padded;
+	}
+
+	/**
+	 * @param size
+	 * @return the bucket size for the collection size
+	 */
+	public static int bucketSize(int size) {
+		if (size <= 1 || size > MAX_PADDED_SIZE) {
+			return size;
+		}
+		int bucket = Integer.highestOneBit(size - 1) << 1;
+		return Math.min(bucket, MAX_PADDED_SIZE);
+	}
+
+}
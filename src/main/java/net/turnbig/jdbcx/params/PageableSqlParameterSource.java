@@ -0,0 +1,83 @@
+/**
+ * @(#)PageableSqlParameterSource.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.params;
+
+import java.sql.Types;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import net.turnbig.jdbcx.dialect.SelectSqlUtils;
+
+/**
+ * 
+ * A parameter source which provides the row numbers of a page, paged SQL binds them as named parameters:
+ * 
+ * <li>:jdbcxPageOffset - rows skipped</li>
+ * <li>:jdbcxPageSize - rows of a page</li>
+ * <li>:jdbcxPageEndRow - offset + size</li>
+ * 
+ * other parameters are read from the delegate, which always wins if it has a parameter with the same name.
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class PageableSqlParameterSource implements SqlParameterSource {
+
+	private final SqlParameterSource delegate;
+	private final Pageable pageable;
+
+	public PageableSqlParameterSource(SqlParameterSource delegate, Pageable pageable) {
+		this.delegate = delegate;
+		this.pageable = pageable;
+	}
+
+	@Override
+	public boolean hasValue(String paramName) {
+		return delegate.hasValue(paramName) || isPageParam(paramName);
+	}
+
+	@Override
+	public Object getValue(String paramName) throws IllegalArgumentException {
+		if (delegate.hasValue(paramName) || !isPageParam(paramName)) {
+			return delegate.getValue(paramName);
+		}
+
+		long offset = pageable.getOffset();
+		if (SelectSqlUtils.OFFSET_PARAM.equals(paramName)) {
+			return offset;
+		} else if (SelectSqlUtils.PAGE_SIZE_PARAM.equals(paramName)) {
+			return (long) pageable.getPageSize();
+		} else {
+			return offset + pageable.getPageSize();
+		}
+	}
+
+	@Override
+	public int getSqlType(String paramName) {
+		if (delegate.hasValue(paramName) || !isPageParam(paramName)) {
+			return delegate.getSqlType(paramName);
+		}
+		return Types.BIGINT;
+	}
+
+	@Override
+	public String getTypeName(String paramName) {
+		if (delegate.hasValue(paramName) || !isPageParam(paramName)) {
+			return delegate.getTypeName(paramName);
+		}
+		return null;
+	}
+
+	private static boolean isPageParam(String paramName) {
+		return SelectSqlUtils.OFFSET_PARAM.equals(paramName) || SelectSqlUtils.PAGE_SIZE_PARAM.equals(paramName)
+				|| SelectSqlUtils.END_ROW_PARAM.equals(paramName);
+	}
+
+}
@@ -3,70 +3,67 @@
  *
  * Copyright 2008-2016 by Woo Cupid.
  * All rights reserved.
- * 
+ *
  */
 package net.turnbig.jdbcx.params;
 
-import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.jdbc.core.namedparam.AbstractSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 
 /**
+ *
+ * persisted properties are read by the accessors and JDBC types of the cached
+ * {@link net.turnbig.jdbcx.meta.EntityMetadata}, nested paths and other bean properties are resolved by the bean
+ * wrapper. A type registered for a parameter wins over the type of the property.
+ *
+ * @deprecated beans are bound by {@link BeanParameterBinding} in the DAO, use {@link BeanParameterBinding#forBean(Object)}
+ *             for a standalone parameter source
+ *
  * @author Woo Cupid
  * @date 2016年4月24日
  * @version $Revision$
  */
+@Deprecated
 public class RichBeanPropertySqlParameterSource extends BeanPropertySqlParameterSource {
 
-	protected BeanWrapper beanWrapper;
+	private final AbstractSqlParameterSource delegate;
 
 	/**
 	 * @param object
 	 */
 	public RichBeanPropertySqlParameterSource(Object object) {
 		super(object);
-		this.beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(object);
+		this.delegate = BeanParameterBinding.forBean(object);
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource#getValue(java.lang.String)
-	 */
-	// @Override
-	// public Object getValue(String paramName) throws IllegalArgumentException {
-	// Object value = super.getValue(paramName);
-	// if (value instanceof List) {
-	// List list = (List) value;
-	// Array[] a = new Array[list.size()];
-	// for (int i = 0; i < list.size(); i++) {
-	// }
-	// // for (Object object : list) {
-	// // a
-	// // }
-	// return a;
-	// }
-	// return value;
-	// }
+	@Override
+	public boolean hasValue(String paramName) {
+		return delegate.hasValue(paramName);
+	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource#getSqlType(java.lang.String)
-	 */
-	// @Override
-	// public int getSqlType(String paramName) {
-	// int sqlType = super.getSqlType(paramName);
-	// if (sqlType != TYPE_UNKNOWN) {
-	// return sqlType;
-	// }
-	//
-	// Class<?> propType = this.beanWrapper.getPropertyType(paramName);
-	// if (List.class.isAssignableFrom(propType)) {
-	// return Types.ARRAY;
-	// }
-	//
-	// return sqlType;
-	// }
+	@Override
+	public Object getValue(String paramName) throws IllegalArgumentException {
+		return delegate.getValue(paramName);
+	}
+
+	@Override
+	public int getSqlType(String paramName) {
+		return delegate.getSqlType(paramName);
+	}
+
+	@Override
+	public void registerSqlType(String paramName, int sqlType) {
+		delegate.registerSqlType(paramName, sqlType);
+	}
+
+	@Override
+	public String getTypeName(String paramName) {
+		return delegate.getTypeName(paramName);
+	}
+
+	@Override
+	public void registerTypeName(String paramName, String typeName) {
+		delegate.registerTypeName(paramName, typeName);
+	}
 
 }
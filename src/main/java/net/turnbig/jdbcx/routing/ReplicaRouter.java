@@ -0,0 +1,205 @@
+/**
+ * @(#)ReplicaRouter.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.routing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+/**
+ * 
+ * Route reads of JDBCX DAO to replica data-sources, define a bean to enable it:
+ * 
+ * <pre>
+ * &#64;Bean
+ * public ReplicaRouter replicaRouter() {
+ * 	ReplicaRouter router = new ReplicaRouter(Arrays.asList(replica1, replica2), LoadBalance.LEAST_LOADED);
+ * 	router.setStickinessMillis(1000);
+ * 	return router;
+ * }
+ * </pre>
+ * 
+ * reads go to the primary when:
+ * <li>a transaction is active (the connection is bound to the primary)</li>
+ * <li>the current thread wrote in the last {@link #setStickinessMillis(long)} milliseconds (read your writes)</li>
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class ReplicaRouter {
+
+	public static final int PRIMARY = -1;
+
+	public enum LoadBalance {
+		/** replicas in turn */
+		ROUND_ROBIN,
+		/** replica with least connections in use */
+		LEAST_LOADED
+	}
+
+	private final List<CountingDataSource> replicas;
+	private final LoadBalance loadBalance;
+	private final AtomicInteger next = new AtomicInteger();
+	private final ThreadLocal<Long> lastWrite = new ThreadLocal<Long>();
+	private volatile long stickinessMillis = 0;
+
+	public ReplicaRouter(List<DataSource> replicas) {
+		this(replicas, LoadBalance.ROUND_ROBIN);
+	}
+
+	public ReplicaRouter(List<DataSource> replicas, LoadBalance loadBalance) {
+		Assert.notEmpty(replicas, "replicas must not be empty");
+		Assert.notNull(loadBalance, "load balance must not be null");
+		List<CountingDataSource> list = new ArrayList<CountingDataSource>(replicas.size());
+		for (DataSource replica : replicas) {
+			list.add(new CountingDataSource(replica));
+		}
+		this.replicas = Collections.unmodifiableList(list);
+		this.loadBalance = loadBalance;
+	}
+
+	/**
+	 * @return index of the replica to read from, or {@link #PRIMARY}
+	 */
+	public int route() {
+		if (TransactionSynchronizationManager.isActualTransactionActive() || isSticky()) {
+			return PRIMARY;
+		}
+		if (replicas.size() == 1) {
+			return 0;
+		}
+
+		if (loadBalance == LoadBalance.LEAST_LOADED) {
+			int least = 0;
+			for (int i = 1; i < replicas.size(); i++) {
+				if (replicas.get(i).getActive() < replicas.get(least).getActive()) {
+					least = i;
+				}
+			}
+			return least;
+		}
+		return (next.getAndIncrement() & Integer.MAX_VALUE) % replicas.size();
+	}
+
+	/**
+	 * record a write of current thread, following reads stick to the primary in the stickiness window
+	 */
+	public void markWrite() {
+		if (stickinessMillis > 0) {
+			lastWrite.set(System.currentTimeMillis());
+		}
+	}
+
+	private boolean isSticky() {
+		Long last = lastWrite.get();
+		if (last == null) {
+			return false;
+		}
+		if (System.currentTimeMillis() - last < stickinessMillis) {
+			return true;
+		}
+		lastWrite.remove();
+		return false;
+	}
+
+	/**
+	 * @return replicas, connections in use are counted for least-loaded balance
+	 */
+	public List<? extends DataSource> getReplicas() {
+		return replicas;
+	}
+
+	/**
+	 * @param index
+	 * @return connections in use of the replica
+	 */
+	public int getActiveConnections(int index) {
+		return replicas.get(index).getActive();
+	}
+
+	public LoadBalance getLoadBalance() {
+		return loadBalance;
+	}
+
+	public long getStickinessMillis() {
+		return stickinessMillis;
+	}
+
+	/**
+	 * @param stickinessMillis reads of a thread go to the primary for the time after its write, 0 to disable
+	 */
+	public void setStickinessMillis(long stickinessMillis) {
+		this.stickinessMillis = stickinessMillis;
+	}
+
+	/**
+	 * counts connections which are not closed yet
+	 */
+	static class CountingDataSource extends DelegatingDataSource {
+
+		private final AtomicInteger active = new AtomicInteger();
+
+		CountingDataSource(DataSource target) {
+			super(target);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return count(super.getConnection());
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return count(super.getConnection(username, password));
+		}
+
+		int getActive() {
+			return active.get();
+		}
+
+		private Connection count(final Connection target) {
+			active.incrementAndGet();
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, new InvocationHandler() {
+						private boolean closed;
+
+						@Override
+						public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+							if (method.getName().equals("close") && !closed) {
+								closed = true;
+								active.decrementAndGet();
+							} else if (method.getName().equals("equals")) {
+								return proxy == args[0];
+							} else if (method.getName().equals("hashCode")) {
+								return System.identityHashCode(proxy);
+							}
+							try {
+								return method.invoke(target, args);
+							} catch (InvocationTargetException e) {
+								throw e.getTargetException();
+							}
+						}
+					});
+		}
+	}
+
+}
@@ -0,0 +1,196 @@
+/**
+ * @(#)NamedStatement.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ *
+ */
+package net.turnbig.jdbcx.sql;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.util.Assert;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import net.turnbig.jdbcx.dialect.SQLDialect;
+import net.turnbig.jdbcx.dialect.UniqueKeys;
+import net.turnbig.jdbcx.dialect.impl.AbstractSQLDialect;
+
+/**
+ *
+ * A prepared-once named-parameter SQL handle.
+ *
+ * <li>the named parameters (:name) are parsed only once when the statement is created</li>
+ * <li>the result type which is used to choose row mapper when query, unless a row mapper is given</li>
+ * <li>count and pageable variants are generated once per dialect and cached</li>
+ *
+ * <pre>
+ * NamedStatement&lt;Member&gt; stmt = SQL.getStatement("member.query.createon.after", model, Member.class);
+ * List&lt;Member&gt; members = DAO.queryForList(stmt, params);
+ * </pre>
+ *
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class NamedStatement<T> {
+
+	// max pageable variants kept for each statement
+	private static final int PAGEABLE_VARIANTS_LIMIT = 32;
+
+	private final String sql;
+	private final ParsedSql parsedSql;
+	private final Class<T> resultType;
+	// null to choose by result type
+	private final RowMapper<T> rowMapper;
+
+	// keyed by dialect and unique keys
+	private final ConcurrentMap<List<Object>, NamedStatement<Integer>> countVariants = new ConcurrentHashMap<List<Object>, NamedStatement<Integer>>(
+			2);
+	private volatile Cache<List<Object>, NamedStatement<T>> pageableVariants;
+
+	public NamedStatement(String sql, Class<T> resultType) {
+		this(sql, NamedParameterUtils.parseSqlStatement(sql), resultType);
+	}
+
+	public NamedStatement(String sql, ParsedSql parsedSql, Class<T> resultType) {
+		this(sql, parsedSql, resultType, null);
+	}
+
+	/**
+	 * @param sql
+	 * @param resultType
+	 * @param rowMapper row mapper of the rows, used by the pageable variants too
+	 */
+	public NamedStatement(String sql, Class<T> resultType, RowMapper<T> rowMapper) {
+		this(sql, NamedParameterUtils.parseSqlStatement(sql), resultType, rowMapper);
+	}
+
+	public NamedStatement(String sql, ParsedSql parsedSql, Class<T> resultType, RowMapper<T> rowMapper) {
+		Assert.hasText(sql, "SQL must not be empty");
+		Assert.notNull(parsedSql, "parsed SQL must not be null");
+		Assert.notNull(resultType, "result type must not be null");
+		this.sql = sql;
+		this.parsedSql = parsedSql;
+		this.resultType = resultType;
+		this.rowMapper = rowMapper;
+	}
+
+	/**
+	 * statement which maps each row to a Map (column name to value)
+	 *
+	 * @param sql
+	 * @return
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static NamedStatement<Map<String, Object>> of(String sql) {
+		return new NamedStatement<Map<String, Object>>(sql, (Class) Map.class);
+	}
+
+	public static <T> NamedStatement<T> of(String sql, Class<T> resultType) {
+		return new NamedStatement<T>(sql, resultType);
+	}
+
+	/**
+	 *
+	 * get the count statement of this statement, generated once for each dialect
+	 *
+	 * @param dialect
+	 * @return
+	 */
+	public NamedStatement<Integer> getCountStatement(SQLDialect dialect) {
+		return getCountStatement(dialect, UniqueKeys.NONE);
+	}
+
+	/**
+	 *
+	 * get the count statement of this statement, generated once for each dialect and unique keys
+	 *
+	 * @param dialect
+	 * @param uniqueKeys	unique keys of the joined tables, only applied by {@link AbstractSQLDialect}
+	 * @return
+	 */
+	public NamedStatement<Integer> getCountStatement(SQLDialect dialect, UniqueKeys uniqueKeys) {
+		List<Object> key = Arrays.<Object> asList(dialect, uniqueKeys);
+		NamedStatement<Integer> count = countVariants.get(key);
+		if (count == null) {
+			String countSql = !uniqueKeys.isEmpty() && dialect instanceof AbstractSQLDialect
+					? ((AbstractSQLDialect) dialect).getCountSql(sql, uniqueKeys) : dialect.getCountSql(sql);
+			count = new NamedStatement<Integer>(countSql, Integer.class);
+			NamedStatement<Integer> exists = countVariants.putIfAbsent(key, count);
+			count = exists != null ? exists : count;
+		}
+		return count;
+	}
+
+	/**
+	 *
+	 * get the pageable statement of this statement, latest used variants are cached, 
+	 * row numbers are named parameters if the dialect is an {@link AbstractSQLDialect}, else literals
+	 *
+	 * @param dialect
+	 * @param pageable
+	 * @return
+	 */
+	public NamedStatement<T> getPageableStatement(SQLDialect dialect, Pageable pageable) {
+		List<Object> key = Arrays.<Object> asList(dialect, pageable);
+		Cache<List<Object>, NamedStatement<T>> variants = getPageableVariants();
+		NamedStatement<T> paged = variants.getIfPresent(key);
+		if (paged == null) {
+			String pagedSql = dialect instanceof AbstractSQLDialect
+					? ((AbstractSQLDialect) dialect).getPagedSql(sql, pageable.getSort()) : null;
+			if (pagedSql == null) {
+				pagedSql = dialect.getPageableSql(sql, pageable);
+			}
+			paged = new NamedStatement<T>(pagedSql, resultType, rowMapper);
+			variants.put(key, paged);
+		}
+		return paged;
+	}
+
+	private Cache<List<Object>, NamedStatement<T>> getPageableVariants() {
+		if (pageableVariants == null) {
+			synchronized (this) {
+				if (pageableVariants == null) {
+					pageableVariants = CacheBuilder.newBuilder().maximumSize(PAGEABLE_VARIANTS_LIMIT).build();
+				}
+			}
+		}
+		return pageableVariants;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public ParsedSql getParsedSql() {
+		return parsedSql;
+	}
+
+	public Class<T> getResultType() {
+		return resultType;
+	}
+
+	/**
+	 * @return row mapper given when created, null if the row mapper is chosen by the result type
+	 */
+	public RowMapper<T> getRowMapper() {
+		return rowMapper;
+	}
+
+	@Override
+	public String toString() {
+		return "NamedStatement [sql=" + sql + ", resultType=" + resultType.getName() + "]";
+	}
+
+}
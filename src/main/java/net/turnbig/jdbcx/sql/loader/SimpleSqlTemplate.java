@@ -0,0 +1,620 @@
+/**
+ * @(#)SimpleSqlTemplate.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ *
+ */
+package net.turnbig.jdbcx.sql.loader;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ *
+ * <h3>A light weight SQL template engine</h3>
+ *
+ * Most SQL templates only use <code>&lt;#if x??&gt;</code> blocks and plain text. A simple template is compiled once
+ * to a flat array of segments and predicates, and rendered directly against a Map or a Java bean without
+ * Freemarker's object wrapper and environment.
+ *
+ * <p>
+ * The syntax is a subset of Freemarker, so a simple template is always a legal Freemarker template:
+ * </p>
+ *
+ * <pre>
+ * &lt;#if cond&gt; ... &lt;#elseif cond&gt; ... &lt;#else&gt; ... &lt;/#if&gt;
+ * &lt;#list items as item&gt; ... ${item.name} ... &lt;#sep&gt;, &lt;/#list&gt;
+ * ${path.to.value}
+ * &lt;#-- comment --&gt;
+ *
+ * cond could be (joined with &amp;&amp; or ||, &amp;&amp; has higher priority):
+ * 	x??  !x??  x?has_content  !x?has_content  x  !x  x == 'v'  x != 'v'  (literal: 'str', "str", 10, true, false)
+ * </pre>
+ *
+ * <li>to enable, add engine="simple" attribute to a Templates (whole file) or a Template element</li>
+ * <li>white-space around tags is kept as it is</li>
+ * <li>missing or null value in ${} is an error as Freemarker does</li>
+ *
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class SimpleSqlTemplate {
+
+	public static final String ENGINE_NAME = "simple";
+
+	private static final int TEXT = 0;
+	private static final int VALUE = 1;
+	private static final int JUMP_IF_FALSE = 2;
+	private static final int JUMP = 3;
+	private static final int LIST = 4;
+	private static final int LIST_END = 5;
+	private static final int SEP = 6;
+
+	private final String name;
+	private final Segment[] segments;
+	private final int textLength;
+
+	private SimpleSqlTemplate(String name, Segment[] segments, int textLength) {
+		this.name = name;
+		this.segments = segments;
+		this.textLength = textLength;
+	}
+
+	public static boolean isSimpleEngine(String engine) {
+		return ENGINE_NAME.equalsIgnoreCase(StringUtils.trimWhitespace(engine));
+	}
+
+	/**
+	 * compile template source to segments
+	 *
+	 * @param name
+	 * @param source
+	 * @return
+	 */
+	public static SimpleSqlTemplate compile(String name, String source) {
+		return new Compiler(name, source).compile();
+	}
+
+	/**
+	 * render template with model (a Map or a Java bean, could be null)
+	 *
+	 * @param model
+	 * @return
+	 */
+	public String render(Object model) {
+		StringBuilder out = new StringBuilder(textLength + 32);
+		LoopFrame loop = null;
+		int pc = 0;
+		while (pc < segments.length) {
+			Segment segment = segments[pc];
+			switch (segment.op) {
+			case TEXT:
+				out.append(segment.text);
+				pc++;
+				break;
+			case VALUE:
+				Object value = resolve(segment.path, model, loop);
+				if (value == null) {
+					throw new IllegalArgumentException(
+							"[" + name + "] the expression ${" + segment.text + "} is null or missing");
+				}
+				out.append(value);
+				pc++;
+				break;
+			case JUMP_IF_FALSE:
+				pc = segment.condition.test(model, loop) ? pc + 1 : segment.target;
+				break;
+			case JUMP:
+				pc = segment.target;
+				break;
+			case LIST:
+				Iterator<?> iterator = iterate(resolve(segment.path, model, loop));
+				if (iterator.hasNext()) {
+					loop = new LoopFrame(segment.text, iterator, loop);
+					pc++;
+				} else {
+					pc = segment.target;
+				}
+				break;
+			case LIST_END:
+				if (loop.next()) {
+					pc = segment.target;
+				} else {
+					loop = loop.parent;
+					pc++;
+				}
+				break;
+			case SEP:
+				pc = loop.iterator.hasNext() ? pc + 1 : segment.target;
+				break;
+			default:
+				throw new IllegalStateException("unknown segment " + segment.op);
+			}
+		}
+		return out.toString();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	static Object resolve(String[] path, Object model, LoopFrame loop) {
+		Object current = null;
+		boolean found = false;
+		for (LoopFrame frame = loop; frame != null; frame = frame.parent) {
+			if (frame.var.equals(path[0])) {
+				current = frame.item;
+				found = true;
+				break;
+			}
+		}
+		if (!found) {
+			current = property(model, path[0]);
+		}
+		for (int i = 1; i < path.length && current != null; i++) {
+			current = property(current, path[i]);
+		}
+		return current;
+	}
+
+	static Object property(Object target, String property) {
+		if (target == null) {
+			return null;
+		}
+		if (target instanceof Map) {
+			return ((Map<?, ?>) target).get(property);
+		}
+		// property descriptors are cached by spring
+		PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(target.getClass(), property);
+		if (pd == null || pd.getReadMethod() == null) {
+			return null;
+		}
+		Method readMethod = pd.getReadMethod();
+		ReflectionUtils.makeAccessible(readMethod);
+		return ReflectionUtils.invokeMethod(readMethod, target);
+	}
+
+	static Iterator<?> iterate(Object value) {
+		if (value == null) {
+			return Collections.emptyList().iterator();
+		} else if (value instanceof Iterable) {
+			return ((Iterable<?>) value).iterator();
+		} else if (value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			List<Object> list = new ArrayList<Object>(length);
+			for (int i = 0; i < length; i++) {
+				list.add(Array.get(value, i));
+			}
+			return list.iterator();
+		} else if (value instanceof Map) {
+			return ((Map<?, ?>) value).values().iterator();
+		}
+		return Collections.singletonList(value).iterator();
+	}
+
+	static boolean hasContent(Object value) {
+		if (value == null) {
+			return false;
+		} else if (value instanceof CharSequence) {
+			return ((CharSequence) value).length() > 0;
+		} else if (value instanceof Collection) {
+			return !((Collection<?>) value).isEmpty();
+		} else if (value instanceof Map) {
+			return !((Map<?, ?>) value).isEmpty();
+		} else if (value.getClass().isArray()) {
+			return Array.getLength(value) > 0;
+		}
+		return true;
+	}
+
+	static class LoopFrame {
+		final String var;
+		final Iterator<?> iterator;
+		final LoopFrame parent;
+		Object item;
+
+		LoopFrame(String var, Iterator<?> iterator, LoopFrame parent) {
+			this.var = var;
+			this.iterator = iterator;
+			this.parent = parent;
+			this.item = iterator.next();
+		}
+
+		boolean next() {
+			if (iterator.hasNext()) {
+				item = iterator.next();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	static class Segment {
+		final int op;
+		// plain text, expression or loop variable name
+		final String text;
+		final String[] path;
+		final Condition condition;
+		int target = -1;
+
+		Segment(int op, String text, String[] path, Condition condition) {
+			this.op = op;
+			this.text = text;
+			this.path = path;
+			this.condition = condition;
+		}
+	}
+
+	/**
+	 * or-ed groups of and-ed terms
+	 */
+	static class Condition {
+		final Term[][] groups;
+
+		Condition(Term[][] groups) {
+			this.groups = groups;
+		}
+
+		boolean test(Object model, LoopFrame loop) {
+			for (Term[] group : groups) {
+				boolean matched = true;
+				for (Term term : group) {
+					if (!term.test(model, loop)) {
+						matched = false;
+						break;
+					}
+				}
+				if (matched) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	static class Term {
+		static final int EXISTS = 0;
+		static final int HAS_CONTENT = 1;
+		static final int TRUE = 2;
+		static final int EQUALS = 3;
+
+		final int kind;
+		final boolean negate;
+		final String[] path;
+		final Object literal;
+
+		Term(int kind, boolean negate, String[] path, Object literal) {
+			this.kind = kind;
+			this.negate = negate;
+			this.path = path;
+			this.literal = literal;
+		}
+
+		boolean test(Object model, LoopFrame loop) {
+			Object value = resolve(path, model, loop);
+			boolean result;
+			switch (kind) {
+			case EXISTS:
+				result = value != null;
+				break;
+			case HAS_CONTENT:
+				result = hasContent(value);
+				break;
+			case TRUE:
+				result = Boolean.TRUE.equals(value);
+				break;
+			default:
+				result = matches(value);
+			}
+			return negate ? !result : result;
+		}
+
+		private boolean matches(Object value) {
+			if (value == null || literal == null) {
+				return value == literal;
+			} else if (literal instanceof BigDecimal) {
+				if (value instanceof Number) {
+					try {
+						return new BigDecimal(value.toString()).compareTo((BigDecimal) literal) == 0;
+					} catch (NumberFormatException e) {
+						return false;
+					}
+				}
+				return false;
+			} else if (literal instanceof Boolean) {
+				return literal.equals(value);
+			}
+			return literal.equals(value.toString());
+		}
+	}
+
+	static class Compiler {
+
+		private final String name;
+		private final String source;
+		private final List<Segment> segments = new ArrayList<Segment>();
+		private final LinkedList<Block> blocks = new LinkedList<Block>();
+		private int textLength = 0;
+
+		Compiler(String name, String source) {
+			this.name = name;
+			this.source = source == null ? "" : source;
+		}
+
+		SimpleSqlTemplate compile() {
+			int pos = 0;
+			int length = source.length();
+			while (pos < length) {
+				int next = nextTag(pos);
+				if (next < 0) {
+					text(source.substring(pos));
+					break;
+				}
+				if (next > pos) {
+					text(source.substring(pos, next));
+				}
+				pos = tag(next);
+			}
+			if (!blocks.isEmpty()) {
+				throw error("unclosed <#" + blocks.peek().directive + ">", length);
+			}
+			return new SimpleSqlTemplate(name, segments.toArray(new Segment[segments.size()]), textLength);
+		}
+
+		private int nextTag(int from) {
+			int result = -1;
+			for (String open : new String[] { "<#", "</#", "${" }) {
+				int index = source.indexOf(open, from);
+				if (index >= 0 && (result < 0 || index < result)) {
+					result = index;
+				}
+			}
+			return result;
+		}
+
+		private void text(String text) {
+			if (text.length() > 0) {
+				segments.add(new Segment(TEXT, text, null, null));
+				textLength += text.length();
+			}
+		}
+
+		/**
+		 * compile the tag starts at pos, returns the position after the tag
+		 */
+		private int tag(int pos) {
+			if (source.startsWith("<#--", pos)) {
+				int end = source.indexOf("-->", pos);
+				if (end < 0) {
+					throw error("unclosed comment", pos);
+				}
+				return end + 3;
+			}
+
+			if (source.startsWith("${", pos)) {
+				int end = source.indexOf('}', pos);
+				if (end < 0) {
+					throw error("unclosed ${", pos);
+				}
+				String expression = source.substring(pos + 2, end).trim();
+				segments.add(new Segment(VALUE, expression, path(expression, pos), null));
+				return end + 1;
+			}
+
+			boolean closing = source.startsWith("</#", pos);
+			int start = pos + (closing ? 3 : 2);
+			int end = source.indexOf('>', start);
+			if (end < 0) {
+				throw error("unclosed tag", pos);
+			}
+			String content = source.substring(start, end).trim();
+			if (content.endsWith("/")) {
+				content = content.substring(0, content.length() - 1).trim();
+			}
+			int space = indexOfWhitespace(content);
+			String directive = space < 0 ? content : content.substring(0, space);
+			String args = space < 0 ? "" : content.substring(space + 1).trim();
+
+			if (closing) {
+				close(directive, pos);
+			} else {
+				open(directive, args, pos);
+			}
+			return end + 1;
+		}
+
+		private void open(String directive, String args, int pos) {
+			if ("if".equals(directive)) {
+				Block block = new Block(directive);
+				block.pending = emit(JUMP_IF_FALSE, null, null, condition(args, pos));
+				blocks.push(block);
+			} else if ("elseif".equals(directive)) {
+				Block block = current("if", directive, pos);
+				if (block.pending < 0) {
+					throw error("<#elseif> after <#else>", pos);
+				}
+				block.jumps.add(emit(JUMP, null, null, null));
+				segments.get(block.pending).target = segments.size();
+				block.pending = emit(JUMP_IF_FALSE, null, null, condition(args, pos));
+			} else if ("else".equals(directive)) {
+				Block block = current("if", directive, pos);
+				if (block.pending < 0) {
+					throw error("duplicated <#else>", pos);
+				}
+				block.jumps.add(emit(JUMP, null, null, null));
+				segments.get(block.pending).target = segments.size();
+				block.pending = -1;
+			} else if ("list".equals(directive)) {
+				String[] parts = args.split("\\s+as\\s+");
+				if (parts.length != 2 || !parts[1].trim().matches("[A-Za-z_][A-Za-z0-9_]*")) {
+					throw error("<#list> should be like <#list items as item>", pos);
+				}
+				Block block = new Block(directive);
+				block.pending = emit(LIST, parts[1].trim(), path(parts[0].trim(), pos), null);
+				blocks.push(block);
+			} else if ("sep".equals(directive)) {
+				Block block = current("list", directive, pos);
+				block.sep = emit(SEP, null, null, null);
+			} else {
+				throw error("directive <#" + directive + "> is not supported by simple engine", pos);
+			}
+		}
+
+		private void close(String directive, int pos) {
+			if ("if".equals(directive)) {
+				Block block = current("if", directive, pos);
+				blocks.pop();
+				if (block.pending >= 0) {
+					segments.get(block.pending).target = segments.size();
+				}
+				for (Integer jump : block.jumps) {
+					segments.get(jump).target = segments.size();
+				}
+			} else if ("sep".equals(directive)) {
+				Block block = current("list", directive, pos);
+				closeSep(block);
+			} else if ("list".equals(directive)) {
+				Block block = current("list", directive, pos);
+				blocks.pop();
+				closeSep(block);
+				int end = emit(LIST_END, null, null, null);
+				segments.get(end).target = block.pending + 1;
+				segments.get(block.pending).target = segments.size();
+			} else {
+				throw error("directive </#" + directive + "> is not supported by simple engine", pos);
+			}
+		}
+
+		private void closeSep(Block block) {
+			if (block.sep >= 0 && segments.get(block.sep).target < 0) {
+				segments.get(block.sep).target = segments.size();
+			}
+		}
+
+		private Block current(String expected, String directive, int pos) {
+			Block block = blocks.peek();
+			if (block == null || !block.directive.equals(expected)) {
+				throw error("unexpected <#" + directive + ">", pos);
+			}
+			return block;
+		}
+
+		private int emit(int op, String text, String[] path, Condition condition) {
+			segments.add(new Segment(op, text, path, condition));
+			return segments.size() - 1;
+		}
+
+		private Condition condition(String expression, int pos) {
+			if (expression.length() == 0) {
+				throw error("condition is required", pos);
+			}
+			String[] ors = expression.split("\\|\\|");
+			Term[][] groups = new Term[ors.length][];
+			for (int i = 0; i < ors.length; i++) {
+				String[] ands = ors[i].split("&&");
+				groups[i] = new Term[ands.length];
+				for (int j = 0; j < ands.length; j++) {
+					groups[i][j] = term(ands[j].trim(), pos);
+				}
+			}
+			return new Condition(groups);
+		}
+
+		private Term term(String term, int pos) {
+			int eq = term.indexOf("==");
+			int ne = term.indexOf("!=");
+			if (eq > 0 || ne > 0) {
+				int index = eq > 0 ? eq : ne;
+				String left = term.substring(0, index).trim();
+				String right = term.substring(index + 2).trim();
+				return new Term(Term.EQUALS, ne > 0, path(left, pos), literal(right, pos));
+			}
+
+			boolean negate = term.startsWith("!");
+			String expression = negate ? term.substring(1).trim() : term;
+			if (expression.endsWith("??")) {
+				return new Term(Term.EXISTS, negate, path(expression.substring(0, expression.length() - 2), pos), null);
+			} else if (expression.endsWith("?has_content")) {
+				String path = expression.substring(0, expression.length() - "?has_content".length());
+				return new Term(Term.HAS_CONTENT, negate, path(path, pos), null);
+			}
+			return new Term(Term.TRUE, negate, path(expression, pos), null);
+		}
+
+		private Object literal(String literal, int pos) {
+			if (literal.length() >= 2 && (literal.startsWith("'") && literal.endsWith("'")
+					|| literal.startsWith("\"") && literal.endsWith("\""))) {
+				return literal.substring(1, literal.length() - 1);
+			} else if ("true".equals(literal) || "false".equals(literal)) {
+				return Boolean.valueOf(literal);
+			}
+			try {
+				return new BigDecimal(literal);
+			} catch (NumberFormatException e) {
+				throw error("illegal literal " + literal, pos);
+			}
+		}
+
+		private String[] path(String expression, int pos) {
+			String trimmed = expression.trim();
+			if (!trimmed.matches("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)*")) {
+				throw error("expression [" + expression + "] is not supported by simple engine", pos);
+			}
+			return trimmed.split("\\.");
+		}
+
+		private int indexOfWhitespace(String content) {
+			for (int i = 0; i < content.length(); i++) {
+				if (Character.isWhitespace(content.charAt(i))) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private IllegalArgumentException error(String message, int pos) {
+			int line = 1;
+			for (int i = 0; i < pos && i < source.length(); i++) {
+				if (source.charAt(i) == '\n') {
+					line++;
+				}
+			}
+			return new IllegalArgumentException(
+					MessageFormat.format("[{0}] line {1}: {2}", name, String.valueOf(line), message));
+		}
+	}
+
+	static class Block {
+		final String directive;
+		// if: the pending false-jump; list: the list segment
+		int pending = -1;
+		int sep = -1;
+		final List<Integer> jumps = new ArrayList<Integer>();
+
+		Block(String directive) {
+			this.directive = directive;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SimpleSqlTemplate [name=" + name + ", segments=" + segments.length + "]";
+	}
+
+}
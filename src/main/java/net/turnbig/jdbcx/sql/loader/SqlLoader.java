@@ -2,17 +2,25 @@ package net.turnbig.jdbcx.sql.loader;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import freemarker.template.Configuration;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
+import net.turnbig.jdbcx.sql.NamedStatement;
 import net.turnbig.jdbcx.sql.loader.SqlTemplateLoaderFactory.SqlTemplateLoader;
 
 /**
@@ -59,12 +67,19 @@ public class SqlLoader {
 
 	private Logger logger = LoggerFactory.getLogger(SqlLoader.class);
 
+	// interval of checking modified template files when update delay is not positive
+	private static final long DFT_RELOAD_INTERVAL = 1000L;
+
 	String[] templatePath;
 	String templateEncoding = "UTF-8";
 	Long updateDelay = 5000L;
 	String relocateTo;
+	// max prepared statements kept, keyed by rendered SQL and result type
+	long statementCacheSize = 1024L;
 
 	private Configuration configuration;
+	private SqlTemplateLoader sqlTemplateLoader;
+	private Cache<List<Object>, NamedStatement<?>> statements;
 
 	@PostConstruct
 	public void initConfiguration() throws Exception {
@@ -85,6 +100,19 @@ public class SqlLoader {
 		configuration.setTemplateUpdateDelayMilliseconds(updateDelay);
 		configuration.setDefaultEncoding(templateEncoding);
 		this.configuration = configuration;
+		this.sqlTemplateLoader = sqlTemplateLoader;
+
+		// modified template files are reloaded in background, lookups always read the published snapshot
+		sqlTemplateLoader.startReloading(updateDelay > 0 ? updateDelay : DFT_RELOAD_INTERVAL);
+
+		this.statements = CacheBuilder.newBuilder().maximumSize(statementCacheSize).build();
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (sqlTemplateLoader != null) {
+			sqlTemplateLoader.stopReloading();
+		}
 	}
 
 	private Template getTemplate(String name) {
@@ -112,6 +140,24 @@ public class SqlLoader {
 		return result.toString();
 	}
 
+	/**
+	 * process template with the simple engine if the template is declared with engine="simple",
+	 * the freemarker template is still looked up so template updating is detected by freemarker
+	 * 
+	 * @param template
+	 * @param model
+	 * @return
+	 * @throws IOException
+	 * @throws TemplateException
+	 */
+	private String process(Template template, Object model) throws IOException, TemplateException {
+		SimpleSqlTemplate simple = sqlTemplateLoader.getSimpleTemplate(template.getSourceName());
+		if (simple != null) {
+			return simple.render(model);
+		}
+		return processTpl(template, model);
+	}
+
 	/**
 	 * 
 	 * get the SQL which is a plain-text SQL
@@ -122,7 +168,7 @@ public class SqlLoader {
 	public String getSql(String sqlTplName) {
 		try {
 			Template template = getTemplate(sqlTplName);
-			String result = processTpl(template, null);
+			String result = process(template, null);
 			return result.trim();
 		} catch (IOException e) {
 			logger.error("Can not get freemarker template resource", e);
@@ -144,7 +190,7 @@ public class SqlLoader {
 	public String getSql(String sqlTplName, Object model) {
 		try {
 			Template template = getTemplate(sqlTplName);
-			return processTpl(template, model);
+			return process(template, model);
 		} catch (IOException e) {
 			logger.error("Can not get freemarker template resource", e);
 			throw new RuntimeException(e);
@@ -153,7 +199,56 @@ public class SqlLoader {
 			throw new RuntimeException(e);
 		}
 	}
-	
+
+	/**
+	 * 
+	 * get the prepared statement of a plain-text SQL template, rows will be mapped to Map
+	 * 
+	 * @param sqlTplName
+	 * @return
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public NamedStatement<Map<String, Object>> getStatement(String sqlTplName) {
+		return getStatement(sqlTplName, null, (Class) Map.class);
+	}
+
+	/**
+	 * 
+	 * get the prepared statement of a plain-text SQL template
+	 * 
+	 * @param sqlTplName
+	 * @param resultType
+	 * @return
+	 */
+	public <T> NamedStatement<T> getStatement(String sqlTplName, Class<T> resultType) {
+		return getStatement(sqlTplName, null, resultType);
+	}
+
+	/**
+	 * 
+	 * get the prepared statement of the processed SQL with model as context.
+	 * 
+	 * <li>the statement is cached by the processed SQL, so the named parameters are parsed only once</li>
+	 * <li>do not render values into SQL (${value}), use named parameter (:value) instead, 
+	 * 		or every different value will produce a new statement</li>
+	 * 
+	 * @param sqlTplName
+	 * @param model
+	 * @param resultType
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> NamedStatement<T> getStatement(String sqlTplName, Object model, Class<T> resultType) {
+		String sql = getSql(sqlTplName, model).trim();
+		List<Object> key = Arrays.<Object> asList(sql, resultType);
+		NamedStatement<T> statement = (NamedStatement<T>) statements.getIfPresent(key);
+		if (statement == null) {
+			statement = new NamedStatement<T>(sql, resultType);
+			statements.put(key, statement);
+		}
+		return statement;
+	}
+
 	public void setTemplateEncoding(String templateEncoding) {
 		this.templateEncoding = templateEncoding;
 	}
@@ -173,4 +268,11 @@ public class SqlLoader {
 		this.relocateTo = relocateTo;
 	}
 
+	/**
+	 * @param statementCacheSize max prepared statements to keep
+	 */
+	public void setStatementCacheSize(long statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+	}
+
 }
@@ -4,13 +4,22 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 
@@ -25,7 +34,7 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.ResourcePatternUtils;
 
-import freemarker.cache.StringTemplateLoader;
+import freemarker.cache.TemplateLoader;
 import net.turnbig.jdbcx.sql.loader.SqlTemplateLoaderFactory.SqlTemplateLoader;
 
 /**
@@ -144,12 +153,7 @@ public class SqlTemplateLoaderFactory implements FactoryBean<SqlTemplateLoader>,
 					}
 				}
 
-				for (SqlTemplate xmlTemplate : templates) {
-					sqlTemplateLoader.putTemplate(xmlTemplate.getName(), xmlTemplate.getTemplate(),
-							xmlTemplate.getLastModified());
-					sqlTemplateLoader.addMapper(sqlTemplateLoader.findTemplateSource(xmlTemplate.getName()),
-							xmlTemplate.getTplFilePath());
-				}
+				sqlTemplateLoader.putSqlTemplates(templates);
 			}
 		}
 	}
@@ -160,6 +164,10 @@ public class SqlTemplateLoaderFactory implements FactoryBean<SqlTemplateLoader>,
 			logger.debug("load template from : {}", file.getAbsolutePath());
 			SqlTemplates templates = SqlTemplateParser.fromXML(file);
 			for (SqlTemplate sqlTemplate : templates.getTemplates()) {
+				// engine of template overrides the engine of file
+				if (StringUtils.isBlank(sqlTemplate.getEngine())) {
+					sqlTemplate.setEngine(templates.getEngine());
+				}
 				sqlTemplate.setLastModified(file.lastModified());
 				sqlTemplate.setTplFilePath(file.getAbsolutePath());
 				result.add(sqlTemplate);
@@ -208,46 +216,142 @@ public class SqlTemplateLoaderFactory implements FactoryBean<SqlTemplateLoader>,
 		this.relocateTo = relocateTo;
 	}
 
-	public static class SqlTemplateLoader extends StringTemplateLoader {
+	/**
+	 * 
+	 * Template loader backed by an immutable {@link SqlTemplateRegistry} snapshot.
+	 * 
+	 * <li>lookups read the current snapshot without any lock</li>
+	 * <li>reloading builds a new snapshot on the reloader thread and publishes it atomically</li>
+	 * 
+	 */
+	public static class SqlTemplateLoader implements TemplateLoader {
+
+		private volatile SqlTemplateRegistry registry = SqlTemplateRegistry.EMPTY;
 
-		private HashMap<Object, String> resourceMapper = new HashMap<Object, String>();
+		private ScheduledExecutorService reloader;
 
 		/*
 		 * (non-Javadoc)
 		 * 
-		 * @see freemarker.cache.StringTemplateLoader#findTemplateSource(java.lang.String)
+		 * @see freemarker.cache.TemplateLoader#findTemplateSource(java.lang.String)
 		 */
 		@Override
 		public Object findTemplateSource(String name) {
-			// reload template
-			Object stringTemplateSource = super.findTemplateSource(name);
-			if (stringTemplateSource != null && resourceMapper.containsKey(stringTemplateSource)) {
-				String path = resourceMapper.get(stringTemplateSource);
-				List<SqlTemplate> tpls = parseTemplate(new File(path));
-				for (SqlTemplate xmlTemplate : tpls) {
-					putTemplate(xmlTemplate.getName(), xmlTemplate.getTemplate(), xmlTemplate.getLastModified());
-					addMapper(super.findTemplateSource(name), xmlTemplate.getTplFilePath());
-				}
-			}
-			return super.findTemplateSource(name);
+			return registry.get(name);
 		}
 
 		/*
 		 * (non-Javadoc)
 		 * 
-		 * @see
-		 * freemarker.cache.StringTemplateLoader#getLastModified(java.lang.Object
-		 * )
+		 * @see freemarker.cache.TemplateLoader#getLastModified(java.lang.Object)
 		 */
 		@Override
 		public long getLastModified(Object templateSource) {
-			String path = resourceMapper.get(templateSource);
-			File f = new File(path);
-			return f.lastModified();
+			return ((SqlTemplateRegistry.Entry) templateSource).getLastModified();
+		}
+
+		@Override
+		public Reader getReader(Object templateSource, String encoding) throws IOException {
+			return new StringReader(((SqlTemplateRegistry.Entry) templateSource).getSource());
+		}
+
+		@Override
+		public void closeTemplateSource(Object templateSource) throws IOException {
+			// nothing to close
+		}
+
+		/**
+		 * put (or replace) templates, a new snapshot is published
+		 * 
+		 * @param xmlTemplates
+		 */
+		public synchronized void putSqlTemplates(Collection<SqlTemplate> xmlTemplates) {
+			registry = registry.with(xmlTemplates);
+		}
+
+		public void putSqlTemplate(SqlTemplate xmlTemplate) {
+			putSqlTemplates(Collections.singletonList(xmlTemplate));
+		}
+
+		/**
+		 * re-parse the template files which are modified since last loading, 
+		 * the current snapshot is kept if nothing is modified or any file can not be parsed
+		 * 
+		 * @return true if a new snapshot is published
+		 */
+		public synchronized boolean reload() {
+			SqlTemplateRegistry current = registry;
+			Set<String> modifiedFiles = current.getModifiedFiles();
+			if (modifiedFiles.isEmpty()) {
+				return false;
+			}
+
+			List<SqlTemplate> templates = new ArrayList<SqlTemplate>();
+			try {
+				for (String path : modifiedFiles) {
+					templates.addAll(parseTemplate(new File(path)));
+				}
+			} catch (Exception e) {
+				logger.warn("Failed to reload SQL templates of {}, keep version {}", modifiedFiles,
+						current.getVersion(), e);
+				return false;
+			}
+
+			registry = current.with(modifiedFiles, templates);
+			logger.info("SQL templates of {} reloaded, version {}", modifiedFiles, registry.getVersion());
+			return true;
+		}
+
+		/**
+		 * check modified template files periodically on a daemon thread
+		 * 
+		 * @param intervalMillis
+		 */
+		public synchronized void startReloading(long intervalMillis) {
+			if (reloader != null) {
+				return;
+			}
+			reloader = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "jdbcx-sql-template-reloader");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			reloader.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						reload();
+					} catch (Exception e) {
+						logger.warn("Failed to reload SQL templates", e);
+					}
+				}
+			}, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+		}
+
+		public synchronized void stopReloading() {
+			if (reloader != null) {
+				reloader.shutdownNow();
+				reloader = null;
+			}
+		}
+
+		/**
+		 * @param name
+		 * @return compiled template if the template uses simple engine, else null
+		 */
+		public SimpleSqlTemplate getSimpleTemplate(String name) {
+			SqlTemplateRegistry.Entry entry = registry.get(name);
+			return entry == null ? null : entry.getSimpleTemplate();
 		}
 
-		public void addMapper(Object object, String path) {
-			this.resourceMapper.put(object, path);
+		/**
+		 * @return the current published snapshot
+		 */
+		public SqlTemplateRegistry getRegistry() {
+			return registry;
 		}
 
 	}
@@ -259,6 +363,24 @@ public class SqlTemplateLoaderFactory implements FactoryBean<SqlTemplateLoader>,
 		@XmlElement(name = "Template")
 		List<SqlTemplate> templates = new ArrayList<SqlTemplate>();
 
+		// template engine of all templates in the file, freemarker(default) or simple
+		@XmlAttribute(name = "engine")
+		String engine;
+
+		/**
+		 * @return the engine
+		 */
+		public String getEngine() {
+			return engine;
+		}
+
+		/**
+		 * @param engine the engine to set
+		 */
+		public void setEngine(String engine) {
+			this.engine = engine;
+		}
+
 		/**
 		 * @return the templates
 		 */
@@ -283,6 +405,9 @@ public class SqlTemplateLoaderFactory implements FactoryBean<SqlTemplateLoader>,
 		private String name;
 		@XmlElement(name = "template")
 		private String template;
+		// template engine, freemarker(default) or simple
+		@XmlAttribute(name = "engine")
+		private String engine;
 		private long lastModified;
 		private String tplFilePath;
 
@@ -302,6 +427,14 @@ public class SqlTemplateLoaderFactory implements FactoryBean<SqlTemplateLoader>,
 			this.template = template;
 		}
 
+		public String getEngine() {
+			return engine;
+		}
+
+		public void setEngine(String engine) {
+			this.engine = engine;
+		}
+
 		public long getLastModified() {
 			return lastModified;
 		}
@@ -312,7 +445,8 @@ public class SqlTemplateLoaderFactory implements FactoryBean<SqlTemplateLoader>,
 
 		@Override
 		public String toString() {
-			return "SqlTemplate [name=" + name + ", template=" + template + ", lastModified=" + lastModified + "]";
+			return "SqlTemplate [name=" + name + ", engine=" + engine + ", template=" + template + ", lastModified="
+					+ lastModified + "]";
 		}
 
 		/**
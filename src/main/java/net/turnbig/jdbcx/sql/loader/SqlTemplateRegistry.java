@@ -0,0 +1,158 @@
+/**
+ * @(#)SqlTemplateRegistry.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.sql.loader;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import net.turnbig.jdbcx.sql.loader.SqlTemplateLoaderFactory.SqlTemplate;
+
+/**
+ * 
+ * An immutable, versioned snapshot of all loaded SQL templates.
+ * 
+ * A snapshot is never changed after created, reloading builds a new snapshot (copy-on-write) 
+ * which is then published by the template loader, so readers never see a half-loaded registry.
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public final class SqlTemplateRegistry {
+
+	public static final SqlTemplateRegistry EMPTY = new SqlTemplateRegistry(0,
+			Collections.<String, Entry> emptyMap(), Collections.<String, Long> emptyMap());
+
+	private final long version;
+	private final Map<String, Entry> templates;
+	// template file path -> last modified when the file was parsed
+	private final Map<String, Long> files;
+
+	private SqlTemplateRegistry(long version, Map<String, Entry> templates, Map<String, Long> files) {
+		this.version = version;
+		this.templates = templates;
+		this.files = files;
+	}
+
+	/**
+	 * build a new snapshot with templates added or replaced
+	 * 
+	 * @param sqlTemplates
+	 * @return
+	 */
+	public SqlTemplateRegistry with(Collection<SqlTemplate> sqlTemplates) {
+		return with(Collections.<String> emptySet(), sqlTemplates);
+	}
+
+	/**
+	 * build a new snapshot, all templates of the reloaded files are dropped first, 
+	 * then the (re-parsed) templates are added or replaced
+	 * 
+	 * @param reloadedFiles
+	 * @param sqlTemplates
+	 * @return
+	 */
+	public SqlTemplateRegistry with(Set<String> reloadedFiles, Collection<SqlTemplate> sqlTemplates) {
+		Map<String, Entry> newTemplates = new HashMap<String, Entry>(templates.size() + sqlTemplates.size());
+		for (Entry entry : templates.values()) {
+			if (entry.getFilePath() == null || !reloadedFiles.contains(entry.getFilePath())) {
+				newTemplates.put(entry.getName(), entry);
+			}
+		}
+		Map<String, Long> newFiles = new HashMap<String, Long>(files);
+		newFiles.keySet().removeAll(reloadedFiles);
+		for (SqlTemplate sqlTemplate : sqlTemplates) {
+			newTemplates.put(sqlTemplate.getName(), new Entry(sqlTemplate));
+			if (sqlTemplate.getTplFilePath() != null) {
+				newFiles.put(sqlTemplate.getTplFilePath(), sqlTemplate.getLastModified());
+			}
+		}
+		return new SqlTemplateRegistry(version + 1, Collections.unmodifiableMap(newTemplates),
+				Collections.unmodifiableMap(newFiles));
+	}
+
+	/**
+	 * @return template files which are modified (or removed) since they were parsed
+	 */
+	public Set<String> getModifiedFiles() {
+		Set<String> modified = new HashSet<String>();
+		for (Map.Entry<String, Long> file : files.entrySet()) {
+			if (new File(file.getKey()).lastModified() != file.getValue()) {
+				modified.add(file.getKey());
+			}
+		}
+		return modified;
+	}
+
+	public Entry get(String name) {
+		return templates.get(name);
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public int size() {
+		return templates.size();
+	}
+
+	/**
+	 * 
+	 * immutable loaded template, which is also the template source passed to freemarker
+	 * 
+	 */
+	public static final class Entry {
+
+		private final String name;
+		private final String source;
+		private final long lastModified;
+		private final String filePath;
+		// compiled template if the template uses simple engine
+		private final SimpleSqlTemplate simpleTemplate;
+
+		Entry(SqlTemplate sqlTemplate) {
+			this.name = sqlTemplate.getName();
+			this.source = sqlTemplate.getTemplate();
+			this.lastModified = sqlTemplate.getLastModified();
+			this.filePath = sqlTemplate.getTplFilePath();
+			this.simpleTemplate = SimpleSqlTemplate.isSimpleEngine(sqlTemplate.getEngine())
+					? SimpleSqlTemplate.compile(name, source) : null;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getSource() {
+			return source;
+		}
+
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		public String getFilePath() {
+			return filePath;
+		}
+
+		public SimpleSqlTemplate getSimpleTemplate() {
+			return simpleTemplate;
+		}
+
+		@Override
+		public String toString() {
+			return "Entry [name=" + name + ", lastModified=" + lastModified + ", filePath=" + filePath + "]";
+		}
+	}
+
+}
@@ -0,0 +1,26 @@
+/**
+ * @(#)TestDbDialectProvider.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.configs;
+
+import net.turnbig.jdbcx.dialect.MatchingDialectProvider;
+import net.turnbig.jdbcx.dialect.impl.PostgreDialect;
+
+/**
+ * dialect provider discovered by service loader, "TestDB 2+" behaves like PostgreSQL
+ * 
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class TestDbDialectProvider extends MatchingDialectProvider {
+
+	public TestDbDialectProvider() {
+		super("TestDB", null, 2, new PostgreDialect());
+	}
+
+}
@@ -18,6 +18,9 @@
 package net.turnbig.jdbcx.modal;
 
 import java.util.Date;
+import java.util.List;
+
+import javax.persistence.Transient;
 
 public class Member {
 
@@ -38,6 +41,9 @@ public class Member {
 	//	private Map<String, Object> profile;
 	private String profile;
 
+	@Transient
+	private List<MemberLogin> logins;
+
 	/**
 	 * @return id
 	 */
@@ -138,6 +144,14 @@ public class Member {
 		this.profile = profile;
 	}
 
+	public List<MemberLogin> getLogins() {
+		return logins;
+	}
+
+	public void setLogins(List<MemberLogin> logins) {
+		this.logins = logins;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -0,0 +1,23 @@
+/**
+ * @(#)MemberLoginService.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.service;
+
+import org.springframework.stereotype.Service;
+
+import net.turnbig.jdbcx.JdbcxService;
+import net.turnbig.jdbcx.modal.MemberLogin;
+
+/**
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+@Service
+public class MemberLoginService extends JdbcxService<MemberLogin, Long> {
+
+}
@@ -23,6 +23,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.sql.DataSource;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -37,6 +39,9 @@ import org.springframework.data.domain.Sort.Order;
 
 import net.turnbig.jdbcx.H2Env;
 import net.turnbig.jdbcx.JdbcxPagingDaoSupport;
+import net.turnbig.jdbcx.dialect.Databases;
+import net.turnbig.jdbcx.dialect.DialectResolver;
+import net.turnbig.jdbcx.dialect.DialectResolver.DatabaseInfo;
 import net.turnbig.jdbcx.modal.Member;
 
 /**
@@ -51,6 +56,9 @@ public class JdbcxPagingTest extends H2Env {
 	@Autowired
 	JdbcxPagingDaoSupport jdbc;
 
+	@Autowired
+	DataSource dataSource;
+
 	@Before
 	public void init() {
 		
@@ -107,4 +115,23 @@ public class JdbcxPagingTest extends H2Env {
 //		Assert.assertEquals("ip should be 127.0.0.1", member.getRegistIp(), "127.0.0.1");
 	}
 
+	@Test
+	public void testDialectResolved() throws Exception {
+		DatabaseInfo info = DialectResolver.resolve(dataSource);
+		Assert.assertEquals(Databases.h2, info.getDatabase());
+		Assert.assertSame("detected once for each data-source", info, DialectResolver.resolve(dataSource));
+		Assert.assertSame("dialect is singleton", Databases.h2.getDialect(), DialectResolver.getDialect(dataSource));
+	}
+
+	@Test
+	public void testQueryPagedRecursiveCte() {
+		String sql = "with recursive t(n) as (select 1 union all select n + 1 from t where n < 95) select n from t";
+		PageRequest pr = new PageRequest(2, 10, new Sort(Direction.DESC, "n"));
+		Page<Integer> page = jdbc.queryForList(sql, Integer.class, pr);
+		Assert.assertEquals(95, page.getTotalElements());
+		Assert.assertEquals(10, page.getTotalPages());
+		Assert.assertEquals(Integer.valueOf(75), page.getContent().get(0));
+
+	}
+
 }
@@ -17,17 +17,37 @@
 
 package net.turnbig.jdbcx.test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
+import javax.sql.DataSource;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import net.turnbig.jdbcx.H2Env;
 import net.turnbig.jdbcx.JdbcxPagingDaoSupport;
+import net.turnbig.jdbcx.cache.ParsedSqlCache;
 import net.turnbig.jdbcx.modal.Member;
+import net.turnbig.jdbcx.params.InListPaddingSqlParameterSource;
+import net.turnbig.jdbcx.routing.ReplicaRouter;
+import net.turnbig.jdbcx.routing.ReplicaRouter.LoadBalance;
+import net.turnbig.jdbcx.sql.NamedStatement;
 
 /**
  * @author Woo Cupid
@@ -40,6 +60,9 @@ public class JdbcxQueryTest extends H2Env {
 	@Autowired
 	JdbcxPagingDaoSupport jdbc;
 
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
 
 	@Test
 	public void testQueryListBean() {
@@ -79,4 +102,126 @@ public class JdbcxQueryTest extends H2Env {
 		Assert.assertTrue(isAdmin);
 	}
 
+	@Test
+	public void testParsedSqlCached() {
+		ParsedSqlCache cache = jdbc.getParsedSqlCache();
+		String sql = "select name from member where id = :id and name is not null";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("id", 1);
+
+		long misses = cache.getMissCount();
+		long hits = cache.getHitCount();
+		jdbc.queryForObject(sql, params, String.class);
+		jdbc.queryForObject(sql, params, String.class);
+		Assert.assertEquals(misses + 1, cache.getMissCount());
+		Assert.assertEquals(hits + 1, cache.getHitCount());
+	}
+
+	@Test
+	public void testInListPadding() {
+		Assert.assertEquals(1, InListPaddingSqlParameterSource.bucketSize(1));
+		Assert.assertEquals(4, InListPaddingSqlParameterSource.bucketSize(3));
+		Assert.assertEquals(8, InListPaddingSqlParameterSource.bucketSize(8));
+		Assert.assertEquals(1000, InListPaddingSqlParameterSource.bucketSize(600));
+		Assert.assertEquals(1200, InListPaddingSqlParameterSource.bucketSize(1200));
+
+		String sql = "select name from member where id in (:ids) order by id";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("ids", Arrays.asList(1, 2, 3));
+		List<String> names = jdbc.queryForList(sql, params, String.class);
+		Assert.assertEquals(2, names.size());
+
+		params.put("ids", Arrays.asList(2, 1, 3, 4));
+		Assert.assertEquals(2, jdbc.queryForList(sql, params, String.class).size());
+
+		params.put("ids", Arrays.asList(2));
+		Assert.assertEquals(1, jdbc.queryForList(sql, params, String.class).size());
+		Assert.assertEquals(Arrays.asList(1, 1, 3, 3),
+				InListPaddingSqlParameterSource.pad(Arrays.asList(1, 1, 3)));
+
+		// only the lists of in (...) are padded
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("ids", "names")),
+				InListPaddingSqlParameterSource.getInListParameters(NamedParameterUtils.parseSqlStatement(
+						"select * from member where id in (:ids) and name not IN ( :names ) and concat(:vals) <> ''")));
+		params.put("vals", Arrays.asList("a", "b", "c"));
+		Assert.assertEquals("abc", jdbc.queryForObject("select concat(:vals) from dual", params, String.class));
+
+		// in (...) of literals and comments is not a parameter list
+		Assert.assertEquals(Collections.singleton("names"),
+				InListPaddingSqlParameterSource.getInListParameters(NamedParameterUtils.parseSqlStatement(
+						"select * from member where name in (:names) and note <> 'id in (:ids)' /* id in (:vals) */")));
+		params.put("names", Arrays.asList("woo", "Five", "x"));
+		Assert.assertEquals("in (:ids)", jdbc.queryForObject(
+				"select 'in (:ids)' from member where name in (:names) -- id in (:ids)\n limit 1", params, String.class));
+	}
+
+	@Test
+	public void testReplicaRouting() {
+		DriverManagerDataSource replica = new DriverManagerDataSource("jdbc:h2:mem:jdbcx_replica;DB_CLOSE_DELAY=-1");
+		JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+		replicaJdbc.execute("create table if not exists member (id bigint, name varchar(32))");
+		replicaJdbc.execute("delete from member");
+		replicaJdbc.execute("insert into member (id, name) values (1, 'replica')");
+
+		final String countSql = "select count(*) from member where name = 'replica'";
+		ReplicaRouter router = new ReplicaRouter(Arrays.<DataSource> asList(replica), LoadBalance.LEAST_LOADED);
+		jdbc.setReplicaRouter(router);
+		try {
+			Assert.assertEquals("read from replica", 1, jdbc.queryForObject(countSql, Integer.class).intValue());
+			Assert.assertEquals(0, router.getActiveConnections(0));
+
+			// in transaction
+			Integer count = new TransactionTemplate(transactionManager).execute(new TransactionCallback<Integer>() {
+				@Override
+				public Integer doInTransaction(TransactionStatus status) {
+					return jdbc.queryForObject(countSql, Integer.class);
+				}
+			});
+			Assert.assertEquals("read from primary in transaction", 0, count.intValue());
+
+			// read your writes
+			router.setStickinessMillis(60000);
+			jdbc.update("update member set name = name where id = :id", Collections.singletonMap("id", 1));
+			Assert.assertEquals("read from primary after write", 0, jdbc.queryForObject(countSql, Integer.class)
+					.intValue());
+		} finally {
+			jdbc.setReplicaRouter(null);
+		}
+	}
+
+	@Test
+	public void testPagedReadsPinned() {
+		List<DataSource> replicas = new ArrayList<DataSource>();
+		for (int i = 0; i < 2; i++) {
+			DriverManagerDataSource replica = new DriverManagerDataSource("jdbc:h2:mem:jdbcx_pinned" + i
+					+ ";DB_CLOSE_DELAY=-1");
+			JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+			replicaJdbc.execute("create table if not exists member (id bigint, name varchar(32))");
+			replicaJdbc.execute("delete from member");
+			// replicas lag differently, 3 rows and 1 row
+			for (int j = 0; j < 3 - i * 2; j++) {
+				replicaJdbc.update("insert into member (id, name) values (?, 'pinned')", j + 1);
+			}
+			replicas.add(replica);
+		}
+
+		jdbc.setReplicaRouter(new ReplicaRouter(replicas, LoadBalance.ROUND_ROBIN));
+		try {
+			for (int i = 0; i < 4; i++) {
+				PageRequest pr = new PageRequest(0, 2);
+				Page<Map<String, Object>> page = jdbc.queryForListMap("select * from member where name = 'pinned'", pr);
+				Assert.assertEquals("count and page read the same replica",
+						Math.min(page.getTotalElements(), pr.getPageSize()), page.getContent().size());
+				Page<Integer> ids = jdbc.queryForList(
+						NamedStatement.of("select id from member where name = 'pinned'", Integer.class), pr);
+				Assert.assertEquals("count and page read the same replica",
+						Math.min(ids.getTotalElements(), pr.getPageSize()), ids.getContent().size());
+				// one more read, so the next paged call starts on the other replica
+				jdbc.queryForObject("select count(*) from member", Integer.class);
+			}
+		} finally {
+			jdbc.setReplicaRouter(null);
+		}
+	}
+
 }
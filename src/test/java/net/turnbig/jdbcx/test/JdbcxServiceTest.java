@@ -17,13 +17,51 @@
 
 package net.turnbig.jdbcx.test;
 
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.Column;
+import javax.sql.DataSource;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.domain.Sort.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.AbstractSqlParameterSource;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import net.turnbig.jdbcx.H2Env;
+import net.turnbig.jdbcx.JdbcxPagingDaoSupport;
 import net.turnbig.jdbcx.JdbcxService.FieldValue;
+import net.turnbig.jdbcx.cache.GuavaEntityCache;
+import net.turnbig.jdbcx.dataloader.EntityLoader;
+import net.turnbig.jdbcx.dataloader.LoaderScope;
+import net.turnbig.jdbcx.meta.EntityMetadata;
+import net.turnbig.jdbcx.meta.Projection;
+import net.turnbig.jdbcx.modal.Account;
 import net.turnbig.jdbcx.modal.Member;
+import net.turnbig.jdbcx.modal.MemberLogin;
+import net.turnbig.jdbcx.pageable.SortableColumns;
+import net.turnbig.jdbcx.params.BeanParameterBinding;
+import net.turnbig.jdbcx.service.AccountService;
+import net.turnbig.jdbcx.service.MemberLoginService;
 import net.turnbig.jdbcx.service.MemberService;
 
 
@@ -38,12 +76,49 @@ public class JdbcxServiceTest extends H2Env {
 	@Autowired
 	MemberService memberService;
 
+	@Autowired
+	DataSource dataSource;
+
+	@Autowired
+	JdbcxPagingDaoSupport dao;
+
+	@Autowired
+	AccountService accountService;
+
+	@Autowired
+	MemberLoginService memberLoginService;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
 	@Test
 	public void testGetById() {
 		Member member = memberService.get(1);
 		Assert.assertEquals(member.getName(), "woo");
 	}
 
+	@Test
+	public void testFindById() {
+		Assert.assertEquals("woo", memberService.findById(1).get().getName());
+		Assert.assertFalse(memberService.findById(100).isPresent());
+		Assert.assertNull(memberService.get(100));
+
+		Assert.assertTrue(memberService.existsById(1));
+		Assert.assertFalse(memberService.existsById(100));
+		Assert.assertTrue(memberService.list(Collections.<Integer> emptyList()).isEmpty());
+		Assert.assertTrue(memberService.existsByFields(FieldValue.of("name", "woo"), FieldValue.of("id", 1)));
+		Assert.assertFalse(memberService.existsByFields(FieldValue.of("name", "woo"), FieldValue.of("id", 2)));
+
+		// failures are not swallowed
+		new JdbcTemplate(dataSource).execute("drop table member_login");
+		try {
+			memberLoginService.get(1L);
+			Assert.fail("failure should be thrown");
+		} catch (DataAccessException e) {
+			// expected
+		}
+	}
+
 	@Test
 	public void testDelById() {
 		int count = memberService.delete(2);
@@ -64,4 +139,338 @@ public class JdbcxServiceTest extends H2Env {
 		Integer count2 = memberService.countByFields(FieldValue.of("id", 0), FieldValue.of("regist_ip", "127.0.0.1"));
 		Assert.assertEquals(count2.intValue(), 0);
 	}
+
+	@Test
+	public void testSortableColumns() throws MetaDataAccessException {
+		Assert.assertEquals("id", memberService.getSortableColumns().getPrimaryKey());
+		Assert.assertFalse(memberService.getSortableColumns().isSortable("name"));
+
+		new JdbcTemplate(dataSource).execute("create index idx_member_name on member(name, regist_ip)");
+		SortableColumns sortable = SortableColumns.fromIndexes(dataSource, "member", "id");
+		Assert.assertTrue(sortable.isSortable("name"));
+		Assert.assertFalse(sortable.isSortable("registIp"));
+		Assert.assertEquals(new Sort(new Order(Direction.ASC, "NAME"), new Order(Direction.ASC, "ID")),
+				sortable.apply(new Sort("name")));
+	}
+
+	@Test
+	public void testFieldsStatements() {
+		int updated = memberService.updateFields(1, FieldValue.of("registIp", "10.0.0.1"),
+				FieldValue.of("profile", null));
+		Assert.assertEquals(1, updated);
+		Member member = memberService.findByFields(FieldValue.of("registIp", "10.0.0.1"));
+		Assert.assertEquals("woo", member.getName());
+		Assert.assertNull(member.getProfile());
+
+		// same shape, different values, the statement is generated once
+		CacheStats stats = memberService.getFieldsStatementStats();
+		Assert.assertEquals(1, memberService.countByFields(FieldValue.of("registIp", "10.0.0.1")).intValue());
+		Assert.assertEquals(0, memberService.countByFields(FieldValue.of("registIp", "10.0.0.2")).intValue());
+		CacheStats delta = memberService.getFieldsStatementStats().minus(stats);
+		Assert.assertEquals(1, delta.missCount());
+		Assert.assertEquals(1, delta.hitCount());
+
+		// null is rendered as "is null" for list, the shape differs by null fields
+		stats = memberService.getFieldsStatementStats();
+		List<Member> nullProfile = memberService.findListByFields(FieldValue.of("id", 1),
+				FieldValue.of("profile", null));
+		Assert.assertEquals(1, nullProfile.size());
+		List<Member> profiled = memberService.findListByFields(FieldValue.of("id", 1), FieldValue.of("profile", "x"));
+		Assert.assertEquals(0, profiled.size());
+		memberService.findListByFields(FieldValue.of("id", 2), FieldValue.of("profile", null));
+		delta = memberService.getFieldsStatementStats().minus(stats);
+		Assert.assertEquals(2, delta.missCount());
+		Assert.assertEquals(1, delta.hitCount());
+
+		// no limit on the number of fields
+		FieldValue[] many = new FieldValue[Long.SIZE + 6];
+		for (int i = 0; i < many.length; i++) {
+			many[i] = FieldValue.of(i % 2 == 0 ? "name" : "profile", i % 2 == 0 ? "woo" : null);
+		}
+		Assert.assertEquals(1, memberService.findListByFields(many).size());
+
+		Page<Member> page = memberService.findListByFields(Arrays.asList(FieldValue.of("name", "woo")),
+				new PageRequest(0, 10));
+		Assert.assertEquals(1, page.getTotalElements());
+	}
+
+	@Test
+	public void testEntityMetadata() {
+		EntityMetadata metadata = memberService.getMetadata();
+		Assert.assertSame("computed once for each class", metadata, EntityMetadata.of(Member.class));
+		Assert.assertEquals("member", metadata.getTableName());
+		Assert.assertEquals("id", metadata.getId().getColumnName());
+		Assert.assertEquals("regist_ip", metadata.getProperty("registIp").getColumnName());
+		Assert.assertSame(metadata.getProperty("createdOn"), metadata.getPropertyByColumn("CREATED_ON"));
+		Assert.assertEquals(Types.TIMESTAMP, metadata.getProperty("createdOn").getSqlType());
+
+		Member member = memberService.get(1);
+		AbstractSqlParameterSource source = BeanParameterBinding.forBean(member);
+		Assert.assertEquals("127.0.0.1", source.getValue("registIp"));
+		Assert.assertEquals(Types.VARCHAR, source.getSqlType("registIp"));
+		// a registered type is applied to its parameter only
+		source.registerSqlType("name", Types.NVARCHAR);
+		Assert.assertEquals(Types.NVARCHAR, source.getSqlType("name"));
+		Assert.assertEquals(Types.VARCHAR, source.getSqlType("registIp"));
+		Assert.assertEquals(Types.TIMESTAMP, source.getSqlType("createdOn"));
+
+		// @Column(name) is honoured by row mapping
+		List<IpOnly> ips = dao.queryForListBean("select id, regist_ip from member where id = 1", IpOnly.class);
+		Assert.assertEquals("127.0.0.1", ips.get(0).getIp());
+	}
+
+	@Test
+	public void testDirtyTrackingUpdate() {
+		memberService.setDirtyTracking(true);
+		try {
+			Member member = memberService.get(1);
+			// changed by others after loaded, should not be overwritten by a partial update
+			dao.update("update member set regist_ip = '10.0.0.9' where id = 1", (Map<String, ?>) null);
+
+			Assert.assertEquals("nothing changed", 0, memberService.update(member));
+			member.setName("woo-tracked");
+			Assert.assertEquals(1, memberService.update(member));
+			Member updated = memberService.get(1);
+			Assert.assertEquals("woo-tracked", updated.getName());
+			Assert.assertEquals("10.0.0.9", updated.getRegistIp());
+			Assert.assertEquals("snapshot is refreshed after update", 0, memberService.update(member));
+
+			// a date changed in place is detected, the snapshot holds a copy
+			long createdOn = member.getCreatedOn().getTime() + 1000;
+			member.getCreatedOn().setTime(createdOn);
+			Assert.assertEquals(1, memberService.update(member));
+			Assert.assertEquals(createdOn, memberService.get(1).getCreatedOn().getTime());
+			Assert.assertEquals(0, memberService.update(member));
+		} finally {
+			memberService.setDirtyTracking(false);
+		}
+
+		// untracked entity updates all columns
+		Member member = memberService.get(1);
+		member.setRegistIp("10.0.0.10");
+		Assert.assertEquals(1, memberService.update(member));
+		Assert.assertEquals("10.0.0.10", memberService.get(1).getRegistIp());
+	}
+
+	@Test
+	public void testOptimisticLocking() {
+		Account account = accountService.get(1L);
+		Account stale = accountService.get(1L);
+		account.setBalance(150);
+		Assert.assertEquals(1, accountService.update(account));
+		Assert.assertEquals(Integer.valueOf(1), account.getVersion());
+		Assert.assertEquals(Integer.valueOf(1), accountService.get(1L).getVersion());
+
+		stale.setBalance(50);
+		try {
+			accountService.update(stale);
+			Assert.fail("stale version should be rejected");
+		} catch (OptimisticLockingFailureException e) {
+			Assert.assertEquals(Integer.valueOf(150), accountService.get(1L).getBalance());
+		}
+
+		Account inserted = new Account();
+		inserted.setOwner("batch");
+		inserted.setBalance(10);
+		accountService.insert(inserted);
+		Assert.assertEquals("version is initialized", Integer.valueOf(0), inserted.getVersion());
+
+		// one batch statement, conflicts detected by the updated counts
+		Account second = accountService.get(2L);
+		account.setBalance(160);
+		second.setBalance(210);
+		Assert.assertArrayEquals(new int[] { 1, 1 }, accountService.updateAll(Arrays.asList(account, second)));
+		Assert.assertEquals(Integer.valueOf(2), account.getVersion());
+		Assert.assertEquals(Integer.valueOf(1), second.getVersion());
+
+		stale = accountService.get(1L);
+		stale.setVersion(0);
+		try {
+			accountService.updateAll(Arrays.asList(stale, inserted));
+			Assert.fail("stale version should be rejected");
+		} catch (OptimisticLockingFailureException e) {
+			Assert.assertTrue(e.getMessage().contains("[1]"));
+			Assert.assertEquals("other entities are still updated", Integer.valueOf(1), inserted.getVersion());
+		}
+
+		// updateFields checks the given version
+		Assert.assertEquals(1,
+				accountService.updateFields(1L, FieldValue.of("balance", 170), FieldValue.of("version", 2)));
+		Assert.assertEquals(Integer.valueOf(3), accountService.get(1L).getVersion());
+		try {
+			accountService.updateFields(1L, FieldValue.of("balance", 180), FieldValue.of("version", 2));
+			Assert.fail("stale version should be rejected");
+		} catch (OptimisticLockingFailureException e) {
+			Assert.assertEquals(Integer.valueOf(170), accountService.get(1L).getBalance());
+		}
+		try {
+			accountService.updateFields(1L, FieldValue.of("balance", 180));
+			Assert.fail("version should be given");
+		} catch (IllegalArgumentException e) {
+			Assert.assertEquals(Integer.valueOf(170), accountService.get(1L).getBalance());
+		}
+	}
+
+	@Test
+	public void testEntityCache() {
+		GuavaEntityCache<Integer> cache = new GuavaEntityCache<Integer>(100, 60 * 1000);
+		memberService.setEntityCache(cache);
+		try {
+			Member member = memberService.get(1);
+			dao.update("update member set name = 'changed' where id in (1, 2)", (Map<String, ?>) null);
+			Member cached = memberService.get(1);
+			Assert.assertEquals("served from cache", "woo", cached.getName());
+			Assert.assertNotSame("a new entity for each lookup", member, cached);
+
+			// cached values are copied, not shared with the entities
+			long createdOn = cached.getCreatedOn().getTime();
+			cached.getCreatedOn().setTime(0);
+			Assert.assertEquals(createdOn, memberService.get(1).getCreatedOn().getTime());
+
+			// only the missing id is queried, entities are in the order of the ids
+			List<Member> members = memberService.list(Arrays.asList(2, 1));
+			Assert.assertEquals(2, members.size());
+			Assert.assertEquals("changed", members.get(0).getName());
+			Assert.assertEquals("woo", members.get(1).getName());
+			Assert.assertEquals("missed by first get and by id 2", 2, cache.getStats().missCount());
+
+			// evicted when updated through the service
+			memberService.updateFields(1, FieldValue.of("registIp", "10.0.0.1"));
+			Assert.assertEquals("changed", memberService.get(1).getName());
+			memberService.delete(1);
+			Assert.assertNull(memberService.get(1));
+
+			// uncommitted values are not cached, rolled back values are not served
+			Assert.assertEquals("changed", memberService.get(2).getName());
+			new TransactionTemplate(transactionManager).execute(new TransactionCallbackWithoutResult() {
+
+				@Override
+				protected void doInTransactionWithoutResult(TransactionStatus status) {
+					memberService.updateFields(2, FieldValue.of("name", "rolled-back"));
+					Assert.assertEquals("rolled-back", memberService.get(2).getName());
+					status.setRollbackOnly();
+				}
+			});
+			Assert.assertEquals("changed", memberService.get(2).getName());
+		} finally {
+			memberService.setEntityCache(null);
+		}
+	}
+
+	@Test
+	public void testEntityLoader() throws Exception {
+		LoaderScope scope = LoaderScope.open();
+		try {
+			ListenableFuture<Member> first = memberService.getAsync(1);
+			ListenableFuture<Member> second = memberService.getAsync(2);
+			ListenableFuture<Member> absent = memberService.getAsync(100);
+			Assert.assertSame("deduplicated", first, memberService.getAsync(1));
+			Assert.assertFalse(first.isDone());
+
+			// one query for all queued ids
+			Assert.assertEquals("woo", first.get().getName());
+			Assert.assertTrue(second.isDone() && absent.isDone());
+			Assert.assertEquals("Five", second.get().getName());
+			Assert.assertNull(absent.get());
+
+			Assert.assertSame("identity map", first.get(), memberService.load(1));
+			Assert.assertEquals(2, memberService.getLoader().loadAll(Arrays.asList(2, 1, 100)).size());
+
+			// integral ids of another type are matched by value
+			@SuppressWarnings({ "rawtypes", "unchecked" })
+			List<Member> byLong = ((EntityLoader) memberService.getLoader()).loadAll(Arrays.asList(2L));
+			Assert.assertEquals("Five", byLong.get(0).getName());
+
+			// evicted when updated through the service
+			memberService.updateFields(1, FieldValue.of("name", "woo-loaded"));
+			Assert.assertEquals("woo-loaded", memberService.load(1).getName());
+		} finally {
+			scope.close();
+		}
+		Assert.assertNull(LoaderScope.current());
+		Assert.assertEquals("no scope, loaded directly", "Five", memberService.load(2).getName());
+	}
+
+	@Test
+	public void testLoadChildren() {
+		List<Member> members = memberService.list(Arrays.asList(1, 2));
+		Map<Integer, List<MemberLogin>> logins = memberService.loadChildren(members, memberLoginService, "memberId");
+		Assert.assertEquals(2, logins.get(1).size());
+		Assert.assertEquals(1, logins.get(2).size());
+
+		Map<Integer, Member> mapped = memberService.mapped(members);
+		Assert.assertSame(logins.get(1), mapped.get(1).getLogins());
+		Assert.assertEquals("192.168.1.120", mapped.get(2).getLogins().get(0).getLoginIp());
+
+		Assert.assertEquals(3, memberLoginService.findListByFieldIn("memberId", Arrays.asList(1L, 2L, 1L)).size());
+	}
+
+	@Test
+	public void testProjection() {
+		Projection<MemberName> names = memberService.projection(MemberName.class);
+		Assert.assertEquals("id, name", names.getSelectList());
+		Assert.assertSame("cached", names, memberService.projection(MemberName.class));
+
+		// interface, backed by the selected columns
+		MemberName name = memberService.get(2, MemberName.class);
+		Assert.assertEquals(Integer.valueOf(2), name.getId());
+		Assert.assertEquals("Five", name.getName());
+		Assert.assertNull(memberService.get(100, names));
+		Assert.assertEquals(2, memberService.getAll(names).size());
+		Assert.assertEquals(1, memberService.list(Arrays.asList(1, 100), names).size());
+		Page<MemberName> page = memberService.getAll(names, new PageRequest(0, 1, new Sort(Direction.DESC, "id")));
+		Assert.assertEquals(2, page.getTotalElements());
+		Assert.assertEquals("Five", page.getContent().get(0).getName());
+
+		// DTO, only the matched persisted properties are selected
+		Assert.assertEquals("id, regist_ip", memberService.projection(IpOnly.class).getSelectList());
+		List<IpOnly> ips = memberService.findListByFields(IpOnly.class, FieldValue.of("name", "woo"));
+		Assert.assertEquals(Integer.valueOf(1), ips.get(0).getId());
+		Assert.assertEquals("matched by @Column(name)", "127.0.0.1", ips.get(0).getIp());
+
+		// column subset, mapped to entities
+		Projection<Member> subset = memberService.projection("registIp", "id");
+		Assert.assertEquals("id, regist_ip", subset.getSelectList());
+		Member member = memberService.findByFields(subset, FieldValue.of("name", "Five"));
+		Assert.assertEquals("192.168.1.120", member.getRegistIp());
+		Assert.assertNull(member.getName());
+
+		// NULL of a primitive getter is the default value
+		Account account = new Account();
+		account.setOwner("no-balance");
+		accountService.insert(account);
+		Assert.assertEquals(0, accountService.get(account.getId(), AccountBalance.class).getBalance());
+	}
+
+	public interface AccountBalance {
+		int getBalance();
+	}
+
+	public interface MemberName {
+		Integer getId();
+
+		String getName();
+	}
+
+	public static class IpOnly {
+		private Integer id;
+		@Column(name = "regist_ip")
+		private String ip;
+
+		public Integer getId() {
+			return id;
+		}
+
+		public void setId(Integer id) {
+			this.id = id;
+		}
+
+		public String getIp() {
+			return ip;
+		}
+
+		public void setIp(String ip) {
+			this.ip = ip;
+		}
+	}
 }
@@ -17,6 +17,7 @@
 
 package net.turnbig.jdbcx.test;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -26,10 +27,12 @@ import org.assertj.core.util.Lists;
 import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
 
 import net.turnbig.jdbcx.H2Env;
 import net.turnbig.jdbcx.JdbcxPagingDaoSupport;
 import net.turnbig.jdbcx.modal.Member;
+import net.turnbig.jdbcx.params.BeanParameterBinding;
 
 /**
  * @author Woo Cupid
@@ -100,4 +103,41 @@ public class JdbcxUpdateTest extends H2Env {
 		Assert.assertArrayEquals(nameList.toArray(), new String[] { "woo", "Five", "insert-name-1", "insert-name-2" });
 	}
 
+	@Test
+	public void testBeanParameterBinding() {
+		String sql = "insert into member (name, regist_ip, created_on, updated_on, is_admin) VALUES "
+				+ "(:name, :registIp, :createdOn, :updatedOn, :isAdmin)";
+		BeanParameterBinding binding = BeanParameterBinding.of(Member.class, sql,
+				NamedParameterUtils.parseSqlStatement(sql));
+		Assert.assertTrue(binding.isPositional());
+		Assert.assertEquals("insert into member (name, regist_ip, created_on, updated_on, is_admin) VALUES "
+				+ "(?, ?, ?, ?, ?)", binding.getPositionalSql());
+		Assert.assertSame("cached by class and SQL", binding,
+				BeanParameterBinding.of(Member.class, sql, NamedParameterUtils.parseSqlStatement(sql)));
+
+		List<Member> members = new ArrayList<Member>();
+		for (int i = 0; i < 500; i++) {
+			Member m = new Member();
+			m.setName("bound-" + i);
+			m.setRegistIp("10.0.0." + i);
+			m.setIsAdmin(i % 2 == 0);
+			m.setCreatedOn(new Date());
+			members.add(m);
+		}
+		int[] counts = jdbc.batchUpdate(sql, members);
+		Assert.assertEquals(500, counts.length);
+		Assert.assertEquals(Integer.valueOf(250),
+				jdbc.queryForObject("select count(*) from member where name like 'bound-%' and is_admin = true",
+						Integer.class));
+
+		// not a persisted property, bound by the bean wrapper
+		String byClass = "update member set name = :class.simpleName where id = :id";
+		Assert.assertFalse(BeanParameterBinding.of(Member.class, byClass, NamedParameterUtils.parseSqlStatement(byClass))
+				.isPositional());
+		Member m = new Member();
+		m.setId(1);
+		Assert.assertArrayEquals(new int[] { 1 }, jdbc.batchUpdate(byClass, Lists.newArrayList(m)));
+		Assert.assertEquals("Member", jdbc.queryForObject("select name from member where id = 1", String.class));
+	}
+
 }
@@ -12,6 +12,14 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.domain.Sort.Order;
+
+import net.turnbig.jdbcx.dialect.SelectSqlUtils;
+import net.turnbig.jdbcx.pageable.InvalidSortException;
+import net.turnbig.jdbcx.pageable.SortableColumns;
+import net.turnbig.jdbcx.pageable.SortableColumns.Policy;
 
 /**
  * @author Woo Cupid
@@ -34,4 +42,27 @@ public class PageableTest {
 		Assert.assertEquals(limit, 10);
 	}
 
+	@Test
+	public void sortableColumnsTest() {
+		SortableColumns sortable = SortableColumns.of("id", "name", "created_on");
+		Sort sort = sortable.apply(new Sort(Direction.DESC, "createdOn"));
+		Assert.assertEquals(new Sort(new Order(Direction.DESC, "created_on"), new Order(Direction.DESC, "id")), sort);
+		Assert.assertEquals(new Sort(Direction.ASC, "id"), sortable.apply(null));
+		Assert.assertEquals(new Sort(Direction.DESC, "id"), sortable.apply(new Sort(Direction.DESC, "ID")));
+
+		try {
+			sortable.apply(new Sort("profile"));
+			Assert.fail("profile is not sortable");
+		} catch (InvalidSortException e) {
+			Assert.assertEquals("profile", e.getProperty());
+		}
+		Assert.assertEquals(new Sort(Direction.ASC, "id"),
+				sortable.withPolicy(Policy.IGNORE).apply(new Sort(Direction.DESC, "profile")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sortPropertyInjectionTest() {
+		SelectSqlUtils.getPagedSqlWithLimitOffset("select * from member", new Sort("id; drop table member"));
+	}
+
 }
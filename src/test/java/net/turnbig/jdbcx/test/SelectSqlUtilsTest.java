@@ -7,18 +7,44 @@
  */
 package net.turnbig.jdbcx.test;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
 import org.assertj.core.util.Lists;
 import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.domain.Sort.Order;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 
 import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.statement.select.Select;
+import net.turnbig.jdbcx.dialect.Databases;
+import net.turnbig.jdbcx.dialect.DialectCapability;
+import net.turnbig.jdbcx.dialect.DialectProvider;
+import net.turnbig.jdbcx.dialect.DialectRegistry;
+import net.turnbig.jdbcx.dialect.MatchingDialectProvider;
+import net.turnbig.jdbcx.dialect.PagingRewriter;
+import net.turnbig.jdbcx.dialect.SQLDialect;
 import net.turnbig.jdbcx.dialect.SelectSqlUtils;
+import net.turnbig.jdbcx.dialect.SimpleSqlRewriter;
+import net.turnbig.jdbcx.dialect.UniqueKeys;
+import net.turnbig.jdbcx.dialect.exception.GeneratePagingSqlException;
+import net.turnbig.jdbcx.dialect.exception.NotImplementDialectException;
+import net.turnbig.jdbcx.dialect.impl.AbstractSQLDialect;
+import net.turnbig.jdbcx.dialect.impl.MysqlDialect;
+import net.turnbig.jdbcx.dialect.impl.PostgreDialect;
+import net.turnbig.jdbcx.params.PageableSqlParameterSource;
 
 /**
  * @author Woo Cupid
@@ -71,8 +97,306 @@ public class SelectSqlUtilsTest {
 	public void getPageableSqlTest() throws JSQLParserException {
 		String sql = "with a as (select * from level limit 10) select name, count(0) from member, a where id > 10 and level = a.level group by name FOR UPDATE";
 		PageRequest pageRequest = new PageRequest(5, 10);
-		String pagedSql = SelectSqlUtils.getPageableSqlWithLimitOffset(sql, pageRequest);
+		String pagedSql = SelectSqlUtils.getPagedSqlWithLimitOffset(sql, pageRequest.getSort());
 		logger.info("{}", pagedSql);
 	}
 
+	@Test
+	public void versionAwareDialectTest() {
+		Assert.assertEquals(Databases.oracle, Databases.fromProduct("Oracle", 11, 2));
+		Assert.assertEquals(Databases.oracle12c, Databases.fromProduct("Oracle", 12, 1));
+		Assert.assertEquals(Databases.sqlserver, Databases.fromProduct("Microsoft SQL Server", 10, 50));
+		Assert.assertEquals(Databases.sqlserver2012, Databases.fromProduct("Microsoft SQL Server", 11, 0));
+
+		PageRequest pageRequest = new PageRequest(2, 10, new Sort(Direction.DESC, "id"));
+		String oracleSql = paged(Databases.oracle12c, "select * from member", pageRequest.getSort());
+		logger.info("{}", oracleSql);
+		Assert.assertTrue(oracleSql.endsWith("ORDER BY id DESC OFFSET :jdbcxPageOffset ROWS FETCH NEXT :jdbcxPageSize ROWS ONLY"));
+
+		String sqlServerSql = paged(Databases.sqlserver2012, "select * from member", null);
+		logger.info("{}", sqlServerSql);
+		Assert.assertTrue(sqlServerSql
+				.endsWith("ORDER BY (select null) OFFSET :jdbcxPageOffset ROWS FETCH NEXT :jdbcxPageSize ROWS ONLY"));
+
+		String rowNumberSql = paged(Databases.sqlserver, "select * from member", pageRequest.getSort());
+		logger.info("{}", rowNumberSql);
+		Assert.assertTrue(rowNumberSql.contains("ROW_NUMBER() OVER ( ORDER BY id DESC)"));
+		Assert.assertTrue(rowNumberSql
+				.contains("PAGE_ROW_NUMBER > :jdbcxPageOffset AND PAGE_ROW_NUMBER <= :jdbcxPageEndRow"));
+		// row numbers are bound, all pages share one statement
+		Assert.assertSame(rowNumberSql, paged(Databases.sqlserver, "select * from member", pageRequest.next().getSort()));
+		// literal row numbers by the SQLDialect contract
+		Assert.assertTrue(Databases.sqlserver.getDialect().getPageableSql("select * from member", pageRequest)
+				.contains("PAGE_ROW_NUMBER > 20 AND PAGE_ROW_NUMBER <= 30"));
+		// no order by, the natural order is kept instead of rejecting the SQL
+		Assert.assertTrue(paged(Databases.sqlserver, "select * from member", null)
+				.contains("ROW_NUMBER() OVER ( ORDER BY (SELECT NULL))"));
+
+		PageableSqlParameterSource params = new PageableSqlParameterSource(
+				new MapSqlParameterSource("jdbcxPageSize", 1), pageRequest);
+		Assert.assertEquals(20L, params.getValue(SelectSqlUtils.OFFSET_PARAM));
+		Assert.assertEquals(30L, params.getValue(SelectSqlUtils.END_ROW_PARAM));
+		Assert.assertEquals("delegate wins", 1, params.getValue(SelectSqlUtils.PAGE_SIZE_PARAM));
+		Assert.assertFalse(params.hasValue("name"));
+	}
+
+	@Test
+	public void astPagingDialectTest() {
+		String sql = "with a as (select * from level) select * from member, a where name = '{0}''s' and level = a.level";
+		PageRequest page2 = new PageRequest(2, 10, new Sort(Direction.ASC, "id"));
+		PageRequest page3 = new PageRequest(3, 10, new Sort(Direction.ASC, "id"));
+
+		String oracleSql = paged(Databases.oracle, sql, page2.getSort());
+		logger.info("{}", oracleSql);
+		Assert.assertTrue(oracleSql.startsWith("WITH a AS (SELECT * FROM level) SELECT * FROM (SELECT tmp_page.*, rownum row_id"));
+		Assert.assertTrue(oracleSql.contains("'{0}''s'"));
+		Assert.assertTrue(oracleSql.contains("WHERE rownum <= :jdbcxPageEndRow) tmp_row WHERE row_id > :jdbcxPageOffset"));
+		Assert.assertSame("all pages share one statement", oracleSql, paged(Databases.oracle, sql, page3.getSort()));
+		Assert.assertTrue(Databases.oracle.getDialect().getPageableSql(sql, page2)
+				.contains("WHERE rownum <= 30) tmp_row WHERE row_id > 20"));
+
+		String db2Sql = paged(Databases.db2, sql, page2.getSort());
+		logger.info("{}", db2Sql);
+		Assert.assertTrue(db2Sql.contains("SELECT tmp_page.*, row_number() over(ORDER BY tmp_page.id ASC) row_id FROM"));
+		Assert.assertTrue(db2Sql.endsWith("ORDER BY id ASC) tmp_page) tmp_row "
+				+ "WHERE row_id > :jdbcxPageOffset AND row_id <= :jdbcxPageEndRow ORDER BY row_id"));
+		Assert.assertTrue(paged(Databases.db2, "select m.name from member m order by upper(m.name)", null)
+				.contains("row_number() over(ORDER BY upper(tmp_page.name)) row_id"));
+
+		String informixSql = paged(Databases.informix, sql, page2.getSort());
+		logger.info("{}", informixSql);
+		Assert.assertTrue(informixSql.contains("SELECT SKIP :jdbcxPageOffset FIRST :jdbcxPageSize * FROM (SELECT"));
+
+		String limitSql = paged(Databases.h2, sql, page3.getSort());
+		Assert.assertTrue(limitSql.endsWith("ORDER BY id ASC LIMIT :jdbcxPageSize OFFSET :jdbcxPageOffset"));
+		Assert.assertTrue(Databases.h2.getDialect().getPageableSql(sql, page3).endsWith("ORDER BY id ASC LIMIT 10 OFFSET 30"));
+
+		// numbers of the SQL are never taken as row numbers
+		String literal = "select * from member where id <> " + Long.MAX_VALUE + " and name = '" + (Long.MAX_VALUE - 2) + "'";
+		Assert.assertEquals("SELECT * FROM member WHERE id <> " + Long.MAX_VALUE + " AND name = '" + (Long.MAX_VALUE - 2)
+				+ "' LIMIT :jdbcxPageSize OFFSET :jdbcxPageOffset", paged(Databases.h2, literal, null));
+	}
+
+	@Test
+	public void optimizedCountSqlTest() {
+		// left joins are kept if no unique key is declared
+		String sql = "select m.*, p.name from member m left join profile p on p.id = m.profile_id "
+				+ "left join team t on t.id = m.team_id where t.name = :team order by m.id";
+		String countSql = SelectSqlUtils.getCountSql(sql);
+		Assert.assertEquals("SELECT count(*) FROM member m LEFT JOIN profile p ON p.id = m.profile_id "
+				+ "LEFT JOIN team t ON t.id = m.team_id WHERE t.name = :team", countSql);
+
+		// to-one left join on a declared unique key without reference is removed
+		UniqueKeys uniqueKeys = UniqueKeys.of("profile", "id").and("team", "id").and("login", "id");
+		countSql = SelectSqlUtils.getCountSql(sql, uniqueKeys);
+		logger.info("{}", countSql);
+		Assert.assertEquals("SELECT count(*) FROM member m LEFT JOIN team t ON t.id = m.team_id WHERE t.name = :team",
+				countSql);
+
+		// unique keys are declared per table
+		sql = "select m.* from member m left join profile p on p.id = m.profile_id left join audit a on a.id = m.id";
+		Assert.assertEquals("SELECT count(*) FROM member m LEFT JOIN audit a ON a.id = m.id",
+				SelectSqlUtils.getCountSql(sql, uniqueKeys));
+
+		// to-many left join is kept
+		sql = "select m.* from member m left join login l on l.member_id = m.id";
+		Assert.assertEquals("SELECT count(*) FROM member m LEFT JOIN login l ON l.member_id = m.id",
+				SelectSqlUtils.getCountSql(sql, uniqueKeys));
+
+		// order by of sub-queries without limit is removed
+		sql = "select * from (select * from member order by name) t "
+				+ "union (select * from member order by id limit 5) order by name";
+		countSql = SelectSqlUtils.getCountSql(sql);
+		logger.info("{}", countSql);
+		Assert.assertEquals("SELECT count(*) FROM ((SELECT * FROM (SELECT * FROM member) t) "
+				+ "UNION (SELECT * FROM member ORDER BY id LIMIT 5)) table_count", countSql);
+
+		// distinct with not null is counted by count(distinct)
+		sql = "select distinct m.name from member m where m.name is not null and m.id > 10 order by m.name";
+		Assert.assertEquals("SELECT count(DISTINCT m.name) FROM member m WHERE m.name IS NOT NULL AND m.id > 10",
+				SelectSqlUtils.getCountSql(sql));
+		sql = "select distinct m.name from member m where m.id > 10";
+		Assert.assertEquals("SELECT count(*) FROM (SELECT DISTINCT m.name FROM member m WHERE m.id > 10) table_count",
+				SelectSqlUtils.getCountSql(sql));
+
+		// select list of group by is not needed
+		sql = "select m.name, count(0) from member m group by m.name";
+		Assert.assertEquals("SELECT count(*) FROM (SELECT 1 FROM member m GROUP BY m.name) table_count",
+				SelectSqlUtils.getCountSql(sql));
+
+		// limited rows are counted with the limit
+		sql = "select * from member order by id limit 10";
+		Assert.assertEquals("SELECT count(*) FROM (SELECT * FROM member ORDER BY id LIMIT 10) table_count",
+				SelectSqlUtils.getCountSql(sql));
+	}
+
+	@Test
+	public void cteSqlTest() {
+		String sql = "with a as (select * from member order by id), b as (select * from a where id > 0) "
+				+ "select distinct name from b";
+		Assert.assertEquals("WITH a AS (SELECT * FROM member), b AS (SELECT * FROM a WHERE id > 0) "
+				+ "SELECT count(*) FROM (SELECT DISTINCT name FROM b) table_count", SelectSqlUtils.getCountSql(sql));
+
+		String recursive = "with recursive t(n) as (select 1 union all select n + 1 from t where n < 100) "
+				+ "select n from t";
+		PageRequest pageRequest = new PageRequest(1, 10, new Sort(Direction.DESC, "n"));
+		Assert.assertEquals("WITH RECURSIVE t (n) AS ((SELECT 1) UNION ALL (SELECT n + 1 FROM t WHERE n < 100)) "
+				+ "SELECT n FROM t ORDER BY n DESC LIMIT :jdbcxPageSize OFFSET :jdbcxPageOffset",
+				SelectSqlUtils.getPagedSqlWithLimitOffset(recursive, pageRequest.getSort()));
+		Assert.assertEquals("WITH RECURSIVE t (n) AS ((SELECT 1) UNION ALL (SELECT n + 1 FROM t WHERE n < 100)) "
+				+ "SELECT count(*) FROM t", SelectSqlUtils.getCountSql(recursive));
+
+		String union = "with a as (select * from member) select name from a where id < 10 union select name from a";
+		Assert.assertEquals("WITH a AS (SELECT * FROM member) (SELECT name FROM a WHERE id < 10) UNION "
+				+ "(SELECT name FROM a) ORDER BY name ASC OFFSET :jdbcxPageOffset ROWS FETCH NEXT :jdbcxPageSize ROWS ONLY",
+				SelectSqlUtils.getPagedSqlWithOffsetFetch(union, new Sort("name"), false));
+	}
+
+	@Test
+	public void fastPathSqlTest() {
+		SimpleSqlRewriter rewriter = new SimpleSqlRewriter();
+		String sql = "select id, name from member where id > :id and name like :name";
+		Assert.assertEquals("SELECT count(*) FROM member where id > :id and name like :name", rewriter.getCountSql(sql));
+		Assert.assertEquals(sql + " ORDER BY name DESC LIMIT :jdbcxPageSize OFFSET :jdbcxPageOffset",
+				SelectSqlUtils.getPagedSqlWithLimitOffset(sql, new Sort(Direction.DESC, "name")));
+		Assert.assertEquals(sql + " ORDER BY (select null) OFFSET :jdbcxPageOffset ROWS FETCH NEXT :jdbcxPageSize ROWS ONLY",
+				SelectSqlUtils.getPagedSqlWithOffsetFetch(sql, null, true));
+
+		// deprecated signatures keep the literal row numbers
+		Assert.assertEquals(sql + " ORDER BY name DESC LIMIT 10 OFFSET 20", SelectSqlUtils
+				.getPageableSqlWithLimitOffset(sql, new PageRequest(2, 10, new Sort(Direction.DESC, "name"))));
+		Assert.assertEquals(sql + " ORDER BY (select null) OFFSET 0 ROWS FETCH NEXT 5 ROWS ONLY",
+				SelectSqlUtils.getPageableSqlWithOffsetFetch(sql, new PageRequest(0, 5), true));
+
+		// complex SQL falls back to parsing
+		Assert.assertNull(rewriter.getCountSql("select distinct name from member"));
+		Assert.assertNull(rewriter.getCountSql("select * from member m left join team t on m.team_id = t.id"));
+		Assert.assertNull(rewriter.getCountSql("select * from member where name = 'a from b'"));
+		Assert.assertNull(rewriter.getCountSql("select count(*) from member"));
+		Assert.assertNull(rewriter.getPageableSql(sql, null, new PagingRewriter() {
+			@Override
+			public void rewrite(Select select) {
+			}
+		}));
+	}
+
+	@Test
+	public void parseLimitsTest() {
+		Assert.assertEquals(65536, SelectSqlUtils.getMaxParseLength());
+		Assert.assertEquals(32, SelectSqlUtils.getMaxParseDepth());
+
+		StringBuilder sql = new StringBuilder("select * from member where ");
+		for (int i = 0; i < 5000; i++) {
+			sql.append("(id = ").append(i).append(" or name = 'n").append(i).append("') and ");
+		}
+		sql.append("1 = 1");
+		try {
+			SelectSqlUtils.parseSelectSql(sql.toString());
+			Assert.fail("long SQL should be rejected");
+		} catch (GeneratePagingSqlException e) {
+			Assert.assertTrue(e.getMessage().contains("too long"));
+		}
+
+		StringBuilder nested = new StringBuilder("select * from member where id in ");
+		for (int i = 0; i < 33; i++) {
+			nested.append("(select id from member where id in ");
+		}
+		nested.append("(1)");
+		for (int i = 0; i < 33; i++) {
+			nested.append(")");
+		}
+		try {
+			SelectSqlUtils.parseSelectSql(nested.toString());
+			Assert.fail("deeply nested SQL should be rejected");
+		} catch (GeneratePagingSqlException e) {
+			Assert.assertTrue(e.getMessage().contains("nested too deep"));
+		}
+
+		// parentheses in literals are not counted
+		Assert.assertNotNull(SelectSqlUtils.parseSelectSql("select * from member where name = '"
+				+ nested.toString().replace("'", "''") + "'"));
+	}
+
+	@Test
+	public void dialectProviderTest() throws SQLException {
+		Assert.assertTrue(DialectCapability.INSERT_RETURNING.isSupportedBy(Databases.postgresql.getDialect()));
+		Assert.assertFalse(DialectCapability.INSERT_RETURNING.isSupportedBy(Databases.mysql.getDialect()));
+		Assert.assertTrue(DialectCapability.UPSERT.isSupportedBy(Databases.mysql.getDialect()));
+		Assert.assertFalse(DialectCapability.WINDOW_FUNCTIONS.isSupportedBy(Databases.sqlite.getDialect()));
+
+		// dialects implementing SQLDialect only support nothing
+		SQLDialect plain = new SQLDialect() {
+			@Override
+			public String getPageableSql(String sql, Pageable pageable) {
+				return sql;
+			}
+
+			@Override
+			public String getCountSql(String sql) {
+				return sql;
+			}
+		};
+		Assert.assertFalse(DialectCapability.UPSERT.isSupportedBy(plain));
+
+		// built-in, mariadb reported as mysql
+		Assert.assertSame(Databases.mariadb.getDialect(),
+				DialectRegistry.getDialect(metaData("MySQL", "5.5.5-10.1.26-MariaDB", 5)));
+		Assert.assertSame(Databases.mysql.getDialect(), DialectRegistry.getDialect(metaData("MySQL", "5.7.20", 5)));
+
+		// discovered by service loader
+		Assert.assertTrue(DialectRegistry.getDialect(metaData("TestDB", "2.0", 2)) instanceof PostgreDialect);
+		try {
+			DialectRegistry.getDialect(metaData("TestDB", "1.0", 1));
+			Assert.fail("TestDB 1.x is not supported");
+		} catch (NotImplementDialectException e) {
+			// expected
+		}
+
+		// providers of the caller (context) win, nothing is registered globally
+		SQLDialect cockroach = new PostgreDialect();
+		List<DialectProvider> providers = Arrays.<DialectProvider> asList(
+				new MatchingDialectProvider("PostgreSQL", ".*CockroachDB.*", 0, cockroach));
+		Assert.assertSame(cockroach,
+				DialectRegistry.getDialect(metaData("PostgreSQL", "13.0 CockroachDB CCL v21.1", 13), providers));
+		Assert.assertSame(Databases.postgresql.getDialect(),
+				DialectRegistry.getDialect(metaData("PostgreSQL", "13.0 CockroachDB CCL v21.1", 13)));
+		Assert.assertNull(DialectRegistry.getProvidedDialect(metaData("PostgreSQL", "9.6", 9), providers));
+
+		// registered provider wins
+		SQLDialect tidb = new MysqlDialect();
+		MatchingDialectProvider provider = new MatchingDialectProvider("MySQL", ".*TiDB.*", 0, tidb);
+		DialectRegistry.register(provider);
+		try {
+			Assert.assertSame(tidb, DialectRegistry.getDialect(metaData("MySQL", "5.7.25-TiDB-v5.0.1", 5)));
+			Assert.assertSame(Databases.mysql.getDialect(), DialectRegistry.getDialect(metaData("MySQL", "5.7.20", 5)));
+		} finally {
+			DialectRegistry.unregister(provider);
+		}
+	}
+
+	private static String paged(Databases database, String sql, Sort sort) {
+		return ((AbstractSQLDialect) database.getDialect()).getPagedSql(sql, sort);
+	}
+
+	private static DatabaseMetaData metaData(final String productName, final String productVersion,
+			final int majorVersion) {
+		return (DatabaseMetaData) Proxy.newProxyInstance(DatabaseMetaData.class.getClassLoader(),
+				new Class<?>[] { DatabaseMetaData.class }, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						String name = method.getName();
+						if (name.equals("getDatabaseProductName")) {
+							return productName;
+						} else if (name.equals("getDatabaseProductVersion")) {
+							return productVersion;
+						} else if (name.equals("getDatabaseMajorVersion")) {
+							return majorVersion;
+						} else if (name.equals("getDatabaseMinorVersion")) {
+							return 0;
+						}
+						return null;
+					}
+				});
+	}
+
 }
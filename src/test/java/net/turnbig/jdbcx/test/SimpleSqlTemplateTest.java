@@ -0,0 +1,77 @@
+/**
+ * @(#)SimpleSqlTemplateTest.java 2026年10月18日
+ *
+ * Copyright 2008-2026 by Woo Cupid.
+ * All rights reserved.
+ * 
+ */
+package net.turnbig.jdbcx.test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.turnbig.jdbcx.modal.Member;
+import net.turnbig.jdbcx.sql.loader.SimpleSqlTemplate;
+
+/**
+ * @author Woo Cupid
+ * @date 2026年10月18日
+ * @version $Revision$
+ */
+public class SimpleSqlTemplateTest {
+
+	@Test
+	public void renderConditionTest() {
+		SimpleSqlTemplate tpl = SimpleSqlTemplate.compile("test",
+				"select * from member where 1=1<#if id??> and id = :id</#if>"
+						+ "<#if name?has_content> and name = :name<#elseif ip??> and regist_ip = :ip<#else> and 1=1</#if>"
+						+ "<#-- comment --><#if type == 'admin' && !deleted> and is_admin = true</#if>");
+
+		Map<String, Object> model = new HashMap<String, Object>();
+		Assert.assertEquals("select * from member where 1=1 and 1=1", tpl.render(model));
+		Assert.assertEquals("select * from member where 1=1 and 1=1", tpl.render(null));
+
+		model.put("id", 1);
+		model.put("name", "");
+		model.put("ip", "127.0.0.1");
+		model.put("type", "admin");
+		model.put("deleted", false);
+		Assert.assertEquals("select * from member where 1=1 and id = :id and regist_ip = :ip and is_admin = true",
+				tpl.render(model));
+	}
+
+	@Test
+	public void renderListAndBeanTest() {
+		SimpleSqlTemplate tpl = SimpleSqlTemplate.compile("test",
+				"id in (<#list ids as i>${i}<#sep>, </#list>)<#if member.name??> and name = '${member.name}'</#if>");
+
+		Member member = new Member();
+		member.setName("woo");
+		Map<String, Object> model = new HashMap<String, Object>();
+		model.put("ids", Arrays.asList(1, 2, 3));
+		model.put("member", member);
+		Assert.assertEquals("id in (1, 2, 3) and name = 'woo'", tpl.render(model));
+
+		model.put("ids", new int[0]);
+		member.setName(null);
+		Assert.assertEquals("id in ()", tpl.render(model));
+
+		SimpleSqlTemplate beanTpl = SimpleSqlTemplate.compile("bean", "<#if name??>name = :name<#else>1=1</#if>");
+		Assert.assertEquals("1=1", beanTpl.render(member));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unsupportedDirectiveTest() {
+		SimpleSqlTemplate.compile("test", "<#assign a = 1>select 1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unclosedBlockTest() {
+		SimpleSqlTemplate.compile("test", "select 1 <#if a??> where 1=1");
+	}
+
+}
@@ -7,20 +7,30 @@
  */
 package net.turnbig.jdbcx.test;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 
 import net.turnbig.jdbcx.H2Env;
 import net.turnbig.jdbcx.JdbcxPagingDaoSupport;
 import net.turnbig.jdbcx.modal.Member;
+import net.turnbig.jdbcx.sql.NamedStatement;
 import net.turnbig.jdbcx.sql.loader.SqlLoader;
+import net.turnbig.jdbcx.sql.loader.SqlTemplateLoaderFactory;
+import net.turnbig.jdbcx.sql.loader.SqlTemplateLoaderFactory.SqlTemplateLoader;
+import net.turnbig.jdbcx.sql.loader.SqlTemplateRegistry;
 
 /**
  * @author Woo Cupid
@@ -59,4 +69,71 @@ public class SqlLoaderTest extends H2Env {
 		logger.info("result is : {}", members);
 	}
 
+	@Test
+	public void queryWithNamedStatementTest() {
+		Map<String, Object> context = new HashMap<String, Object>();
+		context.put("id", 1);
+		NamedStatement<Member> stmt = sqlLoader.getStatement("member.select.all.columns", context, Member.class);
+		Assert.assertSame(stmt, sqlLoader.getStatement("member.select.all.columns", context, Member.class));
+
+		Member member = jdbcx.queryForObject(stmt, context);
+		Assert.assertEquals("woo", member.getName());
+
+		NamedStatement<Map<String, Object>> all = sqlLoader.getStatement("member.select.all.columns");
+		Assert.assertEquals(2, jdbcx.queryForList(all).size());
+
+		Page<Map<String, Object>> page = jdbcx.queryForList(all, new PageRequest(0, 1));
+		Assert.assertEquals(2, page.getTotalElements());
+		Assert.assertEquals(1, page.getContent().size());
+
+		NamedStatement<String> names = NamedStatement.of("select name from member where id = :id", String.class);
+		Assert.assertEquals("woo", jdbcx.queryForObject(names, context));
+	}
+
+	@Test
+	public void simpleEngineTest() {
+		Map<String, Object> context = new HashMap<String, Object>();
+		context.put("admin", false);
+		context.put("ip", "127.0.0.1");
+		String sql = sqlLoader.getSql("member.simple.query", context);
+		Assert.assertTrue(sql.contains("and regist_ip = :ip"));
+		Assert.assertFalse(sql.contains("is_admin"));
+
+		List<Member> members = jdbcx.queryForListBean(sql, context, Member.class);
+		Assert.assertEquals(1, members.size());
+		Assert.assertEquals("woo", members.get(0).getName());
+
+		Assert.assertEquals("select * from member", sqlLoader.getSql("member.simple.freemarker"));
+	}
+
+	@Test
+	public void reloadTemplateTest() throws Exception {
+		File file = File.createTempFile("jdbcx-reload", ".xml");
+		file.deleteOnExit();
+		writeTemplate(file, "select 1");
+
+		SqlTemplateLoaderFactory factory = new SqlTemplateLoaderFactory();
+		factory.setLocations(new String[] { file.toURI().toString() });
+		factory.afterPropertiesSet();
+		SqlTemplateLoader loader = factory.getSqlTemplateLoader();
+		SqlTemplateRegistry before = loader.getRegistry();
+		Assert.assertEquals("select 1", before.get("reload.test").getSource().trim());
+		Assert.assertFalse("nothing modified", loader.reload());
+
+		writeTemplate(file, "select 2");
+		file.setLastModified(file.lastModified() + 2000);
+		Assert.assertTrue(loader.reload());
+
+		SqlTemplateRegistry after = loader.getRegistry();
+		Assert.assertTrue(after.getVersion() > before.getVersion());
+		Assert.assertEquals("select 2", after.get("reload.test").getSource().trim());
+		Assert.assertEquals("published snapshot is never changed", "select 1",
+				before.get("reload.test").getSource().trim());
+	}
+
+	private void writeTemplate(File file, String sql) throws IOException {
+		FileUtils.writeStringToFile(file, "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Templates><Template>"
+				+ "<name>reload.test</name><template>" + sql + "</template></Template></Templates>", "UTF-8");
+	}
+
 }
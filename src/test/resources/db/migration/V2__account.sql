@@ -0,0 +1,10 @@
+CREATE TABLE account (
+	id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+	owner varchar(32),
+	balance int,
+	version int
+);
+
+insert into account (owner, balance, version) VALUES ('woo', 100, 0);
+
+insert into account (owner, balance, version) VALUES ('Five', 200, 0);
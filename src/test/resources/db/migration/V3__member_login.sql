@@ -0,0 +1,11 @@
+CREATE TABLE member_login (
+	id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+	member_id BIGINT,
+	login_ip varchar(16)
+);
+
+insert into member_login (member_id, login_ip) VALUES (1, '127.0.0.1');
+
+insert into member_login (member_id, login_ip) VALUES (1, '127.0.0.2');
+
+insert into member_login (member_id, login_ip) VALUES (2, '192.168.1.120');